@@ -117,6 +117,7 @@ import com.android.launcher3.anim.AnimationSuccessListener;
 import com.android.launcher3.anim.AnimatorListeners;
 import com.android.launcher3.dragndrop.DragLayer;
 import com.android.launcher3.icons.FastBitmapDrawable;
+import com.android.launcher3.logging.LaunchTraceRecorder;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.shortcuts.DeepShortcutView;
 import com.android.launcher3.statehandlers.DepthController;
@@ -298,6 +299,8 @@ public class QuickstepTransitionManager implements OnDeviceProfileChangeListener
      * targets are displayed.
      */
     public ActivityOptionsWrapper getActivityLaunchOptions(View v) {
+        long launchStartNanos = LaunchTraceRecorder.now();
+        LaunchTraceRecorder.INSTANCE.beginLaunch();
         boolean fromRecents = isLaunchingFromRecents(v, null /* targets */);
         RunnableList onEndCallback = new RunnableList();
 
@@ -307,7 +310,7 @@ public class QuickstepTransitionManager implements OnDeviceProfileChangeListener
         restartedListener.register(onEndCallback::executeAllAndDestroy);
         onEndCallback.add(restartedListener::unregister);
 
-        mAppLaunchRunner = new AppLaunchAnimationRunner(v, onEndCallback);
+        mAppLaunchRunner = new AppLaunchAnimationRunner(v, onEndCallback, launchStartNanos);
         ItemInfo tag = (ItemInfo) v.getTag();
         if (tag != null && tag.shouldUseBackgroundAnimation()) {
             ContainerAnimationRunner containerAnimationRunner =
@@ -1729,10 +1732,12 @@ public class QuickstepTransitionManager implements OnDeviceProfileChangeListener
 
         private final View mV;
         private final RunnableList mOnEndCallback;
+        private final long mLaunchStartNanos;
 
-        AppLaunchAnimationRunner(View v, RunnableList onEndCallback) {
+        AppLaunchAnimationRunner(View v, RunnableList onEndCallback, long launchStartNanos) {
             mV = v;
             mOnEndCallback = onEndCallback;
+            mLaunchStartNanos = launchStartNanos;
         }
 
         @Override
@@ -1771,6 +1776,22 @@ public class QuickstepTransitionManager implements OnDeviceProfileChangeListener
                 anim.addListener(mForceInvisibleListener);
             }
 
+            long animationStartNanos = LaunchTraceRecorder.now();
+            LaunchTraceRecorder.INSTANCE.recordSpan(
+                    "appLaunchRequest", mLaunchStartNanos, animationStartNanos);
+            anim.addListener(new AnimatorListenerAdapter() {
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    long endNanos = LaunchTraceRecorder.now();
+                    LaunchTraceRecorder.INSTANCE.recordSpan(
+                            "appLaunchAnimation", animationStartNanos, endNanos);
+                    LaunchTraceRecorder.INSTANCE.recordSpan(
+                            LaunchTraceRecorder.LAUNCH_APP, mLaunchStartNanos, endNanos);
+                    LaunchTraceRecorder.INSTANCE.finishLaunch(mLauncher,
+                            LaunchTraceRecorder.LAUNCH_APP, endNanos - mLaunchStartNanos);
+                }
+            });
+
             result.setAnimation(anim, mLauncher, mOnEndCallback::executeAllAndDestroy,
                     skipFirstFrame);
         }
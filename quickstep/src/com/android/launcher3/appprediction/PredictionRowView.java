@@ -20,6 +20,7 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.os.Build;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -48,6 +49,7 @@ import com.android.launcher3.views.ActivityContext;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @TargetApi(Build.VERSION_CODES.P)
@@ -171,8 +173,8 @@ public class PredictionRowView<T extends Context & ActivityContext>
      * This can be called before we get the full set of applications, we should merge the results
      * only in onPredictionsUpdated() which is idempotent.
      *
-     * If the number of predicted apps is the same as the previous list of predicted apps,
-     * we can optimize by swapping them in place.
+     * Icons which already show the same app are kept in place, so that applying the live
+     * predictions over the restored ones does not make the row flicker.
      */
     public void setPredictedApps(List<ItemInfo> items) {
         applyPredictedApps(items);
@@ -234,11 +236,18 @@ public class PredictionRowView<T extends Context & ActivityContext>
 
         for (int i = 0; i < getChildCount(); i++) {
             BubbleTextView icon = (BubbleTextView) getChildAt(i);
-            icon.reset();
             if (predictionCount > i) {
+                WorkspaceItemInfo info = mPredictedApps.get(i);
                 icon.setVisibility(View.VISIBLE);
-                icon.applyFromWorkspaceItem(mPredictedApps.get(i));
+                if (isSameIcon(icon.getTag(), info)) {
+                    // Keep the bound icon to avoid flickering, only point it to the new item
+                    icon.setTag(info);
+                } else {
+                    icon.reset();
+                    icon.applyFromWorkspaceItem(info);
+                }
             } else {
+                icon.reset();
                 icon.setVisibility(predictionCount == 0 ? GONE : INVISIBLE);
             }
         }
@@ -251,6 +260,23 @@ public class PredictionRowView<T extends Context & ActivityContext>
         mParent.onHeightUpdated();
     }
 
+    /**
+     * Returns true if an icon bound to {@param oldTag} would look the same for {@param info}.
+     */
+    private static boolean isSameIcon(Object oldTag, WorkspaceItemInfo info) {
+        if (!(oldTag instanceof WorkspaceItemInfo)) {
+            return false;
+        }
+        WorkspaceItemInfo old = (WorkspaceItemInfo) oldTag;
+        return old.itemType == info.itemType
+                && Objects.equals(old.getTargetComponent(), info.getTargetComponent())
+                && Objects.equals(old.getDeepShortcutId(), info.getDeepShortcutId())
+                && Objects.equals(old.user, info.user)
+                && TextUtils.equals(old.title, info.title)
+                && old.bitmap == info.bitmap
+                && old.runtimeStatusFlags == info.runtimeStatusFlags;
+    }
+
     @Override
     public boolean hasOverlappingRendering() {
         return false;
@@ -37,6 +37,7 @@ import android.app.prediction.AppPredictionManager;
 import android.app.prediction.AppPredictor;
 import android.app.prediction.AppTarget;
 import android.app.prediction.AppTargetEvent;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -44,6 +45,7 @@ import android.content.pm.LauncherActivityInfo;
 import android.content.pm.LauncherApps;
 import android.content.pm.ShortcutInfo;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.util.Log;
 import android.util.StatsEvent;
@@ -79,7 +81,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.IntStream;
+import java.util.stream.Collectors;
 
 /**
  * Model delegate which loads prediction items
@@ -94,6 +96,9 @@ public class QuickstepModelDelegate extends ModelDelegate {
     private static final boolean IS_DEBUG = false;
     private static final String TAG = "QuickstepModelDelegate";
 
+    // Identical events sent to a predictor within this duration are dropped
+    private static final long EVENT_THROTTLE_MS = 1000;
+
     private final PredictorState mAllAppsState =
             new PredictorState(CONTAINER_PREDICTION, "all_apps_predictions");
     private final PredictorState mHotseatState =
@@ -140,12 +145,12 @@ public class QuickstepModelDelegate extends ModelDelegate {
             @NonNull Map<ShortcutKey, ShortcutInfo> pinnedShortcuts,
             @NonNull BgDataModel.Callbacks[] callbacks,
             int numColumns, @NonNull PredictorState state) {
-        // TODO: Implement caching and preloading
-
         WorkspaceItemFactory factory =
                 new WorkspaceItemFactory(mApp, ums, pinnedShortcuts, numColumns, state.containerId);
         FixedContainerItems fci = new FixedContainerItems(state.containerId,
                 state.storage.read(mApp.getContext(), factory, ums.allUsers::get));
+        // Remember what was restored so that a matching live prediction does not rebind the items
+        state.setRestoredItems(fci.items);
         if (FeatureFlags.CHANGE_MODEL_DELEGATE_LOADING_ORDER.get()) {
             bindPredictionItems(callbacks, fci);
         }
@@ -368,7 +373,8 @@ public class QuickstepModelDelegate extends ModelDelegate {
     }
 
     private void registerPredictor(PredictorState state, AppPredictor predictor) {
-        state.setTargets(Collections.emptyList());
+        // The last targets are not cleared, as they always match the items in the data model. The
+        // first update is only applied if it differs from what was restored or last applied.
         state.predictor = predictor;
         state.predictor.registerPredictionUpdates(
                 MODEL_EXECUTOR, t -> handleUpdate(state, t));
@@ -378,6 +384,11 @@ public class QuickstepModelDelegate extends ModelDelegate {
     private void handleUpdate(PredictorState state, List<AppTarget> targets) {
         if (state.setTargets(targets)) {
             // No diff, skip
+            if (IS_DEBUG) {
+                Log.d(TAG, "Skipping unchanged predictions for " + state.containerId
+                        + ", last changed " + (System.currentTimeMillis() - state.mLastChangeTime)
+                        + "ms ago");
+            }
             return;
         }
         mApp.getModel().enqueueModelUpdateTask(new PredictionUpdateTask(state, targets));
@@ -411,7 +422,7 @@ public class QuickstepModelDelegate extends ModelDelegate {
                 state = mHotseatState;
                 break;
         }
-        if (state.predictor != null) {
+        if (state.predictor != null && state.shouldNotifyEvent(event)) {
             state.predictor.notifyAppTargetEvent(event);
             Log.d(TAG, "notifyAppTargetEvent action=" + event.getAction()
                     + " launchLocation=" + event.getLaunchLocation());
@@ -441,12 +452,16 @@ public class QuickstepModelDelegate extends ModelDelegate {
         public final PersistedItemArray<ItemInfo> storage;
         public AppPredictor predictor;
 
-        private List<AppTarget> mLastTargets;
+        // Keys of the last targets, which are the items currently in the data model
+        private List<String> mLastTargetKeys = Collections.emptyList();
+        private long mLastChangeTime;
+
+        private String mLastEventKey;
+        private long mLastEventTime;
 
         PredictorState(int containerId, String storageName) {
             this.containerId = containerId;
             storage = new PersistedItemArray<>(storageName);
-            mLastTargets = Collections.emptyList();
         }
 
         public void destroyPredictor() {
@@ -460,35 +475,71 @@ public class QuickstepModelDelegate extends ModelDelegate {
          * Sets the new targets and returns true if it was the same as before.
          */
         boolean setTargets(List<AppTarget> newTargets) {
-            List<AppTarget> oldTargets = mLastTargets;
-            mLastTargets = newTargets;
+            return setTargetKeys(newTargets.stream()
+                    .map(PredictorState::getTargetKey)
+                    .collect(Collectors.toList()));
+        }
 
-            int size = oldTargets.size();
-            return size == newTargets.size() && IntStream.range(0, size)
-                    .allMatch(i -> areAppTargetsSame(oldTargets.get(i), newTargets.get(i)));
+        /**
+         * Sets the items restored from {@link #storage} as the last targets.
+         */
+        void setRestoredItems(List<ItemInfo> items) {
+            setTargetKeys(items.stream()
+                    .map(PredictorState::getItemKey)
+                    .collect(Collectors.toList()));
         }
-    }
 
-    /**
-     * Compares two targets for the properties which we care about
-     */
-    private static boolean areAppTargetsSame(AppTarget t1, AppTarget t2) {
-        if (!Objects.equals(t1.getPackageName(), t2.getPackageName())
-                || !Objects.equals(t1.getUser(), t2.getUser())
-                || !Objects.equals(t1.getClassName(), t2.getClassName())) {
-            return false;
+        private boolean setTargetKeys(List<String> newKeys) {
+            boolean isSame = mLastTargetKeys.equals(newKeys);
+            mLastTargetKeys = newKeys;
+            if (!isSame) {
+                mLastChangeTime = System.currentTimeMillis();
+            }
+            return isSame;
         }
 
-        ShortcutInfo s1 = t1.getShortcutInfo();
-        ShortcutInfo s2 = t2.getShortcutInfo();
-        if (s1 != null) {
-            if (s2 == null || !Objects.equals(s1.getId(), s2.getId())) {
+        /**
+         * Returns false if the same event was already sent to the predictor very recently, for
+         * example when the launcher is resumed several times in a row.
+         */
+        boolean shouldNotifyEvent(AppTargetEvent event) {
+            String key = event.getTarget().getId().getId() + "|" + event.getAction() + "|"
+                    + event.getLaunchLocation();
+            long now = SystemClock.uptimeMillis();
+            if (key.equals(mLastEventKey) && now - mLastEventTime < EVENT_THROTTLE_MS) {
                 return false;
             }
-        } else if (s2 != null) {
-            return false;
+            mLastEventKey = key;
+            mLastEventTime = now;
+            return true;
+        }
+
+        /**
+         * Returns a key for the properties of the target which we care about
+         */
+        private static String getTargetKey(AppTarget target) {
+            ShortcutInfo si = target.getShortcutInfo();
+            return si != null
+                    ? getShortcutKey(target.getPackageName(), si.getId(), target.getUser())
+                    : getAppKey(target.getPackageName(), target.getClassName(), target.getUser());
+        }
+
+        private static String getItemKey(ItemInfo item) {
+            if (item.itemType == ITEM_TYPE_DEEP_SHORTCUT && item instanceof WorkspaceItemInfo) {
+                return getShortcutKey(item.getTargetPackage(),
+                        ((WorkspaceItemInfo) item).getDeepShortcutId(), item.user);
+            }
+            ComponentName cn = item.getTargetComponent();
+            return cn == null ? "" : getAppKey(cn.getPackageName(), cn.getClassName(), item.user);
+        }
+
+        private static String getAppKey(String packageName, String className, UserHandle user) {
+            return packageName + "/" + className + "#" + user;
+        }
+
+        private static String getShortcutKey(String packageName, String id, UserHandle user) {
+            return "shortcut:" + packageName + "/" + id + "#" + user;
         }
-        return true;
     }
 
     private static class WorkspaceItemFactory implements PersistedItemArray.ItemFactory<ItemInfo> {
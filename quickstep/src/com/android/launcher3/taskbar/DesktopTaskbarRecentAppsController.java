@@ -16,7 +16,6 @@
 package com.android.launcher3.taskbar;
 
 import android.app.ActivityManager;
-import android.content.ComponentName;
 import android.util.SparseArray;
 
 import com.android.launcher3.model.data.AppInfo;
@@ -26,6 +25,7 @@ import com.android.quickstep.RecentsModel;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -36,7 +36,11 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
 
     private final TaskbarActivityContext mContext;
     private ArrayList<ItemInfo> mRunningApps = new ArrayList<>();
-    private AppInfo[] mApps;
+    // Apps shown in mRunningApps, used to skip UI updates when they do not change
+    private ArrayList<AppInfo> mRunningAppInfos = new ArrayList<>();
+    // First app of each package, in the order of the apps list
+    private final HashMap<String, AppInfo> mAppsByPackage = new HashMap<>();
+    private boolean mHasApps;
 
     public DesktopTaskbarRecentAppsController(TaskbarActivityContext context) {
         mContext = context;
@@ -45,12 +49,23 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        mApps = null;
+        mAppsByPackage.clear();
+        mHasApps = false;
     }
 
     @Override
     protected void setApps(AppInfo[] apps) {
-        mApps = apps;
+        mAppsByPackage.clear();
+        mHasApps = apps != null;
+        if (apps == null) {
+            return;
+        }
+        for (AppInfo app : apps) {
+            String packageName = app.getTargetPackage();
+            if (packageName != null) {
+                mAppsByPackage.putIfAbsent(packageName, app);
+            }
+        }
     }
 
     @Override
@@ -65,25 +80,28 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
      */
     @Override
     protected void updateRunningApps(SparseArray<ItemInfo> hotseatItems) {
+        int numShownHotseatIcons =
+                mControllers.taskbarActivityContext.getDeviceProfile().numShownHotseatIcons;
+        HashSet<String> hotseatPackages = new HashSet<>();
+        for (int i = 0; i < hotseatItems.size(); i++) {
+            if (hotseatItems.keyAt(i) >= numShownHotseatIcons) {
+                break;
+            }
+            hotseatPackages.add(hotseatItems.valueAt(i).getTargetPackage());
+        }
+
         ArrayList<AppInfo> runningApps = getRunningAppsFromTasks();
-        ArrayList<ItemInfo> filteredRunningApps = new ArrayList<>();
+        runningApps.removeIf(app -> hotseatPackages.contains(app.getTargetPackage()));
+        if (runningApps.equals(mRunningAppInfos)) {
+            // Same apps in the same order, nothing to rebind
+            return;
+        }
+
+        ArrayList<ItemInfo> filteredRunningApps = new ArrayList<>(runningApps.size());
         for (AppInfo runningApp : runningApps) {
-            boolean shouldAddOnTaskbar = true;
-            for (int i = 0; i < hotseatItems.size(); i++) {
-                if (hotseatItems.keyAt(i) >= mControllers.taskbarActivityContext.getDeviceProfile()
-                        .numShownHotseatIcons) {
-                    break;
-                }
-                if (hotseatItems.valueAt(i).getTargetPackage()
-                        .equals(runningApp.getTargetPackage())) {
-                    shouldAddOnTaskbar = false;
-                    break;
-                }
-            }
-            if (shouldAddOnTaskbar) {
-                filteredRunningApps.add(new WorkspaceItemInfo(runningApp));
-            }
+            filteredRunningApps.add(new WorkspaceItemInfo(runningApp));
         }
+        mRunningAppInfos = runningApps;
         mRunningApps = filteredRunningApps;
         mControllers.taskbarViewController.commitRunningAppsToUI();
     }
@@ -116,7 +134,7 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
                 RecentsModel.INSTANCE.get(mContext).getRunningTasks();
         ArrayList<AppInfo> runningApps = new ArrayList<>();
         // early return if apps is empty, since we would have no AppInfo to compare
-        if (mApps == null)  {
+        if (!mHasApps)  {
             return runningApps;
         }
 
@@ -126,28 +144,13 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
 
             // If a different task for the same package has already been handled, skip this one
             String taskPackage = taskInfo.realActivity.getPackageName();
-            if (seenPackages.contains(taskPackage)) continue;
+            if (!seenPackages.add(taskPackage)) continue;
 
             // Otherwise, get the corresponding AppInfo and add it to the list
-            seenPackages.add(taskPackage);
-            AppInfo app = getAppInfo(taskInfo.realActivity);
+            AppInfo app = mAppsByPackage.get(taskPackage);
             if (app == null) continue;
             runningApps.add(app);
         }
         return runningApps;
     }
-
-    /**
-     * Retrieves the corresponding AppInfo for the activity.
-     */
-    private AppInfo getAppInfo(ComponentName activity) {
-        String packageName = activity.getPackageName();
-        for (AppInfo app : mApps) {
-            if (!packageName.equals(app.getTargetPackage())) {
-                continue;
-            }
-            return app;
-        }
-        return null;
-    }
 }
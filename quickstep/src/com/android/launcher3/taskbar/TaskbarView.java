@@ -54,6 +54,8 @@ import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.DoubleShadowBubbleTextView;
 import com.android.launcher3.views.IconButtonView;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.function.Predicate;
 
 /**
@@ -97,6 +99,10 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
 
     private boolean mShouldTryStartAlign;
 
+    // Items and device profile of the last update, used to skip updates which change nothing
+    private ItemInfo[] mBoundItemInfos = new ItemInfo[0];
+    private @Nullable DeviceProfile mBoundDeviceProfile;
+
     public TaskbarView(@NonNull Context context) {
         this(context, null);
     }
@@ -246,6 +252,14 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
      * Inflates/binds the Hotseat views to show in the Taskbar given their ItemInfos.
      */
     protected void updateHotseatItems(ItemInfo[] hotseatItemInfos) {
+        DeviceProfile dp = mActivityContext.getDeviceProfile();
+        if (dp == mBoundDeviceProfile && Arrays.equals(hotseatItemInfos, mBoundItemInfos)) {
+            // Same items in the same slots, avoid rebinding and relayout
+            return;
+        }
+        mBoundDeviceProfile = dp;
+        mBoundItemInfos = hotseatItemInfos.clone();
+
         int nextViewIndex = 0;
         int numViewsAnimated = 0;
 
@@ -258,6 +272,16 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
         }
         removeView(mQsb);
 
+        // Views already bound to one of the new items are moved to the new slot of their item
+        // instead of being rebound or reinflated
+        HashMap<ItemInfo, View> boundViews = new HashMap<>();
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            View child = getChildAt(i);
+            if (child.getTag() instanceof ItemInfo) {
+                boundViews.put((ItemInfo) child.getTag(), child);
+            }
+        }
+        boundViews.keySet().retainAll(Arrays.asList(hotseatItemInfos));
 
         for (int i = 0; i < hotseatItemInfos.length; i++) {
             ItemInfo hotseatItemInfo = hotseatItemInfos[i];
@@ -277,12 +301,24 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
                 expectedLayoutResId = R.layout.taskbar_app_icon;
             }
 
-            View hotseatView = null;
-            while (nextViewIndex < getChildCount()) {
+            View hotseatView = boundViews.remove(hotseatItemInfo);
+            if (hotseatView != null && hotseatView.getSourceLayoutResId() == expectedLayoutResId) {
+                if (indexOfChild(hotseatView) != nextViewIndex) {
+                    removeView(hotseatView);
+                    addView(hotseatView, nextViewIndex);
+                }
+            } else {
+                hotseatView = null;
+            }
+            while (hotseatView == null && nextViewIndex < getChildCount()) {
                 hotseatView = getChildAt(nextViewIndex);
 
                 // see if the view can be reused
-                if ((hotseatView.getSourceLayoutResId() != expectedLayoutResId)
+                if (boundViews.containsKey(hotseatView.getTag())) {
+                    // Kept for the later slot of its item, add a new view before it
+                    hotseatView = null;
+                    break;
+                } else if ((hotseatView.getSourceLayoutResId() != expectedLayoutResId)
                         || (isFolder && (hotseatView.getTag() != hotseatItemInfo))) {
                     // Unlike for BubbleTextView, we can't reapply a new FolderInfo after inflation,
                     // so if the info changes we need to reinflate. This should only happen if a new
@@ -316,10 +352,12 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
                 BubbleTextView btv = (BubbleTextView) hotseatView;
                 WorkspaceItemInfo workspaceInfo = (WorkspaceItemInfo) hotseatItemInfo;
 
-                boolean animate = btv.shouldAnimateIconChange((WorkspaceItemInfo) hotseatItemInfo);
-                btv.applyFromWorkspaceItem(workspaceInfo, animate, numViewsAnimated);
-                if (animate) {
-                    numViewsAnimated++;
+                if (btv.getTag() != workspaceInfo) {
+                    boolean animate = btv.shouldAnimateIconChange(workspaceInfo);
+                    btv.applyFromWorkspaceItem(workspaceInfo, animate, numViewsAnimated);
+                    if (animate) {
+                        numViewsAnimated++;
+                    }
                 }
             }
             setClickAndLongClickListenersForIcon(hotseatView);
@@ -259,6 +259,14 @@ public final class QuickstepWidgetHolder extends LauncherWidgetHolder {
         return widgetView;
     }
 
+    @Override
+    public void releaseView(@NonNull LauncherAppWidgetHostView view, boolean keepSnapshot) {
+        super.releaseView(view, keepSnapshot);
+        if (mViews.get(view.getAppWidgetId()) == view) {
+            mViews.remove(view.getAppWidgetId());
+        }
+    }
+
     /**
      * Clears all the views from the host
      */
@@ -28,6 +28,8 @@ import android.content.ComponentName;
 import android.os.Build;
 import android.os.Process;
 import android.os.RemoteException;
+import android.os.SystemClock;
+import android.util.Log;
 import android.util.SparseBooleanArray;
 
 import androidx.annotation.VisibleForTesting;
@@ -44,9 +46,9 @@ import com.android.wm.shell.util.SplitBounds;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Manages the recent task list from the system, caching it as necessary.
@@ -54,6 +56,10 @@ import java.util.stream.Collectors;
 @TargetApi(Build.VERSION_CODES.R)
 public class RecentTasksList {
 
+    private static final String TAG = "RecentTasksList";
+    // Whether to reload the tasks after each confirmed delta to check that it matches the system
+    private static final boolean DEBUG_VERIFY_DELTAS = false;
+
     private static final TaskLoadResult INVALID_RESULT = new TaskLoadResult(-1, false, 0);
 
     private final KeyguardManager mKeyguardManager;
@@ -67,8 +73,22 @@ public class RecentTasksList {
     private boolean mLoadingTasksInBackground;
 
     private TaskLoadResult mResultsBg = INVALID_RESULT;
+    // Published results are never modified, task changes are applied to a new copy of the list
     private TaskLoadResult mResultsUi = INVALID_RESULT;
 
+    // Number of task changes applied to mResultsUi which the system has not reported yet
+    private int mPendingDeltaCount;
+
+    // Stats reported in dump(), updated from both the main and the background thread
+    private final AtomicInteger mLoadCount = new AtomicInteger();
+    private volatile long mLastLoadDurationMs;
+    private volatile int mLastLoadTaskCount;
+    private final AtomicInteger mCachedRequestCount = new AtomicInteger();
+    private final AtomicInteger mInvalidationCount = new AtomicInteger();
+    private final AtomicInteger mTaskDeltaCount = new AtomicInteger();
+    private final AtomicInteger mConfirmedDeltaCount = new AtomicInteger();
+    private final AtomicInteger mRunningTaskDeltaCount = new AtomicInteger();
+
     private RecentsModel.RunningTasksListener mRunningTasksListener;
     // Tasks are stored in order of least recently launched to most recently launched.
     private ArrayList<ActivityManager.RunningTaskInfo> mRunningTasks;
@@ -82,7 +102,7 @@ public class RecentTasksList {
         sysUiProxy.registerRecentTasksListener(new IRecentTasksListener.Stub() {
             @Override
             public void onRecentTasksChanged() throws RemoteException {
-                mMainThreadExecutor.execute(RecentTasksList.this::onRecentTasksChanged);
+                mMainThreadExecutor.execute(RecentTasksList.this::onSystemRecentTasksChanged);
             }
 
             @Override
@@ -136,12 +156,11 @@ public class RecentTasksList {
         if (mResultsUi.isValidForRequest(requestLoadId, loadKeysOnly)) {
             // The list is up to date, send the callback on the next frame,
             // so that requestID can be returned first.
+            mCachedRequestCount.incrementAndGet();
             if (callback != null) {
                 // Copy synchronously as the changeId might change by next frame
                 // and filter GroupTasks
-                ArrayList<GroupTask> result = mResultsUi.stream().filter(filter)
-                        .map(GroupTask::copy)
-                        .collect(Collectors.toCollection(ArrayList<GroupTask>::new));
+                ArrayList<GroupTask> result = copyOf(mResultsUi, filter);
 
                 mMainThreadExecutor.post(() -> {
                     callback.accept(result);
@@ -158,15 +177,13 @@ public class RecentTasksList {
                 mResultsBg = loadTasksInBackground(Integer.MAX_VALUE, requestLoadId, loadKeysOnly);
             }
             TaskLoadResult loadResult = mResultsBg;
+            // The loaded result is never modified once published, so it can be copied here
+            // instead of on the main thread
+            ArrayList<GroupTask> result = callback != null ? copyOf(loadResult, filter) : null;
             mMainThreadExecutor.execute(() -> {
                 mLoadingTasksInBackground = false;
                 mResultsUi = loadResult;
                 if (callback != null) {
-                    // filter the tasks if needed before passing them into the callback
-                    ArrayList<GroupTask> result = mResultsUi.stream().filter(filter)
-                            .map(GroupTask::copy)
-                            .collect(Collectors.toCollection(ArrayList<GroupTask>::new));
-
                     callback.accept(result);
                 }
             });
@@ -182,6 +199,9 @@ public class RecentTasksList {
         return mChangeId == changeId;
     }
 
+    /**
+     * Invalidates the loaded tasks, so that the next request loads them from the system.
+     */
     public void onRecentTasksChanged() {
         invalidateLoadedTasks();
     }
@@ -189,7 +209,135 @@ public class RecentTasksList {
     private synchronized void invalidateLoadedTasks() {
         UI_HELPER_EXECUTOR.execute(() -> mResultsBg = INVALID_RESULT);
         mResultsUi = INVALID_RESULT;
+        mPendingDeltaCount = 0;
+        mChangeId++;
+        mInvalidationCount.incrementAndGet();
+    }
+
+    /**
+     * Called when the system reports a change of the recent tasks, which does not say what
+     * changed. If the loaded tasks were already updated by {@link #onTaskRemoved} or
+     * {@link #onTaskMovedToFront}, the change is taken as the one reported for that update and
+     * the loaded tasks are kept, otherwise they are reloaded on the next request.
+     */
+    private synchronized void onSystemRecentTasksChanged() {
+        if (mPendingDeltaCount == 0 || !isResultValid(mResultsUi)) {
+            invalidateLoadedTasks();
+            return;
+        }
+        mPendingDeltaCount--;
+        mConfirmedDeltaCount.incrementAndGet();
+        if (DEBUG_VERIFY_DELTAS) {
+            TaskLoadResult expected = mResultsUi;
+            UI_HELPER_EXECUTOR.execute(() -> {
+                TaskLoadResult loaded = loadTasksInBackground(
+                        Integer.MAX_VALUE, expected.mRequestId, expected.mKeysOnly);
+                mMainThreadExecutor.execute(() -> onDeltasVerified(expected, loaded));
+            });
+        }
+    }
+
+    private synchronized void onDeltasVerified(TaskLoadResult expected, TaskLoadResult loaded) {
+        // Ignore the result if the tasks changed again while loading
+        if (mResultsUi == expected && !hasSameTasks(expected, loaded)) {
+            Log.w(TAG, "Task changes do not match the system tasks, reloading");
+            invalidateLoadedTasks();
+        }
+    }
+
+    /**
+     * Removes the task from the loaded tasks, without reloading them from the system.
+     */
+    public synchronized void onTaskRemoved(int taskId) {
+        TaskLoadResult result = isResultValid(mResultsUi)
+                ? withTaskRemoved(mResultsUi, taskId, mChangeId + 1) : null;
+        applyDelta(result);
+    }
+
+    /**
+     * Moves the task to the end of the loaded tasks, without reloading them from the system.
+     */
+    public synchronized void onTaskMovedToFront(int taskId) {
+        TaskLoadResult result = isResultValid(mResultsUi)
+                ? withTaskMovedToFront(mResultsUi, taskId, mChangeId + 1) : null;
+        applyDelta(result);
+    }
+
+    private void applyDelta(TaskLoadResult result) {
+        if (result == null) {
+            // Unknown task, the next system change reloads the tasks
+            return;
+        }
+        UI_HELPER_EXECUTOR.execute(() -> mResultsBg = INVALID_RESULT);
         mChangeId++;
+        mResultsUi = result;
+        mPendingDeltaCount++;
+        mTaskDeltaCount.incrementAndGet();
+    }
+
+    private boolean isResultValid(TaskLoadResult result) {
+        return result != INVALID_RESULT && result.mRequestId == mChangeId;
+    }
+
+    /**
+     * Returns a copy of {@param tasks} without the group containing {@param taskId}, or null if
+     * there is no such group.
+     */
+    @VisibleForTesting
+    static TaskLoadResult withTaskRemoved(TaskLoadResult tasks, int taskId, int requestId) {
+        int index = indexOfTask(tasks, taskId);
+        if (index < 0) {
+            return null;
+        }
+        TaskLoadResult result = new TaskLoadResult(requestId, tasks.mKeysOnly, tasks.size());
+        result.addAll(tasks);
+        result.remove(index);
+        return result;
+    }
+
+    /**
+     * Returns a copy of {@param tasks} with the group containing {@param taskId} moved to the
+     * end, or null if there is no such group.
+     */
+    @VisibleForTesting
+    static TaskLoadResult withTaskMovedToFront(TaskLoadResult tasks, int taskId, int requestId) {
+        int index = indexOfTask(tasks, taskId);
+        if (index < 0) {
+            return null;
+        }
+        TaskLoadResult result = new TaskLoadResult(requestId, tasks.mKeysOnly, tasks.size());
+        result.addAll(tasks);
+        result.add(result.remove(index));
+        return result;
+    }
+
+    private static int indexOfTask(ArrayList<GroupTask> tasks, int taskId) {
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).containsTask(taskId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether both lists have the same task ids, in the same order.
+     */
+    @VisibleForTesting
+    static boolean hasSameTasks(ArrayList<GroupTask> a, ArrayList<GroupTask> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            GroupTask groupA = a.get(i);
+            GroupTask groupB = b.get(i);
+            if (groupA.task1.key.id != groupB.task1.key.id
+                    || (groupA.task2 == null) != (groupB.task2 == null)
+                    || (groupA.task2 != null && groupA.task2.key.id != groupB.task2.key.id)) {
+                return false;
+            }
+        }
+        return true;
     }
 
      /**
@@ -227,6 +375,7 @@ public class RecentTasksList {
             }
         }
         mRunningTasks.add(taskInfo);
+        mRunningTaskDeltaCount.incrementAndGet();
         if (mRunningTasksListener != null) {
             mRunningTasksListener.onRunningTasksChanged();
         }
@@ -238,6 +387,7 @@ public class RecentTasksList {
             if (existingTask.taskId != taskInfo.taskId) continue;
 
             mRunningTasks.remove(existingTask);
+            mRunningTaskDeltaCount.incrementAndGet();
             if (mRunningTasksListener != null) {
                 mRunningTasksListener.onRunningTasksChanged();
             }
@@ -250,6 +400,7 @@ public class RecentTasksList {
      */
     @VisibleForTesting
     TaskLoadResult loadTasksInBackground(int numTasks, int requestId, boolean loadKeysOnly) {
+        long startTime = SystemClock.uptimeMillis();
         int currentUserId = Process.myUserHandle().getIdentifier();
         ArrayList<GroupedRecentTaskInfo> rawTasks =
                 mSysUiProxy.getRecentTasks(numTasks, currentUserId);
@@ -297,6 +448,9 @@ public class RecentTasksList {
             allTasks.add(new GroupTask(task1, task2, launcherSplitBounds));
         }
 
+        mLoadCount.incrementAndGet();
+        mLastLoadDurationMs = SystemClock.uptimeMillis() - startTime;
+        mLastLoadTaskCount = allTasks.size();
         return allTasks;
     }
 
@@ -323,10 +477,18 @@ public class RecentTasksList {
                         shellSplitBounds.leftTopTaskId, shellSplitBounds.rightBottomTaskId);
     }
 
-    private ArrayList<GroupTask> copyOf(ArrayList<GroupTask> tasks) {
-        ArrayList<GroupTask> newTasks = new ArrayList<>();
+    /**
+     * Returns a copy of the tasks of {@param tasks} matching {@param filter}. Each request gets its
+     * own copies, as the callers release and update the thumbnail and icon of the tasks.
+     */
+    private static ArrayList<GroupTask> copyOf(ArrayList<GroupTask> tasks,
+            Predicate<GroupTask> filter) {
+        ArrayList<GroupTask> newTasks = new ArrayList<>(tasks.size());
         for (int i = 0; i < tasks.size(); i++) {
-            newTasks.add(tasks.get(i).copy());
+            GroupTask task = tasks.get(i);
+            if (filter.test(task)) {
+                newTasks.add(task.copy());
+            }
         }
         return newTasks;
     }
@@ -334,6 +496,14 @@ public class RecentTasksList {
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "RecentTasksList:");
         writer.println(prefix + "  mChangeId=" + mChangeId);
+        writer.println(prefix + "  loads=" + mLoadCount
+                + " lastLoadDurationMs=" + mLastLoadDurationMs
+                + " lastLoadTaskCount=" + mLastLoadTaskCount
+                + " cachedRequests=" + mCachedRequestCount
+                + " invalidations=" + mInvalidationCount
+                + " taskDeltas=" + mTaskDeltaCount
+                + " confirmedDeltas=" + mConfirmedDeltaCount
+                + " runningTaskDeltas=" + mRunningTaskDeltaCount);
         writer.println(prefix + "  mResultsUi=[id=" + mResultsUi.mRequestId + ", tasks=");
         for (GroupTask task : mResultsUi) {
             Task task1 = task.task1;
@@ -363,7 +533,8 @@ public class RecentTasksList {
         writer.println(prefix + "  ]");
     }
 
-    private static class TaskLoadResult extends ArrayList<GroupTask> {
+    @VisibleForTesting
+    static class TaskLoadResult extends ArrayList<GroupTask> {
 
         final int mRequestId;
 
@@ -207,6 +207,12 @@ public class RecentsModel implements IconChangeListener, TaskStackChangeListener
         Task.TaskKey stubKey = new Task.TaskKey(taskId, 0, new Intent(), null, 0, 0);
         mThumbnailCache.remove(stubKey);
         mIconCache.onTaskRemoved(stubKey);
+        mTaskList.onTaskRemoved(taskId);
+    }
+
+    @Override
+    public void onTaskMovedToFront(int taskId) {
+        mTaskList.onTaskMovedToFront(taskId);
     }
 
     public void onTrimMemory(int level) {
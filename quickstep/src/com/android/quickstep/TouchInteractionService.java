@@ -115,6 +115,7 @@ import com.android.quickstep.inputconsumers.SysUiOverlayInputConsumer;
 import com.android.quickstep.inputconsumers.TaskbarUnstashInputConsumer;
 import com.android.quickstep.util.ActiveGestureLog;
 import com.android.quickstep.util.ActiveGestureLog.CompoundString;
+import com.android.quickstep.util.InputLatencyHistogram;
 import com.android.quickstep.util.ProtoTracer;
 import com.android.quickstep.util.ProxyScreenStatusProvider;
 import com.android.systemui.shared.recents.IOverviewProxy;
@@ -471,6 +472,9 @@ public class TouchInteractionService extends Service
 
     private InputMonitorCompat mInputMonitorCompat;
     private InputEventReceiver mInputEventReceiver;
+    private final InputLatencyHistogram mInputLatencyHistogram = new InputLatencyHistogram();
+    // Mirrors the ProtoTracer state so that the input path doesn't schedule trace updates
+    private boolean mIsTracingEnabled;
 
     private TaskbarManager mTaskbarManager;
     private Function<GestureState, AnimatedFloat> mSwipeUpProxyProvider = i -> null;
@@ -636,10 +640,12 @@ public class TouchInteractionService extends Service
                 if ((systemUiStateFlags & SYSUI_STATE_TRACING_ENABLED) != 0) {
                     Log.d(TAG, "Starting tracing.");
                     ProtoTracer.INSTANCE.get(this).start();
+                    mIsTracingEnabled = true;
                 } else {
                     Log.d(TAG, "Stopping tracing. Dumping to file="
                             + ProtoTracer.INSTANCE.get(this).getTraceFile());
                     ProtoTracer.INSTANCE.get(this).stop();
+                    mIsTracingEnabled = false;
                 }
             }
         }
@@ -666,6 +672,7 @@ public class TouchInteractionService extends Service
         SystemUiProxy.INSTANCE.get(this).clearProxy();
         ProtoTracer.INSTANCE.get(this).stop();
         ProtoTracer.INSTANCE.get(this).remove(this);
+        mIsTracingEnabled = false;
 
         getSystemService(AccessibilityManager.class)
                 .unregisterSystemAction(GLOBAL_ACTION_ACCESSIBILITY_ALL_APPS);
@@ -744,31 +751,17 @@ public class TouchInteractionService extends Service
         }
 
         if (mUncheckedConsumer != InputConsumer.NO_OP) {
-            switch (event.getActionMasked()) {
-                case ACTION_DOWN:
-                    // fall through
-                case ACTION_UP:
-                    ActiveGestureLog.INSTANCE.addLog(
-                            /* event= */ "onMotionEvent(" + (int) event.getRawX() + ", "
-                                    + (int) event.getRawY() + "): "
-                                    + MotionEvent.actionToString(event.getActionMasked()) + ", "
-                                    + MotionEvent.classificationToString(event.getClassification()),
-                            /* gestureEvent= */ event.getActionMasked() == ACTION_DOWN
-                                    ? MOTION_DOWN
-                                    : MOTION_UP);
-                    break;
-                case ACTION_MOVE:
-                    ActiveGestureLog.INSTANCE.addLog("onMotionEvent: "
-                            + MotionEvent.actionToString(event.getActionMasked()) + ","
-                            + MotionEvent.classificationToString(event.getClassification())
-                            + ", pointerCount: " + event.getPointerCount(), MOTION_MOVE);
-                    break;
-                default: {
-                    ActiveGestureLog.INSTANCE.addLog("onMotionEvent: "
-                            + MotionEvent.actionToString(event.getActionMasked()) + ","
-                            + MotionEvent.classificationToString(event.getClassification()));
-                }
-            }
+            // Log primitives only, the event is formatted lazily when the log is dumped
+            ActiveGestureLog.INSTANCE.addMotionEventLog(
+                    action,
+                    event.getClassification(),
+                    action == ACTION_MOVE ? event.getPointerCount() : 0,
+                    action == ACTION_DOWN || action == ACTION_UP ? (int) event.getRawX() : 0,
+                    action == ACTION_DOWN || action == ACTION_UP ? (int) event.getRawY() : 0,
+                    action == ACTION_DOWN ? MOTION_DOWN
+                            : action == ACTION_UP ? MOTION_UP
+                            : action == ACTION_MOVE ? MOTION_MOVE
+                            : null);
         }
 
         boolean cancelGesture = mGestureState.getActivityInterface() != null
@@ -792,11 +785,15 @@ public class TouchInteractionService extends Service
             mUncheckedConsumer.onMotionEvent(event);
         }
 
+        mInputLatencyHistogram.record(SystemClock.uptimeMillis() - event.getEventTime());
+
         if (cleanUpConsumer) {
             reset();
         }
         TraceHelper.INSTANCE.endFlagsOverride(traceToken);
-        ProtoTracer.INSTANCE.get(this).scheduleFrameUpdate();
+        if (mIsTracingEnabled) {
+            ProtoTracer.INSTANCE.get(this).scheduleFrameUpdate();
+        }
     }
 
     private InputConsumer tryCreateAssistantInputConsumer(
@@ -1308,6 +1305,7 @@ public class TouchInteractionService extends Service
             pw.println("Input state:");
             pw.println("  mInputMonitorCompat=" + mInputMonitorCompat);
             pw.println("  mInputEventReceiver=" + mInputEventReceiver);
+            mInputLatencyHistogram.dump("  ", pw);
             DisplayController.INSTANCE.get(this).dump(pw);
             pw.println("TouchState:");
             BaseDraggingActivity createdOverviewActivity = mOverviewComponentObserver == null ? null
@@ -15,6 +15,8 @@
  */
 package com.android.quickstep.util;
 
+import android.view.MotionEvent;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -51,6 +53,7 @@ public class ActiveGestureLog {
     private static final int TYPE_BOOL_FALSE = 4;
     private static final int TYPE_INPUT_CONSUMER = 5;
     private static final int TYPE_GESTURE_EVENT = 6;
+    private static final int TYPE_MOTION_EVENT = 7;
 
     private final EventLog[] logs;
     private int nextIndex;
@@ -116,28 +119,42 @@ public class ActiveGestureLog {
                 gestureEvent);
     }
 
+    /**
+     * Adds a log for a motion event and track the associated event for error detection.
+     *
+     * Unlike {@link #addLog(String)}, the event is stored as primitives and only formatted when
+     * the log is dumped, so consecutive similar events (e.g. ACTION_MOVE) do not allocate.
+     */
+    public void addMotionEventLog(
+            int action,
+            int classification,
+            int pointerCount,
+            int rawX,
+            int rawY,
+            @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
+        EventEntry lastEntry = getLastEntryForCurrentLog();
+        if (lastEntry != null
+                && lastEntry.type == TYPE_MOTION_EVENT
+                && lastEntry.gestureEvent == gestureEvent
+                && lastEntry.isMotionEventSame(
+                        action, classification, pointerCount, rawX, rawY)) {
+            lastEntry.duplicateCount++;
+            return;
+        }
+        EventEntry eventEntry = new EventEntry();
+
+        eventEntry.update(TYPE_MOTION_EVENT, "", 0, CompoundString.NO_OP, gestureEvent);
+        eventEntry.updateMotionEvent(action, classification, pointerCount, rawX, rawY);
+        appendEntry(eventEntry);
+    }
+
     private void addLog(
             int type,
             String event,
             float extras,
             CompoundString compoundString,
             @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        EventLog lastEventLog = logs[(nextIndex + logs.length - 1) % logs.length];
-        if (lastEventLog == null || mCurrentLogId != lastEventLog.logId) {
-            EventLog eventLog = new EventLog(mCurrentLogId);
-            EventEntry eventEntry = new EventEntry();
-
-            eventEntry.update(type, event, extras, compoundString, gestureEvent);
-            eventLog.eventEntries.add(eventEntry);
-            logs[nextIndex] = eventLog;
-            nextIndex = (nextIndex + 1) % logs.length;
-            return;
-        }
-
-        // Update the last EventLog
-        List<EventEntry> lastEventEntries = lastEventLog.eventEntries;
-        EventEntry lastEntry = lastEventEntries.size() > 0
-                ? lastEventEntries.get(lastEventEntries.size() - 1) : null;
+        EventEntry lastEntry = getLastEntryForCurrentLog();
 
         // Update the last EventEntry if it's a duplicate
         if (isEntrySame(lastEntry, type, event, extras, compoundString, gestureEvent)) {
@@ -147,7 +164,32 @@ public class ActiveGestureLog {
         EventEntry eventEntry = new EventEntry();
 
         eventEntry.update(type, event, extras, compoundString, gestureEvent);
-        lastEventEntries.add(eventEntry);
+        appendEntry(eventEntry);
+    }
+
+    /** Returns the last entry of the current log, or null if the current log has no entries. */
+    @Nullable
+    private EventEntry getLastEntryForCurrentLog() {
+        EventLog lastEventLog = logs[(nextIndex + logs.length - 1) % logs.length];
+        if (lastEventLog == null || mCurrentLogId != lastEventLog.logId) {
+            return null;
+        }
+        List<EventEntry> lastEventEntries = lastEventLog.eventEntries;
+        return lastEventEntries.size() > 0
+                ? lastEventEntries.get(lastEventEntries.size() - 1) : null;
+    }
+
+    private void appendEntry(EventEntry eventEntry) {
+        EventLog lastEventLog = logs[(nextIndex + logs.length - 1) % logs.length];
+        if (lastEventLog == null || mCurrentLogId != lastEventLog.logId) {
+            EventLog eventLog = new EventLog(mCurrentLogId);
+            eventLog.eventEntries.add(eventEntry);
+            logs[nextIndex] = eventLog;
+            nextIndex = (nextIndex + 1) % logs.length;
+            return;
+        }
+        // Update the last EventLog
+        lastEventLog.eventEntries.add(eventEntry);
     }
 
     public void clear() {
@@ -195,6 +237,9 @@ public class ActiveGestureLog {
                     case TYPE_INPUT_CONSUMER:
                         msg.append(eventEntry.mCompoundString);
                         break;
+                    case TYPE_MOTION_EVENT:
+                        eventEntry.appendMotionEvent(msg);
+                        break;
                     case TYPE_GESTURE_EVENT:
                         continue;
                     default: // fall out
@@ -246,6 +291,13 @@ public class ActiveGestureLog {
         private long time;
         private int duplicateCount;
 
+        // Only set for TYPE_MOTION_EVENT
+        private int mAction;
+        private int mClassification;
+        private int mPointerCount;
+        private int mRawX;
+        private int mRawY;
+
         private EventEntry() {}
 
         @Nullable
@@ -267,6 +319,46 @@ public class ActiveGestureLog {
             time = System.currentTimeMillis();
             duplicateCount = 0;
         }
+
+        private void updateMotionEvent(
+                int action, int classification, int pointerCount, int rawX, int rawY) {
+            mAction = action;
+            mClassification = classification;
+            mPointerCount = pointerCount;
+            mRawX = rawX;
+            mRawY = rawY;
+        }
+
+        private boolean isMotionEventSame(
+                int action, int classification, int pointerCount, int rawX, int rawY) {
+            return mAction == action
+                    && mClassification == classification
+                    && mPointerCount == pointerCount
+                    && mRawX == rawX
+                    && mRawY == rawY;
+        }
+
+        private void appendMotionEvent(StringBuilder msg) {
+            switch (mAction) {
+                case MotionEvent.ACTION_DOWN:
+                case MotionEvent.ACTION_UP:
+                    msg.append("onMotionEvent(").append(mRawX).append(", ").append(mRawY)
+                            .append("): ").append(MotionEvent.actionToString(mAction))
+                            .append(", ")
+                            .append(MotionEvent.classificationToString(mClassification));
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    msg.append("onMotionEvent: ").append(MotionEvent.actionToString(mAction))
+                            .append(",")
+                            .append(MotionEvent.classificationToString(mClassification))
+                            .append(", pointerCount: ").append(mPointerCount);
+                    break;
+                default:
+                    msg.append("onMotionEvent: ").append(MotionEvent.actionToString(mAction))
+                            .append(",")
+                            .append(MotionEvent.classificationToString(mClassification));
+            }
+        }
     }
 
     /** An entire log of entries associated with a single log ID */
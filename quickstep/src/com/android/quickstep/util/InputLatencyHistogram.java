@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import androidx.annotation.UiThread;
+
+import java.io.PrintWriter;
+
+/**
+ * Histogram of the latency between an input event being generated and it being handled by the
+ * active input consumer. Buckets are powers of two in milliseconds so that recording an event is
+ * allocation free.
+ */
+public class InputLatencyHistogram {
+
+    // Upper bounds (exclusive) of each bucket in ms, the last bucket is unbounded.
+    private static final int[] BUCKET_BOUNDS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+
+    private final long[] mCounts = new long[BUCKET_BOUNDS_MS.length + 1];
+    private long mTotalCount;
+    private long mTotalLatencyMs;
+    private long mMaxLatencyMs;
+
+    /**
+     * Records an event which took {@param latencyMs} to be handled.
+     */
+    @UiThread
+    public void record(long latencyMs) {
+        if (latencyMs < 0) {
+            latencyMs = 0;
+        }
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && latencyMs >= BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        mCounts[bucket]++;
+        mTotalCount++;
+        mTotalLatencyMs += latencyMs;
+        if (latencyMs > mMaxLatencyMs) {
+            mMaxLatencyMs = latencyMs;
+        }
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the given percentile (0-100), or -1 if no
+     * events were recorded.
+     */
+    public long getPercentileUpperBoundMs(int percentile) {
+        if (mTotalCount == 0) {
+            return -1;
+        }
+        long threshold = (mTotalCount * percentile + 99) / 100;
+        long count = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            count += mCounts[i];
+            if (count >= threshold) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return mMaxLatencyMs;
+    }
+
+    public void dump(String prefix, PrintWriter pw) {
+        pw.println(prefix + "InputLatencyHistogram:");
+        pw.println(prefix + "\ttotalEvents=" + mTotalCount);
+        if (mTotalCount == 0) {
+            return;
+        }
+        pw.println(prefix + "\tavgMs=" + (mTotalLatencyMs / mTotalCount)
+                + " maxMs=" + mMaxLatencyMs
+                + " p50<=" + getPercentileUpperBoundMs(50)
+                + " p90<=" + getPercentileUpperBoundMs(90)
+                + " p99<=" + getPercentileUpperBoundMs(99));
+        int lowerBound = 0;
+        for (int i = 0; i < mCounts.length; i++) {
+            String range = i < BUCKET_BOUNDS_MS.length
+                    ? "[" + lowerBound + ", " + BUCKET_BOUNDS_MS[i] + ")ms"
+                    : "[" + lowerBound + ", inf)ms";
+            pw.println(prefix + "\t\t" + range + ": " + mCounts[i]);
+            if (i < BUCKET_BOUNDS_MS.length) {
+                lowerBound = BUCKET_BOUNDS_MS[i];
+            }
+        }
+    }
+}
@@ -19,6 +19,9 @@ package com.android.quickstep;
 import static junit.framework.TestCase.assertNull;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -102,4 +105,45 @@ public class RecentTasksListTest {
         assertEquals(taskDescription, taskList.get(0).task1.taskDescription.getLabel());
         assertNull(taskList.get(0).task2.taskDescription.getLabel());
     }
+
+    @Test
+    public void withTaskRemoved_removesGroupWithoutChangingSource() {
+        RecentTasksList.TaskLoadResult tasks = loadTasks(1, 2, 3);
+
+        RecentTasksList.TaskLoadResult result = RecentTasksList.withTaskRemoved(tasks, 2, 5);
+
+        assertEquals(5, result.mRequestId);
+        assertTrue(RecentTasksList.hasSameTasks(loadTasks(1, 3), result));
+        assertTrue(RecentTasksList.hasSameTasks(loadTasks(1, 2, 3), tasks));
+        assertSame(tasks.get(0), result.get(0));
+        assertNull(RecentTasksList.withTaskRemoved(tasks, 4, 5));
+    }
+
+    @Test
+    public void withTaskMovedToFront_movesGroupToEnd() {
+        RecentTasksList.TaskLoadResult tasks = loadTasks(1, 2, 3);
+
+        RecentTasksList.TaskLoadResult result = RecentTasksList.withTaskMovedToFront(tasks, 1, 5);
+
+        assertTrue(RecentTasksList.hasSameTasks(loadTasks(2, 3, 1), result));
+        assertNull(RecentTasksList.withTaskMovedToFront(tasks, 4, 5));
+    }
+
+    @Test
+    public void hasSameTasks_differentOrder_isFalse() {
+        assertFalse(RecentTasksList.hasSameTasks(loadTasks(1, 2), loadTasks(2, 1)));
+        assertFalse(RecentTasksList.hasSameTasks(loadTasks(1, 2), loadTasks(1)));
+    }
+
+    private RecentTasksList.TaskLoadResult loadTasks(int... taskIds) {
+        ArrayList<GroupedRecentTaskInfo> rawTasks = new ArrayList<>();
+        for (int taskId : taskIds) {
+            ActivityManager.RecentTaskInfo info = new ActivityManager.RecentTaskInfo();
+            info.taskId = taskId;
+            // Raw tasks are ordered from the most recent
+            rawTasks.add(0, GroupedRecentTaskInfo.forSingleTask(info));
+        }
+        when(mockSystemUiProxy.getRecentTasks(anyInt(), anyInt())).thenReturn(rawTasks);
+        return mRecentTasksList.loadTasksInBackground(Integer.MAX_VALUE, -1, true);
+    }
 }
@@ -60,6 +60,7 @@ import androidx.annotation.UiThread;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.accessibility.BaseAccessibilityDelegate;
+import com.android.launcher3.allapps.IconRequestScheduler;
 import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.dot.DotInfo;
 import com.android.launcher3.dragndrop.DragOptions.PreDragCondition;
@@ -192,6 +193,8 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
     private int mMaxLines;
 
     private HandlerRunnable mIconLoadRequest;
+    @Nullable
+    private IconRequestScheduler mIconRequestScheduler;
 
     private boolean mEnableIconUpdateAnimation = false;
 
@@ -295,10 +298,7 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
         }
 
         setTag(null);
-        if (mIconLoadRequest != null) {
-            mIconLoadRequest.cancel();
-            mIconLoadRequest = null;
-        }
+        cancelIconLoadRequest();
     }
 
     private void cancelDotScaleAnim() {
@@ -1093,19 +1093,42 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
      * Verifies that the current icon is high-res otherwise posts a request to load the icon.
      */
     public void verifyHighRes() {
-        if (mIconLoadRequest != null) {
-            mIconLoadRequest.cancel();
-            mIconLoadRequest = null;
-        }
+        cancelIconLoadRequest();
         if (getTag() instanceof ItemInfoWithIcon) {
             ItemInfoWithIcon info = (ItemInfoWithIcon) getTag();
-            if (info.usingLowResIcon()) {
+            if (!info.usingLowResIcon()) {
+                return;
+            }
+            if (mIconRequestScheduler != null && info instanceof AppInfo) {
+                mIconRequestScheduler.request(this, (AppInfo) info);
+            } else {
                 mIconLoadRequest = LauncherAppState.getInstance(getContext()).getIconCache()
                         .updateIconInBackground(BubbleTextView.this, info);
             }
         }
     }
 
+    /**
+     * Cancels the pending request for the high-res icon, if any.
+     */
+    public void cancelIconLoadRequest() {
+        if (mIconLoadRequest != null) {
+            mIconLoadRequest.cancel();
+            mIconLoadRequest = null;
+        }
+        if (mIconRequestScheduler != null) {
+            mIconRequestScheduler.cancel(this);
+        }
+    }
+
+    /**
+     * Sets the scheduler used to load the high-res icons of apps, instead of loading them in
+     * the order they are requested.
+     */
+    public void setIconRequestScheduler(@Nullable IconRequestScheduler scheduler) {
+        mIconRequestScheduler = scheduler;
+    }
+
     public int getIconSize() {
         return mIconSize;
     }
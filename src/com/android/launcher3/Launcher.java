@@ -170,6 +170,7 @@ import com.android.launcher3.logger.LauncherAtom.WorkspaceContainer;
 import com.android.launcher3.logging.FileLog;
 import com.android.launcher3.logging.InstanceId;
 import com.android.launcher3.logging.InstanceIdSequence;
+import com.android.launcher3.logging.LaunchTraceRecorder;
 import com.android.launcher3.logging.StartupLatencyLogger;
 import com.android.launcher3.logging.StatsLogManager;
 import com.android.launcher3.model.BgDataModel.Callbacks;
@@ -205,6 +206,7 @@ import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.IntSet;
 import com.android.launcher3.util.LockedUserState;
+import com.android.launcher3.util.ObjectIntHashMap;
 import com.android.launcher3.util.OnboardingPrefs;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.PendingRequestArgs;
@@ -247,7 +249,6 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -425,6 +426,8 @@ public class Launcher extends StatefulActivity<LauncherState>
     private StringCache mStringCache;
     private BaseSearchConfig mBaseSearchConfig;
     private StartupLatencyLogger mStartupLatencyLogger;
+    // Start of the last startup, in the time base of LaunchTraceRecorder
+    private long mStartupTraceStartNanos;
     private CellPosMapper mCellPosMapper = CellPosMapper.DEFAULT;
 
     // QuickSpace
@@ -433,6 +436,8 @@ public class Launcher extends StatefulActivity<LauncherState>
     @Override
     @TargetApi(Build.VERSION_CODES.S)
     protected void onCreate(Bundle savedInstanceState) {
+        mStartupTraceStartNanos = LaunchTraceRecorder.now();
+        LaunchTraceRecorder.INSTANCE.beginLaunch();
         mStartupLatencyLogger = createStartupLatencyLogger(
                 sIsNewProcess
                         ? LockedUserState.get(this).isUserUnlockedAtLauncherStartup()
@@ -595,6 +600,7 @@ public class Launcher extends StatefulActivity<LauncherState>
         }
         setTitle(R.string.home_screen);
         mStartupLatencyLogger.logEnd(LAUNCHER_LATENCY_STARTUP_ACTIVITY_ON_CREATE);
+        LaunchTraceRecorder.INSTANCE.recordSpan("Launcher.onCreate", mStartupTraceStartNanos);
     }
 
     /**
@@ -2241,6 +2247,12 @@ public class Launcher extends StatefulActivity<LauncherState>
             // This clears all widget bitmaps from the widget tray
             // TODO(hyunyoungs)
         }
+        if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+                || level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            mWorkspace.releaseFarWidgets(
+                    level != ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        }
     }
 
     @Override
@@ -2716,7 +2728,9 @@ public class Launcher extends StatefulActivity<LauncherState>
 
                 item.minSpanX = appWidgetInfo.minSpanX;
                 item.minSpanY = appWidgetInfo.minSpanY;
-                view = mAppWidgetHolder.createView(this, item.appWidgetId, appWidgetInfo);
+                view = canInflateWidgetLazily(item)
+                        ? mAppWidgetHolder.createLazyView(this, item.appWidgetId, appWidgetInfo)
+                        : mAppWidgetHolder.createView(this, item.appWidgetId, appWidgetInfo);
             } else if (!item.hasRestoreFlag(LauncherAppWidgetInfo.FLAG_ID_NOT_VALID)
                     && appWidgetInfo != null) {
                 mAppWidgetHolder.addPendingView(item.appWidgetId,
@@ -2733,6 +2747,30 @@ public class Launcher extends StatefulActivity<LauncherState>
         return view;
     }
 
+    /**
+     * Returns true if the widget is on a page far enough from the visible pages that only a
+     * placeholder needs to be bound for now, see {@link Workspace#inflateNearbyLazyWidgets()}.
+     */
+    private boolean canInflateWidgetLazily(LauncherAppWidgetInfo item) {
+        if (item.container != CONTAINER_DESKTOP) {
+            return false;
+        }
+        int referencePage;
+        if (!mPagesToBindSynchronously.isEmpty()) {
+            referencePage = mWorkspace.getPageIndexForScreenId(
+                    mPagesToBindSynchronously.getArray().get(0));
+        } else if (!mWorkspaceLoading) {
+            referencePage = mWorkspace.getNextPage();
+        } else if (!mSynchronouslyBoundPages.isEmpty()) {
+            referencePage = mWorkspace.getPageIndexForScreenId(
+                    mSynchronouslyBoundPages.getArray().get(0));
+        } else {
+            return false;
+        }
+        return mWorkspace.isPageFarFrom(
+                mWorkspace.getPageIndexForScreenId(item.screenId), referencePage);
+    }
+
     /**
      * Restores a pending widget.
      *
@@ -2792,6 +2830,7 @@ public class Launcher extends StatefulActivity<LauncherState>
             Trace.endAsyncSection(DISPLAY_WORKSPACE_TRACE_METHOD_NAME,
                     DISPLAY_WORKSPACE_TRACE_COOKIE);
         }
+        long initialBindCompleteNanos = LaunchTraceRecorder.now();
         mStartupLatencyLogger
                 .logCardinality(workspaceItemCount)
                 .logEnd(isBindSync
@@ -2807,6 +2846,19 @@ public class Launcher extends StatefulActivity<LauncherState>
                                 .logEnd(LAUNCHER_LATENCY_STARTUP_TOTAL_DURATION)
                                 .log()
                                 .reset();
+                        long firstDrawNanos = LaunchTraceRecorder.now();
+                        LaunchTraceRecorder.INSTANCE.recordSpan("firstDraw",
+                                initialBindCompleteNanos, firstDrawNanos);
+                        // Later rebinds are not part of the startup
+                        if (mStartupTraceStartNanos != 0) {
+                            LaunchTraceRecorder.INSTANCE.recordSpan(
+                                    LaunchTraceRecorder.LAUNCH_STARTUP,
+                                    mStartupTraceStartNanos, firstDrawNanos);
+                            LaunchTraceRecorder.INSTANCE.finishLaunch(Launcher.this,
+                                    LaunchTraceRecorder.LAUNCH_STARTUP,
+                                    firstDrawNanos - mStartupTraceStartNanos);
+                            mStartupTraceStartNanos = 0;
+                        }
                         MAIN_EXECUTOR.getHandler().postAtFrontOfQueue(
                                 () -> getRootView().getViewTreeObserver()
                                         .removeOnDrawListener(this));
@@ -2839,6 +2891,7 @@ public class Launcher extends StatefulActivity<LauncherState>
         // override the previous page so we don't log the page switch.
         mWorkspace.setCurrentPage(currentPage, currentPage /* overridePrevPage */);
         mPagesToBindSynchronously = new IntSet();
+        mWorkspace.inflateNearbyLazyWidgets();
 
         // Cache one page worth of icons
         getViewCache().setCacheSize(R.layout.folder_application,
@@ -3015,7 +3068,7 @@ public class Launcher extends StatefulActivity<LauncherState>
      * because LauncherModel's map is updated in the background, while Launcher runs on the UI.
      */
     @Override
-    public void bindDeepShortcutMap(HashMap<ComponentKey, Integer> deepShortcutMapCopy) {
+    public void bindDeepShortcutMap(ObjectIntHashMap<ComponentKey> deepShortcutMapCopy) {
         mPopupDataProvider.setDeepShortcutMap(deepShortcutMapCopy);
     }
 
@@ -3130,11 +3183,16 @@ public class Launcher extends StatefulActivity<LauncherState>
         writer.println(prefix + "\tmRotationHelper: " + mRotationHelper);
         writer.println(prefix + "\tmAppWidgetHolder.isListening: "
                 + mAppWidgetHolder.isListening());
+        mAppWidgetHolder.dump(prefix + "\t", writer);
 
         // Extra logging for general debugging
         mDragLayer.dump(prefix, writer);
         mStateManager.dump(prefix, writer);
         mPopupDataProvider.dump(prefix, writer);
+        LaunchTraceRecorder.INSTANCE.dump(prefix, writer);
+        if (args.length > 0 && TextUtils.equals(args[0], "--launch-trace")) {
+            LaunchTraceRecorder.INSTANCE.writeJsonTrace(writer);
+        }
         mDeviceProfile.dump(this, prefix, writer);
 
         try {
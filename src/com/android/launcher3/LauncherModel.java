@@ -50,14 +50,14 @@ import com.android.launcher3.model.BaseModelUpdateTask;
 import com.android.launcher3.model.BgDataModel;
 import com.android.launcher3.model.BgDataModel.Callbacks;
 import com.android.launcher3.model.CacheDataUpdatedTask;
+import com.android.launcher3.model.InstallProgressThrottler;
 import com.android.launcher3.model.ItemInstallQueue;
 import com.android.launcher3.model.LauncherBinder;
 import com.android.launcher3.model.LoaderTask;
 import com.android.launcher3.model.ModelDbController;
 import com.android.launcher3.model.ModelDelegate;
 import com.android.launcher3.model.ModelWriter;
-import com.android.launcher3.model.PackageIncrementalDownloadUpdatedTask;
-import com.android.launcher3.model.PackageInstallStateChangedTask;
+import com.android.launcher3.model.PackageChangeQueue;
 import com.android.launcher3.model.PackageUpdatedTask;
 import com.android.launcher3.model.ReloadStringCacheTask;
 import com.android.launcher3.model.ShortcutsChangedTask;
@@ -143,6 +143,11 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
     @NonNull
     private final ModelDelegate mModelDelegate;
 
+    @NonNull
+    private final PackageChangeQueue mPackageChangeQueue = new PackageChangeQueue(this);
+    private final InstallProgressThrottler mInstallProgressThrottler =
+            new InstallProgressThrottler(this);
+
     // Runnable to check if the shortcuts permission has changed.
     @NonNull
     private final Runnable mDataValidationCheck = new Runnable() {
@@ -195,7 +200,7 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
     public void onPackageChanged(
             @NonNull final String packageName, @NonNull final UserHandle user) {
         int op = PackageUpdatedTask.OP_UPDATE;
-        enqueueModelUpdateTask(new PackageUpdatedTask(op, user, packageName));
+        mPackageChangeQueue.enqueue(op, user, packageName);
     }
 
     @Override
@@ -208,51 +213,47 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
             @NonNull final UserHandle user, @NonNull final String... packages) {
         int op = PackageUpdatedTask.OP_REMOVE;
         FileLog.d(TAG, "package removed received " + TextUtils.join(",", packages));
-        enqueueModelUpdateTask(new PackageUpdatedTask(op, user, packages));
+        mInstallProgressThrottler.onPackagesRemoved(user, packages);
+        mPackageChangeQueue.enqueue(op, user, packages);
     }
 
     @Override
     public void onPackageAdded(@NonNull final String packageName, @NonNull final UserHandle user) {
         int op = PackageUpdatedTask.OP_ADD;
-        enqueueModelUpdateTask(new PackageUpdatedTask(op, user, packageName));
+        mPackageChangeQueue.enqueue(op, user, packageName);
     }
 
     @Override
     public void onPackagesAvailable(@NonNull final String[] packageNames,
             @NonNull final UserHandle user, final boolean replacing) {
-        enqueueModelUpdateTask(
-                new PackageUpdatedTask(PackageUpdatedTask.OP_UPDATE, user, packageNames));
+        mPackageChangeQueue.enqueue(PackageUpdatedTask.OP_UPDATE, user, packageNames);
     }
 
     @Override
     public void onPackagesUnavailable(@NonNull final String[] packageNames,
             @NonNull final UserHandle user, final boolean replacing) {
         if (!replacing) {
-            enqueueModelUpdateTask(new PackageUpdatedTask(
-                    PackageUpdatedTask.OP_UNAVAILABLE, user, packageNames));
+            mPackageChangeQueue.enqueue(PackageUpdatedTask.OP_UNAVAILABLE, user, packageNames);
         }
     }
 
     @Override
     public void onPackagesSuspended(
             @NonNull final String[] packageNames, @NonNull final UserHandle user) {
-        enqueueModelUpdateTask(new PackageUpdatedTask(
-                PackageUpdatedTask.OP_SUSPEND, user, packageNames));
+        mPackageChangeQueue.enqueue(PackageUpdatedTask.OP_SUSPEND, user, packageNames);
     }
 
     @Override
     public void onPackagesUnsuspended(
             @NonNull final String[] packageNames, @NonNull final UserHandle user) {
-        enqueueModelUpdateTask(new PackageUpdatedTask(
-                PackageUpdatedTask.OP_UNSUSPEND, user, packageNames));
+        mPackageChangeQueue.enqueue(PackageUpdatedTask.OP_UNSUSPEND, user, packageNames);
     }
 
     @Override
     public void onPackageLoadingProgressChanged(@NonNull final String packageName,
             @NonNull final UserHandle user, final float progress) {
         if (Utilities.ATLEAST_S) {
-            enqueueModelUpdateTask(new PackageIncrementalDownloadUpdatedTask(
-                    packageName, user, progress));
+            mInstallProgressThrottler.enqueueDownloadProgress(packageName, user, progress);
         }
     }
 
@@ -313,8 +314,8 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
             if (user != null) {
                 if (Intent.ACTION_MANAGED_PROFILE_AVAILABLE.equals(action) ||
                         Intent.ACTION_MANAGED_PROFILE_UNAVAILABLE.equals(action)) {
-                    enqueueModelUpdateTask(new PackageUpdatedTask(
-                            PackageUpdatedTask.OP_USER_AVAILABILITY_CHANGE, user));
+                    mPackageChangeQueue.enqueue(
+                            PackageUpdatedTask.OP_USER_AVAILABILITY_CHANGE, user);
                 }
 
                 if (ACTION_PROFILE_LOCKED.equals(action)
@@ -526,7 +527,7 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
 
     @Override
     public void onPackageStateChanged(@NonNull final PackageInstallInfo installInfo) {
-        enqueueModelUpdateTask(new PackageInstallStateChangedTask(installInfo));
+        mInstallProgressThrottler.enqueueInstallState(installInfo);
     }
 
     /**
@@ -700,6 +701,8 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
             }
             writer.println();
         }
+        mPackageChangeQueue.dump(prefix, writer);
+        mInstallProgressThrottler.dump(prefix, writer);
         mModelDelegate.dump(prefix, fd, writer, args);
         mBgDataModel.dump(prefix, fd, writer, args);
     }
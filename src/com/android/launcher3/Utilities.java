@@ -96,6 +96,7 @@ import com.android.launcher3.shortcuts.ShortcutKey;
 import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.testing.shared.ResourceUtils;
 import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.PrefsSnapshot;
 import com.android.launcher3.util.SplitConfigurationOptions.SplitPositionOption;
 import com.android.launcher3.util.Themes;
 import com.android.launcher3.views.ActivityContext;
@@ -945,118 +946,96 @@ public final class Utilities {
     }
 
     private static boolean isQSBEnabled(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_DOCK_SEARCH, true);
+        return PrefsSnapshot.get(context).dockSearch;
     }
 
     public static boolean isMusicSearchEnabled(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_DOCK_MUSIC_SEARCH, false);
+        return PrefsSnapshot.get(context).dockMusicSearch;
     }
 
     public static boolean isThemedIconsEnabled(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_DOCK_THEME, false);
+        return PrefsSnapshot.get(context).dockTheme;
     }
 
     public static int getCornerRadius(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getInt(KEY_SEARCH_RADIUS, 100);
+        return PrefsSnapshot.get(context).searchRadius;
     }
 
     public static boolean isHotseatBgEnabled(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHOW_HOTSEAT_BG, false);
+        return PrefsSnapshot.get(context).showHotseatBg;
     }
 
     public static int getHotseatOpacity(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getInt(KEY_HOTSEAT_OPACITY, 40);
+        return PrefsSnapshot.get(context).hotseatOpacity;
     }
 
     public static boolean canZoomWallpaper(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_ALLOW_WALLPAPER_ZOOMING, true);
+        return PrefsSnapshot.get(context).allowWallpaperZooming;
     }
 
     public static boolean showStatusbarEnabled(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_STATUS_BAR, true);
+        return PrefsSnapshot.get(context).showStatusBar;
     }
 
     public static boolean isShowMeminfo(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_RECENTS_MEMINFO, false);
-   }
+        return PrefsSnapshot.get(context).recentsMeminfo;
+    }
 
     public static int getRecentsOpacity(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getInt(KEY_RECENTS_OPACITY, 40);
+        return PrefsSnapshot.get(context).recentsOpacity;
     }
 
     public static int getAllAppsOpacity(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getInt(KEY_APP_DRAWER_OPACITY, 100);
+        return PrefsSnapshot.get(context).appDrawerOpacity;
     }
 
     public static int getBlurRadius(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getInt(KEY_BLUR_DEPTH,
-                (int) context.getResources().getDimension(R.dimen.max_depth_blur_radius));
+        int blurDepth = PrefsSnapshot.get(context).blurDepth;
+        return blurDepth != PrefsSnapshot.DEFAULT_BLUR_DEPTH ? blurDepth
+                : (int) context.getResources().getDimension(R.dimen.max_depth_blur_radius);
     }
 
     public static boolean isShortParallax(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHORT_PARALLAX, false);
+        return PrefsSnapshot.get(context).shortParallax;
     }
 
     public static boolean isSinglePageCentered(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SINGLE_PAGE_CENTER, false);
+        return PrefsSnapshot.get(context).singlePageCenter;
     }
 
     public static boolean showSearch(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_DRAWER_SEARCH, true);
+        return PrefsSnapshot.get(context).drawerSearch;
     }
 
     public static boolean showQuickspace(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(DESKTOP_SHOW_QUICKSPACE, true);
+        return PrefsSnapshot.get(context).showQuickspace;
     }
 
     public static boolean useAlternativeQuickspaceUI(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHOW_ALT_QUICKSPACE, false);
+        return PrefsSnapshot.get(context).altQuickspace;
     }
 
     public static boolean isQuickspacePersonalityEnabled(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHOW_QUICKSPACE_PSONALITY, true);
+        return PrefsSnapshot.get(context).quickspacePersonality;
     }
 
     public static boolean isQuickspaceNowPlaying(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHOW_QUICKSPACE_NOWPLAYING, true);
+        return PrefsSnapshot.get(context).quickspaceNowPlaying;
     }
 
     public static boolean isQuickspaceWeather(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHOW_QUICKSPACE_WEATHER, true);
+        return PrefsSnapshot.get(context).quickspaceWeather;
     }
 
     public static boolean QuickSpaceShowCity(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHOW_QUICKSPACE_WEATHER_CITY, false);
+        return PrefsSnapshot.get(context).quickspaceWeatherCity;
     }
 
     public static boolean QuickSpaceShowWeatherText(Context context) {
-        SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-        return prefs.getBoolean(KEY_SHOW_QUICKSPACE_WEATHER_TEXT, true);
+        return PrefsSnapshot.get(context).quickspaceWeatherText;
     }
 
     public static boolean enableMonoChromeThemedIcons(Context context) {
-    	SharedPreferences prefs = LauncherPrefs.getPrefs(context.getApplicationContext());
-    	return prefs.getBoolean(KEY_FORCE_MONOCHROME_ICONS, false);
+        return PrefsSnapshot.get(context).forceMonochromeIcons;
    }
 }
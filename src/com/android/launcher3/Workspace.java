@@ -113,9 +113,11 @@ import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.RunnableList;
 import com.android.launcher3.util.Thunk;
 import com.android.launcher3.util.WallpaperOffsetInterpolator;
+import com.android.launcher3.widget.DeferredAppWidgetHostView;
 import com.android.launcher3.widget.LauncherAppWidgetHostView;
 import com.android.launcher3.widget.LauncherWidgetHolder;
 import com.android.launcher3.widget.LauncherWidgetHolder.ProviderChangedListener;
+import com.android.launcher3.widget.LazyAppWidgetHostView;
 import com.android.launcher3.widget.NavigableAppWidgetHostView;
 import com.android.launcher3.widget.PendingAddShortcutInfo;
 import com.android.launcher3.widget.PendingAddWidgetInfo;
@@ -944,6 +946,82 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
         return IntSet.wrap(getScreenIdForPageIndex(getCurrentPage()));
     }
 
+    /**
+     * Returns true if the page at {@param pageIndex} is more than one panel away from the page at
+     * {@param referencePage}, in which case its widgets can be inflated lazily.
+     */
+    public boolean isPageFarFrom(int pageIndex, int referencePage) {
+        if (pageIndex < 0 || referencePage < 0) {
+            return false;
+        }
+        int panelCount = getPanelCount();
+        return Math.abs(pageIndex / panelCount - referencePage / panelCount) > 1;
+    }
+
+    /**
+     * Replaces the widget placeholders on the current page and its neighbours with real widget
+     * views, so that they are ready by the time they become visible.
+     */
+    public void inflateNearbyLazyWidgets() {
+        if (mLauncher.isWorkspaceLoading()) {
+            return;
+        }
+        int referencePage = getNextPage();
+        for (int i = 0; i < getPageCount(); i++) {
+            if (isPageFarFrom(i, referencePage)) {
+                continue;
+            }
+            ShortcutAndWidgetContainer container =
+                    ((CellLayout) getPageAt(i)).getShortcutsAndWidgets();
+            for (int j = 0; j < container.getChildCount(); j++) {
+                View child = container.getChildAt(j);
+                if (child instanceof LazyAppWidgetHostView) {
+                    // Inflate one widget per message to avoid blocking a frame
+                    child.post(((LazyAppWidgetHostView) child)::reInflate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the widget views on pages far from the current page with placeholders, to free up
+     * memory.
+     * @param keepSnapshots Whether the placeholders draw a snapshot of the widgets, which is
+     *                      skipped when memory is critically low
+     */
+    public void releaseFarWidgets(boolean keepSnapshots) {
+        if (mLauncher.isWorkspaceLoading() || mDragController.isDragging()) {
+            return;
+        }
+        LauncherWidgetHolder holder = mLauncher.getAppWidgetHolder();
+        int referencePage = getNextPage();
+        for (int i = 0; i < getPageCount(); i++) {
+            if (!isPageFarFrom(i, referencePage)) {
+                continue;
+            }
+            ShortcutAndWidgetContainer container =
+                    ((CellLayout) getPageAt(i)).getShortcutsAndWidgets();
+            for (int j = container.getChildCount() - 1; j >= 0; j--) {
+                View child = container.getChildAt(j);
+                if (!(child instanceof LauncherAppWidgetHostView)
+                        || child instanceof DeferredAppWidgetHostView
+                        || child instanceof PendingAppWidgetHostView
+                        || !(child.getTag() instanceof LauncherAppWidgetInfo)) {
+                    continue;
+                }
+                LauncherAppWidgetInfo info = (LauncherAppWidgetInfo) child.getTag();
+                if (info.isCustomWidget()
+                        || info.restoreStatus != LauncherAppWidgetInfo.RESTORE_COMPLETED) {
+                    continue;
+                }
+                holder.releaseView((LauncherAppWidgetHostView) child, keepSnapshots);
+                mLauncher.removeItem(child, info, false /* deleteFromDb */,
+                        "widget released under memory pressure");
+                mLauncher.bindAppWidget(info);
+            }
+        }
+    }
+
     public int getScreenIdForPageIndex(int index) {
         if (0 <= index && index < mScreenOrder.size()) {
             return mScreenOrder.get(index);
@@ -1202,6 +1280,9 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
             mStripScreensOnPageStopMoving = false;
         }
 
+        inflateNearbyLazyWidgets();
+        mLauncher.getAppWidgetHolder().applyDeferredWidgetUpdates();
+
         // Inform the Launcher activity that the page transition ended so that it can react to the
         // newly visible page if it wants to.
         mLauncher.onPageEndTransition();
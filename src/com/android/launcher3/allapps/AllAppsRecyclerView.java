@@ -59,6 +59,7 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
     private int mCumulativeVerticalScroll;
 
     protected AlphabeticalAppsList<?> mApps;
+    private final IconRequestScheduler mIconRequestScheduler;
 
     public AllAppsRecyclerView(Context context) {
         this(context, null);
@@ -77,6 +78,7 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
         super(context, attrs, defStyleAttr);
         mNumAppsPerRow = LauncherAppState.getIDP(context).numColumns;
         mFastScrollHelper = new AllAppsFastScrollHelper(this);
+        mIconRequestScheduler = new IconRequestScheduler(this);
     }
 
     /**
@@ -90,6 +92,14 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
         return mApps;
     }
 
+    /**
+     * Returns the scheduler loading the high-res icons of this view, nearest to the viewport
+     * first.
+     */
+    public IconRequestScheduler getIconRequestScheduler() {
+        return mIconRequestScheduler;
+    }
+
     protected void updatePoolSize() {
         DeviceProfile grid = ActivityContext.lookupContext(getContext()).getDeviceProfile();
         RecyclerView.RecycledViewPool pool = getRecycledViewPool();
@@ -117,6 +127,13 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
         updatePoolSize();
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // Icons loaded after this are not applied, the views load them again when rebound
+        mIconRequestScheduler.clear();
+    }
+
     public void onSearchResultsChanged() {
         // Always scroll the view to the top so the user can see the changed results
         scrollToTop();
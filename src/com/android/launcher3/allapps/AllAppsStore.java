@@ -19,6 +19,7 @@ import static com.android.launcher3.model.data.AppInfo.COMPONENT_KEY_COMPARATOR;
 import static com.android.launcher3.model.data.AppInfo.EMPTY_ARRAY;
 import static com.android.launcher3.model.data.ItemInfoWithIcon.FLAG_SHOW_DOWNLOAD_PROGRESS_MASK;
 import static com.android.launcher3.testing.shared.TestProtocol.WORK_TAB_MISSING;
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 
 import android.os.UserHandle;
 import android.util.Log;
@@ -37,6 +38,7 @@ import com.android.launcher3.util.PackageUserKey;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -65,6 +67,10 @@ public class AllAppsStore {
     private int mDeferUpdatesFlags = 0;
     private boolean mUpdatePending = false;
 
+    // Apps whose progress changed since the last pass over the icons
+    private final HashSet<AppInfo> mPendingProgressApps = new HashSet<>();
+    private final Runnable mApplyProgressRunnable = this::applyPendingProgress;
+
     public AppInfo[] getApps() {
         return mApps;
     }
@@ -180,8 +186,20 @@ public class AllAppsStore {
      * If this app is fully downloaded, the app icon will be reapplied.
      */
     public void updateProgressBar(AppInfo app) {
+        // Progress of many apps is usually updated at once, apply it in a single pass
+        if (mPendingProgressApps.add(app) && mPendingProgressApps.size() == 1) {
+            MAIN_EXECUTOR.post(mApplyProgressRunnable);
+        }
+    }
+
+    private void applyPendingProgress() {
+        if (mPendingProgressApps.isEmpty()) {
+            return;
+        }
         updateAllIcons((child) -> {
-            if (child.getTag() == app) {
+            Object tag = child.getTag();
+            if (tag instanceof AppInfo && mPendingProgressApps.contains(tag)) {
+                AppInfo app = (AppInfo) tag;
                 if ((app.runtimeStatusFlags & FLAG_SHOW_DOWNLOAD_PROGRESS_MASK) == 0) {
                     child.applyFromApplicationInfo(app);
                 } else {
@@ -189,6 +207,7 @@ public class AllAppsStore {
                 }
             }
         });
+        mPendingProgressApps.clear();
     }
 
     private void updateAllIcons(Consumer<BubbleTextView> action) {
@@ -15,6 +15,9 @@
  */
 package com.android.launcher3.allapps;
 
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
 import android.content.Context;
 
 import androidx.annotation.Nullable;
@@ -82,6 +85,10 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
     private final ArrayList<AdapterItem> mSearchResults = new ArrayList<>();
     private BaseAllAppsAdapter<T> mAdapter;
     private AppInfoComparator mAppNameComparator;
+    // Only used on UI_HELPER_EXECUTOR, as the comparator is not thread safe
+    private final AppInfoComparator mBgAppNameComparator;
+    // Incremented for every update, used to drop stale background results
+    private int mAsyncRequestId;
     private final int mNumAppsPerRowAllApps;
     private int mNumAppRowsInAdapter;
     private Predicate<ItemInfo> mItemFilter;
@@ -92,6 +99,7 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
         mAllAppsStore = appsStore;
         mActivityContext = ActivityContext.lookupContext(context);
         mAppNameComparator = new AppInfoComparator(context);
+        mBgAppNameComparator = new AppInfoComparator(context);
         mWorkProviderManager = workProfileManager;
         mNumAppsPerRowAllApps = mActivityContext.getDeviceProfile().inv.numAllAppsColumns;
         if (mAllAppsStore != null) {
@@ -102,7 +110,7 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
 
     public void updateItemFilter(Predicate<ItemInfo> itemFilter) {
         this.mItemFilter = itemFilter;
-        onAppsUpdated();
+        updateApps();
     }
 
     /**
@@ -185,41 +193,139 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
     }
 
     /**
-     * Updates internals when the set of apps are updated.
+     * Updates internals when the set of apps are updated. The sorted list, sections and diff are
+     * computed on a background thread from a snapshot of the apps, and only applied on the main
+     * thread.
      */
     @Override
     public void onAppsUpdated() {
         if (mAllAppsStore == null) {
             return;
         }
-        // Sort the list of apps
+        if (mAdapter == null || mAdapterItems.isEmpty()) {
+            // Nothing to diff against, avoid showing an empty list for a frame
+            updateApps();
+            return;
+        }
+
+        final int requestId = ++mAsyncRequestId;
+        final AppInfo[] apps = mAllAppsStore.getApps();
+        final Predicate<ItemInfo> filter = hasSearchResults() ? null : mItemFilter;
+        final boolean isSearching = hasSearchResults();
+        final List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
+        final ArrayList<AdapterItem> workItems = new ArrayList<>();
+        final boolean addApps = addWorkItems(workItems);
+
+        UI_HELPER_EXECUTOR.execute(() -> {
+            List<AppInfo> sortedApps = sortApps(apps, filter, mBgAppNameComparator);
+            if (isSearching) {
+                MAIN_EXECUTOR.execute(() -> applyAsyncUpdate(requestId, sortedApps, null));
+                return;
+            }
+            AdapterItemsResult result = new AdapterItemsResult(workItems);
+            if (addApps) {
+                result.addApps(sortedApps);
+            }
+            result.updateRows(mNumAppsPerRowAllApps);
+            result.diffResult = DiffUtil.calculateDiff(
+                    new MyDiffCallback(oldItems, result.adapterItems), false);
+            result.oldItems = oldItems;
+            MAIN_EXECUTOR.execute(() -> applyAsyncUpdate(requestId, sortedApps, result));
+        });
+    }
+
+    /**
+     * Synchronously sorts the current set of apps and updates the adapter items.
+     */
+    private void updateApps() {
+        if (mAllAppsStore == null) {
+            return;
+        }
+        // Invalidate any pending background update
+        mAsyncRequestId++;
+        mApps.clear();
+        mApps.addAll(sortApps(mAllAppsStore.getApps(),
+                hasSearchResults() ? null : mItemFilter, mAppNameComparator));
+        // Recompose the set of adapter items from the current set of apps
+        if (mSearchResults.isEmpty()) {
+            updateAdapterItems();
+        }
+    }
+
+    private void applyAsyncUpdate(int requestId, List<AppInfo> sortedApps,
+            @Nullable AdapterItemsResult result) {
+        if (requestId != mAsyncRequestId) {
+            // A newer update is pending
+            return;
+        }
         mApps.clear();
+        mApps.addAll(sortedApps);
+        if (hasSearchResults()) {
+            return;
+        }
+        if (result == null || !isSameItems(result.oldItems, mAdapterItems)) {
+            // The adapter items changed since the snapshot was taken, the diff is not valid
+            updateAdapterItems();
+            return;
+        }
+        applyAdapterItems(result);
+        if (mAdapter != null) {
+            result.diffResult.dispatchUpdatesTo(mAdapter);
+        }
+    }
 
-        Stream<AppInfo> appSteam = Stream.of(mAllAppsStore.getApps());
-        if (!hasSearchResults() && mItemFilter != null) {
-            appSteam = appSteam.filter(mItemFilter);
+    private List<AppInfo> sortApps(AppInfo[] apps, @Nullable Predicate<ItemInfo> filter,
+            AppInfoComparator comparator) {
+        Stream<AppInfo> appSteam = Stream.of(apps);
+        if (filter != null) {
+            appSteam = appSteam.filter(filter);
         }
-        appSteam = appSteam.sorted(mAppNameComparator);
+        appSteam = appSteam.sorted(comparator);
 
         // As a special case for some languages (currently only Simplified Chinese), we may need to
         // coalesce sections
         if (mSortSections) {
-            // Compute the section headers. We use a TreeMap with the section name comparator to
-            // ensure that the sections are ordered when we iterate over it later
-            appSteam = appSteam.collect(Collectors.groupingBy(
-                    info -> info.sectionName,
-                    () -> new TreeMap<>(new LabelComparator()),
-                    Collectors.toCollection(ArrayList::new)))
-                    .values()
-                    .stream()
-                    .flatMap(ArrayList::stream);
+            if (Stream.of(apps).allMatch(info -> info.sectionSortKey != null)) {
+                // Group the sections using the precomputed keys. The sort is stable, so the apps
+                // remain sorted by title within each section.
+                appSteam = appSteam.sorted((a, b) ->
+                        LabelComparator.compareSortKeys(a.sectionSortKey, b.sectionSortKey));
+            } else {
+                // Compute the section headers. We use a TreeMap with the section name comparator
+                // to ensure that the sections are ordered when we iterate over it later
+                appSteam = appSteam.collect(Collectors.groupingBy(
+                        info -> info.sectionName,
+                        () -> new TreeMap<>(new LabelComparator()),
+                        Collectors.toCollection(ArrayList::new)))
+                        .values()
+                        .stream()
+                        .flatMap(ArrayList::stream);
+            }
         }
+        return appSteam.collect(Collectors.toList());
+    }
 
-        appSteam.forEachOrdered(mApps::add);
-        // Recompose the set of adapter items from the current set of apps
-        if (mSearchResults.isEmpty()) {
-            updateAdapterItems();
+    /**
+     * Adds the work profile items to {@param items} and returns whether apps should be shown.
+     */
+    private boolean addWorkItems(ArrayList<AdapterItem> items) {
+        if (mWorkProviderManager != null) {
+            mWorkProviderManager.addWorkItems(items);
+            return mWorkProviderManager.shouldShowWorkApps();
+        }
+        return true;
+    }
+
+    private static boolean isSameItems(List<AdapterItem> a, List<AdapterItem> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
@@ -228,52 +334,92 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
      */
     public void updateAdapterItems() {
         List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
-        // Prepare to update the list of sections, filtered apps, etc.
-        mFastScrollerSections.clear();
-        mAdapterItems.clear();
-        mAccessibilityResultsCount = 0;
 
         // Recreate the filtered and sectioned apps (for convenience for the grid layout) from the
         // ordered set of sections
+        AdapterItemsResult result;
         if (hasSearchResults()) {
-            mAdapterItems.addAll(mSearchResults);
+            result = new AdapterItemsResult(mSearchResults);
         } else {
-            int position = 0;
-            boolean addApps = true;
-            if (mWorkProviderManager != null) {
-                position += mWorkProviderManager.addWorkItems(mAdapterItems);
-                addApps = mWorkProviderManager.shouldShowWorkApps();
-            }
+            ArrayList<AdapterItem> workItems = new ArrayList<>();
+            boolean addApps = addWorkItems(workItems);
+            result = new AdapterItemsResult(workItems);
             if (addApps) {
-                String lastSectionName = null;
-                for (AppInfo info : mApps) {
-                    mAdapterItems.add(AdapterItem.asApp(info));
-
-                    String sectionName = info.sectionName;
-                    // Create a new section if the section names do not match
-                    if (!sectionName.equals(lastSectionName)) {
-                        lastSectionName = sectionName;
-                        mFastScrollerSections.add(new FastScrollSectionInfo(sectionName, position));
-                    }
-                    position++;
-                }
+                result.addApps(mApps);
             }
         }
-        mAccessibilityResultsCount = (int) mAdapterItems.stream()
-                .filter(AdapterItem::isCountedForAccessibility).count();
+        result.updateRows(mNumAppsPerRowAllApps);
+        applyAdapterItems(result);
+
+        if (mAdapter != null) {
+            DiffUtil.calculateDiff(new MyDiffCallback(oldItems, mAdapterItems), false)
+                    .dispatchUpdatesTo(mAdapter);
+        }
+    }
 
+    private void applyAdapterItems(AdapterItemsResult result) {
+        mFastScrollerSections.clear();
+        mFastScrollerSections.addAll(result.fastScrollerSections);
+        mAdapterItems.clear();
+        mAdapterItems.addAll(result.adapterItems);
+        mAccessibilityResultsCount = result.accessibilityResultsCount;
         if (mNumAppsPerRowAllApps != 0) {
+            mNumAppRowsInAdapter = result.numAppRows;
+        }
+    }
+
+    /**
+     * Adapter items and sections computed from a list of apps. Can be built on any thread as long
+     * as the items are not yet visible to the adapter.
+     */
+    private static class AdapterItemsResult {
+
+        final ArrayList<AdapterItem> adapterItems = new ArrayList<>();
+        final ArrayList<FastScrollSectionInfo> fastScrollerSections = new ArrayList<>();
+        int accessibilityResultsCount;
+        int numAppRows;
+
+        // Only set for background updates
+        List<AdapterItem> oldItems;
+        DiffUtil.DiffResult diffResult;
+
+        AdapterItemsResult(List<AdapterItem> initialItems) {
+            adapterItems.addAll(initialItems);
+        }
+
+        void addApps(List<AppInfo> apps) {
+            int position = adapterItems.size();
+            String lastSectionName = null;
+            for (AppInfo info : apps) {
+                adapterItems.add(AdapterItem.asApp(info));
+
+                String sectionName = info.sectionName;
+                // Create a new section if the section names do not match
+                if (!sectionName.equals(lastSectionName)) {
+                    lastSectionName = sectionName;
+                    fastScrollerSections.add(new FastScrollSectionInfo(sectionName, position));
+                }
+                position++;
+            }
+        }
+
+        void updateRows(int numAppsPerRow) {
+            accessibilityResultsCount = (int) adapterItems.stream()
+                    .filter(AdapterItem::isCountedForAccessibility).count();
+            if (numAppsPerRow == 0) {
+                return;
+            }
             // Update the number of rows in the adapter after we do all the merging (otherwise, we
             // would have to shift the values again)
             int numAppsInSection = 0;
             int numAppsInRow = 0;
             int rowIndex = -1;
-            for (AdapterItem item : mAdapterItems) {
+            for (AdapterItem item : adapterItems) {
                 item.rowIndex = 0;
                 if (BaseAllAppsAdapter.isDividerViewType(item.viewType)) {
                     numAppsInSection = 0;
                 } else if (BaseAllAppsAdapter.isIconViewType(item.viewType)) {
-                    if (numAppsInSection % mNumAppsPerRowAllApps == 0) {
+                    if (numAppsInSection % numAppsPerRow == 0) {
                         numAppsInRow = 0;
                         rowIndex++;
                     }
@@ -283,12 +429,7 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
                     numAppsInRow++;
                 }
             }
-            mNumAppRowsInAdapter = rowIndex + 1;
-        }
-
-        if (mAdapter != null) {
-            DiffUtil.calculateDiff(new MyDiffCallback(oldItems, mAdapterItems), false)
-                    .dispatchUpdatesTo(mAdapter);
+            numAppRows = rowIndex + 1;
         }
     }
 
@@ -42,10 +42,12 @@ public class AppInfoComparator implements Comparator<AppInfo> {
 
     @Override
     public int compare(AppInfo a, AppInfo b) {
-        // Order by the title in the current locale
-        int result = mLabelComparator.compare(
-                a.title == null ? "" : a.title.toString(),
-                b.title == null ? "" : b.title.toString());
+        // Order by the title in the current locale, using the precomputed keys when available
+        int result = a.sortKey != null && b.sortKey != null
+                ? LabelComparator.compareSortKeys(a.sortKey, b.sortKey)
+                : mLabelComparator.compare(
+                        a.title == null ? "" : a.title.toString(),
+                        b.title == null ? "" : b.title.toString());
         if (result != 0) {
             return result;
         }
@@ -195,6 +195,10 @@ public abstract class BaseAllAppsAdapter<T extends Context & ActivityContext> ex
                 icon.setOnFocusChangeListener(mIconFocusListener);
                 icon.setOnClickListener(mOnIconClickListener);
                 icon.setOnLongClickListener(mOnIconLongClickListener);
+                if (parent instanceof AllAppsRecyclerView) {
+                    icon.setIconRequestScheduler(
+                            ((AllAppsRecyclerView) parent).getIconRequestScheduler());
+                }
                 // Ensure the all apps icon height matches the workspace icons in portrait mode.
                 icon.getLayoutParams().height =
                         mActivityContext.getDeviceProfile().allAppsCellHeightPx;
@@ -254,6 +258,14 @@ public abstract class BaseAllAppsAdapter<T extends Context & ActivityContext> ex
         }
     }
 
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        if (holder.getItemViewType() == VIEW_TYPE_ICON) {
+            // The view is not visible until it is bound again
+            ((BubbleTextView) holder.itemView).cancelIconLoadRequest();
+        }
+    }
+
     @Override
     public boolean onFailedToRecycleView(ViewHolder holder) {
         // Always recycle and we will reset the view when it is bound
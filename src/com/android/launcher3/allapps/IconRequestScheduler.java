@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.BubbleTextView;
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.icons.IconCache;
+import com.android.launcher3.logging.LaunchTraceRecorder;
+import com.android.launcher3.model.data.AppInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Loads the high-res icons of the views of a {@link ViewGroup}, nearest to its viewport first.
+ *
+ * Requests made during a frame are collected and sent to the {@link IconCache} as a single batch
+ * on the next frame, so that the database is queried once per frame. Only one batch is loaded at
+ * a time and the remaining requests are ordered again when it completes, so that the rows which
+ * scrolled into view during a fling are loaded before the ones which already left it. Requests
+ * for views which are recycled are dropped.
+ *
+ * The time taken to load the icons which are visible when their batch completes is recorded in
+ * {@link LaunchTraceRecorder}, outside of any launch.
+ */
+@UiThread
+public class IconRequestScheduler {
+
+    public static final String SPAN_VISIBLE_ICONS_FULL_RES = "allapps_visible_icons_full_res";
+
+    // Limits the duration of a batch, so that new requests are not delayed by far away ones
+    @VisibleForTesting
+    static final int MAX_BATCH_SIZE = 16;
+
+    private final ViewGroup mViewport;
+    private final BatchLoader mLoader;
+    private final Runnable mFlushRunnable = this::flush;
+
+    // Requests keyed on their view, waiting for the next batch and in the current batch
+    private final HashMap<BubbleTextView, Request> mPending = new HashMap<>();
+    private final HashMap<BubbleTextView, Request> mInFlight = new HashMap<>();
+    private int mNextSequence;
+
+    private boolean mBatchLoading;
+    private boolean mFlushScheduled;
+
+    public IconRequestScheduler(@NonNull ViewGroup viewport) {
+        this(viewport, LauncherAppState.getInstance(viewport.getContext())
+                .getIconCache()::updateIconsInBackground);
+    }
+
+    @VisibleForTesting
+    IconRequestScheduler(@NonNull ViewGroup viewport, @NonNull BatchLoader loader) {
+        mViewport = viewport;
+        mLoader = loader;
+    }
+
+    /**
+     * Loads the high-res icon of {@param info} and applies it to {@param view}, replacing any
+     * previous request for the view.
+     */
+    public void request(@NonNull BubbleTextView view, @NonNull AppInfo info) {
+        mInFlight.remove(view);
+        mPending.put(view, new Request(info, mNextSequence++, LaunchTraceRecorder.now()));
+        scheduleFlush();
+    }
+
+    /**
+     * Cancels the request for {@param view}, if any.
+     */
+    public void cancel(@NonNull BubbleTextView view) {
+        mPending.remove(view);
+        mInFlight.remove(view);
+    }
+
+    private void scheduleFlush() {
+        if (!mFlushScheduled && !mBatchLoading) {
+            mFlushScheduled = true;
+            mViewport.postOnAnimation(mFlushRunnable);
+        }
+    }
+
+    @VisibleForTesting
+    void flush() {
+        mFlushScheduled = false;
+        if (mPending.isEmpty() || mBatchLoading) {
+            return;
+        }
+
+        ArrayList<BubbleTextView> views = new ArrayList<>(mPending.keySet());
+        for (BubbleTextView view : views) {
+            mPending.get(view).distance = getDistanceToViewport(view);
+        }
+        views.sort((a, b) -> mPending.get(a).compareTo(mPending.get(b)));
+
+        int count = Math.min(views.size(), MAX_BATCH_SIZE);
+        ArrayList<AppInfo> infos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BubbleTextView view = views.get(i);
+            Request request = mPending.remove(view);
+            mInFlight.put(view, request);
+            infos.add(request.info);
+        }
+        mBatchLoading = true;
+        mLoader.load(infos, this::onBatchLoaded);
+    }
+
+    private void onBatchLoaded(List<AppInfo> infos) {
+        mBatchLoading = false;
+        long firstVisibleRequest = Long.MAX_VALUE;
+        ArrayList<BubbleTextView> views = new ArrayList<>(mInFlight.keySet());
+        for (BubbleTextView view : views) {
+            Request request = mInFlight.remove(view);
+            if (getDistanceToViewport(view) == 0) {
+                firstVisibleRequest = Math.min(firstVisibleRequest, request.requestNanos);
+            }
+            view.reapplyItemInfo(request.info);
+        }
+        if (firstVisibleRequest != Long.MAX_VALUE) {
+            // Not part of the launch, as icons are loaded whenever all apps is scrolled
+            LaunchTraceRecorder.INSTANCE.recordSpanOutsideLaunch(
+                    SPAN_VISIBLE_ICONS_FULL_RES, firstVisibleRequest);
+        }
+        if (!mPending.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Cancels all the requests, the batch being loaded still completes but is not applied.
+     */
+    public void clear() {
+        mPending.clear();
+        mInFlight.clear();
+    }
+
+    /**
+     * Returns the vertical distance in pixels between {@param view} and the viewport, 0 if it is
+     * visible, or {@link Integer#MAX_VALUE} if it is not laid out in the viewport.
+     */
+    private int getDistanceToViewport(View view) {
+        if (view.getParent() != mViewport) {
+            return Integer.MAX_VALUE;
+        }
+        float top = view.getTop() + view.getTranslationY();
+        float bottom = top + view.getHeight();
+        if (bottom < 0) {
+            return (int) -bottom;
+        }
+        return (int) Math.max(0, top - mViewport.getHeight());
+    }
+
+    /**
+     * Loads the high-res icons of a batch of apps, see
+     * {@link IconCache#updateIconsInBackground(List, Consumer)}.
+     */
+    @VisibleForTesting
+    interface BatchLoader {
+
+        void load(@NonNull List<AppInfo> infos, @NonNull Consumer<List<AppInfo>> callback);
+    }
+
+    private static class Request implements Comparable<Request> {
+
+        final AppInfo info;
+        final int sequence;
+        final long requestNanos;
+        int distance;
+
+        Request(AppInfo info, int sequence, long requestNanos) {
+            this.info = info;
+            this.sequence = sequence;
+            this.requestNanos = requestNanos;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            return distance != other.distance
+                    ? Integer.compare(distance, other.distance)
+                    : Integer.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -661,6 +661,15 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         return mPreviewItemManager.verifyDrawable(who) || super.verifyDrawable(who);
     }
 
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (mPreviewItemManager.verifyDrawable(drawable)) {
+            // One of the preview icons changed, the composited preview needs to be redrawn
+            mPreviewItemManager.invalidatePreviewBitmap();
+        }
+        super.invalidateDrawable(drawable);
+    }
+
     @Override
     public void onItemsChanged(boolean animate) {
         updatePreviewItems(animate);
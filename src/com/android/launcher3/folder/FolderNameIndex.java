@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.folder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.model.AllAppsList;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.launcher3.util.SafeCloseable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index of the app labels used for folder name suggestions, keyed by package. It is built from
+ * the loaded apps and updated for the changed packages only, so that suggesting a name does not
+ * need to copy or scan the list of all apps.
+ */
+public class FolderNameIndex implements SafeCloseable {
+
+    public static final MainThreadInitializedObject<FolderNameIndex> INSTANCE =
+            new MainThreadInitializedObject<>(c -> new FolderNameIndex());
+
+    // Only accessed on the model thread
+    private final HashMap<String, CharSequence> mTitlesByPackage = new HashMap<>();
+    private boolean mIsLoaded;
+
+    /**
+     * Replaces the content of the index with the provided apps.
+     */
+    @WorkerThread
+    public void rebuild(@NonNull List<AppInfo> apps) {
+        mTitlesByPackage.clear();
+        for (AppInfo info : apps) {
+            addApp(info);
+        }
+        mIsLoaded = true;
+    }
+
+    /**
+     * Updates the entries for the provided packages from the current list of apps.
+     */
+    @WorkerThread
+    public void updatePackages(@NonNull AllAppsList apps, @NonNull Set<String> packages) {
+        if (!mIsLoaded || packages.isEmpty()) {
+            return;
+        }
+        mTitlesByPackage.keySet().removeAll(packages);
+        for (AppInfo info : apps.data) {
+            if (info.componentName != null
+                    && packages.contains(info.componentName.getPackageName())) {
+                addApp(info);
+            }
+        }
+    }
+
+    /**
+     * Returns the label of an app in {@param packageName}, or null if there is no such app.
+     */
+    @WorkerThread
+    @Nullable
+    public CharSequence getTitle(@NonNull String packageName) {
+        return mTitlesByPackage.get(packageName);
+    }
+
+    public boolean isLoaded() {
+        return mIsLoaded;
+    }
+
+    private void addApp(AppInfo info) {
+        if (info.componentName != null) {
+            // Keep the first app of the package, like a search through the list would
+            mTitlesByPackage.putIfAbsent(info.componentName.getPackageName(),
+                    info.title == null ? "" : info.title);
+        }
+    }
+
+    @Override
+    public void close() { }
+}
@@ -25,6 +25,7 @@ import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
 import com.android.launcher3.LauncherAppState;
@@ -34,18 +35,12 @@ import com.android.launcher3.model.AllAppsList;
 import com.android.launcher3.model.BaseModelUpdateTask;
 import com.android.launcher3.model.BgDataModel;
 import com.android.launcher3.model.StringCache;
-import com.android.launcher3.model.data.AppInfo;
-import com.android.launcher3.model.data.FolderInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
-import com.android.launcher3.util.IntSparseArrayMap;
 import com.android.launcher3.util.Preconditions;
 import com.android.launcher3.util.ResourceBasedOverride;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -64,8 +59,8 @@ public class FolderNameProvider implements ResourceBasedOverride {
      * name edit box can also be used to provide suggestion.
      */
     public static final int SUGGEST_MAX = 4;
-    protected IntSparseArrayMap<FolderInfo> mFolderInfos;
-    protected List<AppInfo> mAppInfos;
+    @Nullable
+    private FolderNameIndex mIndex;
 
     /**
      * Retrieve instance of this object that can be overridden in runtime based on the build
@@ -80,24 +75,12 @@ public class FolderNameProvider implements ResourceBasedOverride {
         return fnp;
     }
 
-    public static FolderNameProvider newInstance(Context context, List<AppInfo> appInfos,
-            IntSparseArrayMap<FolderInfo> folderInfos) {
-        Preconditions.assertWorkerThread();
-        FolderNameProvider fnp = Overrides.getObject(FolderNameProvider.class,
-                context.getApplicationContext(), R.string.folder_name_provider_class);
-        fnp.load(appInfos, folderInfos);
-
-        return fnp;
-    }
-
     private void load(Context context) {
-        LauncherAppState.getInstance(context).getModel().enqueueModelUpdateTask(
-                new FolderNameWorker());
-    }
-
-    private void load(List<AppInfo> appInfos, IntSparseArrayMap<FolderInfo> folderInfos) {
-        mAppInfos = appInfos;
-        mFolderInfos = folderInfos;
+        mIndex = FolderNameIndex.INSTANCE.get(context);
+        if (!mIndex.isLoaded()) {
+            LauncherAppState.getInstance(context).getModel().enqueueModelUpdateTask(
+                    new FolderNameWorker(mIndex));
+        }
     }
 
     /**
@@ -129,11 +112,12 @@ public class FolderNameProvider implements ResourceBasedOverride {
                 .map(workspaceItemInfo -> workspaceItemInfo.getTargetComponent().getPackageName())
                 .collect(Collectors.toSet());
 
-        if (packageNames.size() == 1) {
-            Optional<AppInfo> info = getAppInfoByPackageName(packageNames.iterator().next());
-            // Place it as first viable suggestion and shift everything else
-            info.ifPresent(i -> setAsFirstSuggestion(
-                    nameInfos, i.title == null ? "" : i.title.toString()));
+        if (packageNames.size() == 1 && mIndex != null) {
+            CharSequence title = mIndex.getTitle(packageNames.iterator().next());
+            if (title != null) {
+                // Place it as first viable suggestion and shift everything else
+                setAsFirstSuggestion(nameInfos, title.toString());
+            }
         }
         if (DEBUG) {
             Log.d(TAG, "getSuggestedFolderName:" + nameInfos.toString());
@@ -151,16 +135,6 @@ public class FolderNameProvider implements ResourceBasedOverride {
                         context.getString(R.string.work_folder_name));
     }
 
-    private Optional<AppInfo> getAppInfoByPackageName(String packageName) {
-        if (mAppInfos == null || mAppInfos.isEmpty()) {
-            return Optional.empty();
-        }
-        return mAppInfos.stream()
-                .filter(info -> info.componentName != null)
-                .filter(info -> info.componentName.getPackageName().equals(packageName))
-                .findAny();
-    }
-
     private void setAsFirstSuggestion(FolderNameInfos nameInfos, CharSequence label) {
         if (nameInfos == null || nameInfos.contains(label)) {
             return;
@@ -194,12 +168,20 @@ public class FolderNameProvider implements ResourceBasedOverride {
         nameInfos.setLabel(labels.length - 1, label, 1.0f);
     }
 
-    private class FolderNameWorker extends BaseModelUpdateTask {
+    private static class FolderNameWorker extends BaseModelUpdateTask {
+
+        private final FolderNameIndex mIndex;
+
+        FolderNameWorker(FolderNameIndex index) {
+            mIndex = index;
+        }
+
         @Override
         public void execute(@NonNull final LauncherAppState app,
                 @NonNull final BgDataModel dataModel, @NonNull final AllAppsList apps) {
-            mFolderInfos = dataModel.folders.clone();
-            mAppInfos = Arrays.asList(apps.copyData());
+            if (!mIndex.isLoaded()) {
+                mIndex.rebuild(apps.data);
+            }
         }
     }
 
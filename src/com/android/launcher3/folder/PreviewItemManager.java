@@ -28,10 +28,12 @@ import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Path;
 import android.graphics.PointF;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.util.FloatProperty;
 import android.view.View;
@@ -42,6 +44,7 @@ import com.android.launcher3.BubbleTextView;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.graphics.DrawableFactory;
 import com.android.launcher3.graphics.PreloadIconDrawable;
+import com.android.launcher3.icons.BitmapRenderer;
 import com.android.launcher3.model.data.ItemInfoWithIcon;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.views.ActivityContext;
@@ -95,6 +98,15 @@ public class PreviewItemManager {
     private float mCurrentPageItemsTransX = 0;
     private boolean mShouldSlideInFirstPage;
 
+    // Composited first page preview, drawn instead of the individual items while the folder icon
+    // is static. Bounds are relative to the preview offset.
+    private Bitmap mPreviewBitmap;
+    private final Rect mPreviewBitmapBounds = new Rect();
+    private boolean mPreviewBitmapValid;
+    private final RectF mTmpRectF = new RectF();
+    private final PointF mTmpOffset = new PointF();
+    private final PointF mTmpCurrentPageOffset = new PointF();
+
     static final int INITIAL_ITEM_ANIMATION_DURATION = 350;
     private static final int FINAL_ITEM_ANIMATION_DURATION = 200;
 
@@ -152,6 +164,7 @@ public class PreviewItemManager {
                     Utilities.isRtl(mIcon.getResources()));
 
             updatePreviewItems(false);
+            invalidatePreviewBitmap();
         }
     }
 
@@ -192,30 +205,93 @@ public class PreviewItemManager {
      * Draws the preview items on {@param canvas}.
      */
     public void draw(Canvas canvas) {
-        int saveCount = canvas.getSaveCount();
         // The items are drawn in coordinates relative to the preview offset
         PreviewBackground bg = mIcon.getFolderBackground();
+        if (canUsePreviewBitmap()) {
+            if (!mPreviewBitmapValid) {
+                updatePreviewBitmap();
+            }
+            if (mPreviewBitmap != null) {
+                canvas.drawBitmap(mPreviewBitmap,
+                        bg.basePreviewOffsetX + mPreviewBitmapBounds.left,
+                        bg.basePreviewOffsetY + mPreviewBitmapBounds.top, null);
+            }
+            return;
+        }
+
+        int saveCount = canvas.getSaveCount();
         Path clipPath = bg.getClipPath();
         float firstPageItemsTransX = 0;
         if (mShouldSlideInFirstPage) {
-            PointF firstPageOffset = new PointF(bg.basePreviewOffsetX + mCurrentPageItemsTransX,
+            PointF currentPageOffset = mTmpCurrentPageOffset;
+            currentPageOffset.set(bg.basePreviewOffsetX + mCurrentPageItemsTransX,
                     bg.basePreviewOffsetY);
             boolean shouldClip = mCurrentPageItemsTransX > mClipThreshold;
-            drawParams(canvas, mCurrentPageParams, firstPageOffset, shouldClip, clipPath);
+            drawParams(canvas, mCurrentPageParams, currentPageOffset, shouldClip, clipPath);
             firstPageItemsTransX = -ITEM_SLIDE_IN_OUT_DISTANCE_PX + mCurrentPageItemsTransX;
         }
 
-        PointF firstPageOffset = new PointF(bg.basePreviewOffsetX + firstPageItemsTransX,
-                bg.basePreviewOffsetY);
+        PointF firstPageOffset = mTmpOffset;
+        firstPageOffset.set(bg.basePreviewOffsetX + firstPageItemsTransX, bg.basePreviewOffsetY);
         boolean shouldClipFirstPage = firstPageItemsTransX < -mClipThreshold;
         drawParams(canvas, mFirstPageParams, firstPageOffset, shouldClipFirstPage, clipPath);
         canvas.restoreToCount(saveCount);
     }
 
     public void onParamsChanged() {
+        invalidatePreviewBitmap();
         mIcon.invalidate();
     }
 
+    /**
+     * Marks the composited preview as stale, it will be redrawn on the next static draw.
+     */
+    void invalidatePreviewBitmap() {
+        mPreviewBitmapValid = false;
+        mPreviewBitmap = null;
+    }
+
+    /**
+     * Returns true if the preview is in its resting state and can be drawn from a single bitmap.
+     * Drop, open/close and page slide animations always use the live path.
+     */
+    private boolean canUsePreviewBitmap() {
+        if (mIcon.mAnimating || mShouldSlideInFirstPage || mIntrinsicIconSize <= 0) {
+            return false;
+        }
+        for (int i = mFirstPageParams.size() - 1; i >= 0; i--) {
+            PreviewItemDrawingParams p = mFirstPageParams.get(i);
+            if (p.anim != null || p.index == EXIT_INDEX
+                    || p.drawable instanceof PreloadIconDrawable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void updatePreviewBitmap() {
+        mPreviewBitmapValid = true;
+        mPreviewBitmap = null;
+
+        RectF bounds = mTmpRectF;
+        bounds.setEmpty();
+        for (int i = mFirstPageParams.size() - 1; i >= 0; i--) {
+            PreviewItemDrawingParams p = mFirstPageParams.get(i);
+            if (!p.hidden && p.drawable != null) {
+                float size = mIntrinsicIconSize * p.scale;
+                bounds.union(p.transX, p.transY, p.transX + size, p.transY + size);
+            }
+        }
+        if (bounds.isEmpty()) {
+            return;
+        }
+        bounds.roundOut(mPreviewBitmapBounds);
+        mTmpOffset.set(-mPreviewBitmapBounds.left, -mPreviewBitmapBounds.top);
+        mPreviewBitmap = BitmapRenderer.createHardwareBitmap(mPreviewBitmapBounds.width(),
+                mPreviewBitmapBounds.height(),
+                c -> drawParams(c, mFirstPageParams, mTmpOffset, false, null));
+    }
+
     /**
      * Draws each preview item.
      *
@@ -254,11 +330,13 @@ public class PreviewItemManager {
                 mFirstPageParams.get(index) : null;
         if (params != null) {
             params.hidden = hidden;
+            invalidatePreviewBitmap();
         }
     }
 
     void buildParamsForPage(int page, ArrayList<PreviewItemDrawingParams> params, boolean animate) {
         List<WorkspaceItemInfo> items = mIcon.getPreviewItemsOnPage(page);
+        invalidatePreviewBitmap();
 
         // We adjust the size of the list to match the number of items in the preview.
         while (items.size() < params.size()) {
@@ -343,6 +421,7 @@ public class PreviewItemManager {
             }
         }
         if (modified) {
+            invalidatePreviewBitmap();
             mIcon.invalidate();
         }
     }
@@ -374,6 +453,7 @@ public class PreviewItemManager {
             WorkspaceItemInfo dropped) {
         int numItems = newItems.size();
         final ArrayList<PreviewItemDrawingParams> params = mFirstPageParams;
+        invalidatePreviewBitmap();
         buildParamsForPage(0, params, false);
 
         // New preview items for items that are moving in (except for the dropped item).
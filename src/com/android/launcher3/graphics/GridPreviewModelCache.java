@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.graphics;
+
+import static com.android.launcher3.LauncherSettings.Favorites.TABLE_NAME;
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.Context;
+import android.os.MessageQueue.IdleHandler;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.Size;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.DeviceProfile;
+import com.android.launcher3.InvariantDeviceProfile;
+import com.android.launcher3.InvariantDeviceProfile.GridOption;
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.LauncherSettings;
+import com.android.launcher3.Workspace;
+import com.android.launcher3.graphics.LauncherPreviewRenderer.PreviewContext;
+import com.android.launcher3.model.BgDataModel;
+import com.android.launcher3.model.BgDataModel.Callbacks;
+import com.android.launcher3.model.GridSizeMigrationUtil;
+import com.android.launcher3.model.LauncherBinder;
+import com.android.launcher3.model.LoaderTask;
+import com.android.launcher3.model.ModelDbController;
+import com.android.launcher3.provider.LauncherDbUtils;
+import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.MainThreadInitializedObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of the migrated first screen model for grids other than the current one, used by the
+ * wallpaper picker previews. Loading such a model requires copying the workspace into a preview
+ * DB, running the grid migration and loading the result, so it is only done again when the
+ * workspace DB or the current grid changes. Once a preview has been requested, the models of the
+ * other grids are loaded while the model thread is idle so that switching grids is instant.
+ *
+ * The models are kept only while a preview is open, the cache is cleared when the last one is
+ * destroyed.
+ */
+public class GridPreviewModelCache {
+
+    private static final String TAG = "GridPreviewModelCache";
+
+    public static final MainThreadInitializedObject<GridPreviewModelCache> INSTANCE =
+            new MainThreadInitializedObject<>(GridPreviewModelCache::new);
+
+    private final Context mContext;
+
+    // Only accessed on the model thread, keyed on the grid DB file
+    private final HashMap<String, PreviewModel> mModels = new HashMap<>();
+    private final ArrayDeque<InvariantDeviceProfile> mPendingPreloads = new ArrayDeque<>();
+    private final IdleHandler mPreloadIdleHandler = this::preloadNext;
+    private boolean mPreloadScheduled;
+    // Number of open previews
+    private int mPreviewCount;
+
+    private GridPreviewModelCache(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Keeps the cached models until a matching call to {@link #release()}, called for every
+     * preview.
+     */
+    public void acquire() {
+        MODEL_EXECUTOR.execute(() -> mPreviewCount++);
+    }
+
+    /**
+     * Releases a previous call to {@link #acquire()}, clearing the cache if no preview is open.
+     */
+    public void release() {
+        MODEL_EXECUTOR.execute(() -> {
+            mPreviewCount--;
+            if (mPreviewCount == 0) {
+                mModels.clear();
+                mPendingPreloads.clear();
+                if (mPreloadScheduled) {
+                    mPreloadScheduled = false;
+                    MODEL_EXECUTOR.getLooper().getQueue().removeIdleHandler(mPreloadIdleHandler);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the preview model for the provided grid, loading it if there is no valid cached
+     * entry.
+     */
+    @WorkerThread
+    @NonNull
+    public PreviewModel getOrLoad(@NonNull InvariantDeviceProfile idp) {
+        ModelDbController mainController =
+                LauncherAppState.getInstance(mContext).getModel().getModelDbController();
+        String sourceDbFile = InvariantDeviceProfile.INSTANCE.get(mContext).dbFile;
+        int generation = mainController.getChangeGeneration();
+
+        PreviewModel model = mModels.get(idp.dbFile);
+        if (model != null && model.isValid(sourceDbFile, generation)) {
+            return model;
+        }
+
+        model = loadModel(idp, mainController, sourceDbFile, generation);
+        mModels.put(idp.dbFile, model);
+        return model;
+    }
+
+    /**
+     * Schedules the models for all grids which require a migration to be loaded the next time
+     * the model thread is idle.
+     */
+    public void preloadAllGrids() {
+        MODEL_EXECUTOR.execute(() -> {
+            if (mPreloadScheduled) {
+                return;
+            }
+            mPendingPreloads.clear();
+            for (GridOption option : InvariantDeviceProfile.INSTANCE.get(mContext)
+                    .parseAllGridOptions(mContext)) {
+                InvariantDeviceProfile idp = new InvariantDeviceProfile(mContext, option.name);
+                if (GridSizeMigrationUtil.needsToMigrate(mContext, idp)) {
+                    mPendingPreloads.add(idp);
+                }
+            }
+            if (!mPendingPreloads.isEmpty()) {
+                mPreloadScheduled = true;
+                MODEL_EXECUTOR.getLooper().getQueue().addIdleHandler(mPreloadIdleHandler);
+            }
+        });
+    }
+
+    /**
+     * Loads one pending grid and returns true if more are remaining.
+     */
+    @WorkerThread
+    private boolean preloadNext() {
+        InvariantDeviceProfile idp = mPendingPreloads.poll();
+        if (idp != null) {
+            try {
+                getOrLoad(idp);
+            } catch (Exception e) {
+                Log.e(TAG, "Unable to preload grid preview model", e);
+            }
+        }
+        mPreloadScheduled = !mPendingPreloads.isEmpty();
+        return mPreloadScheduled;
+    }
+
+    @WorkerThread
+    private PreviewModel loadModel(InvariantDeviceProfile idp, ModelDbController mainController,
+            String sourceDbFile, int generation) {
+        PreviewContext previewContext = new PreviewContext(mContext, idp);
+        try {
+            LauncherAppState previewApp = LauncherAppState.getInstance(previewContext);
+            // Copy existing data to preview DB
+            LauncherDbUtils.copyTable(mainController.getDb(), TABLE_NAME,
+                    previewApp.getModel().getModelDbController().getDb(), TABLE_NAME, mContext);
+            previewApp.getModel().getModelDbController().clearEmptyDbFlag();
+
+            BgDataModel bgModel = new BgDataModel();
+            PreviewModel[] result = new PreviewModel[1];
+            new LoaderTask(previewApp, /* bgAllAppsList= */ null, bgModel,
+                    previewApp.getModel().getModelDelegate(),
+                    new LauncherBinder(previewApp, bgModel, /* bgAllAppsList= */ null,
+                            new Callbacks[0])) {
+
+                @Override
+                public void run() {
+                    DeviceProfile deviceProfile = idp.getDeviceProfile(previewContext);
+                    String query =
+                            LauncherSettings.Favorites.SCREEN + " = " + Workspace.FIRST_SCREEN_ID
+                                    + " or " + LauncherSettings.Favorites.CONTAINER + " = "
+                                    + LauncherSettings.Favorites.CONTAINER_HOTSEAT;
+                    if (deviceProfile.isTwoPanels) {
+                        query += " or " + LauncherSettings.Favorites.SCREEN + " = "
+                                + Workspace.SECOND_SCREEN_ID;
+                    }
+                    loadWorkspace(new ArrayList<>(), query, null);
+                    result[0] = new PreviewModel(mBgDataModel, mWidgetProvidersMap,
+                            PreviewSurfaceRenderer.getLoadedLauncherWidgetInfo(mainController),
+                            sourceDbFile, generation);
+                }
+            }.run();
+            return result[0];
+        } finally {
+            MAIN_EXECUTOR.execute(previewContext::onDestroy);
+        }
+    }
+
+    /**
+     * Loaded first screen model of a grid, along with the state it was loaded from.
+     */
+    public static class PreviewModel {
+
+        @NonNull
+        public final BgDataModel dataModel;
+        @NonNull
+        public final Map<ComponentKey, AppWidgetProviderInfo> widgetProvidersMap;
+        @Nullable
+        public final SparseArray<Size> launcherWidgetSpanInfo;
+
+        private final String mSourceDbFile;
+        private final int mGeneration;
+
+        PreviewModel(@NonNull BgDataModel dataModel,
+                @NonNull Map<ComponentKey, AppWidgetProviderInfo> widgetProvidersMap,
+                @Nullable SparseArray<Size> launcherWidgetSpanInfo, String sourceDbFile,
+                int generation) {
+            this.dataModel = dataModel;
+            this.widgetProvidersMap = widgetProvidersMap;
+            this.launcherWidgetSpanInfo = launcherWidgetSpanInfo;
+            mSourceDbFile = sourceDbFile;
+            mGeneration = generation;
+        }
+
+        boolean isValid(String sourceDbFile, int generation) {
+            return mGeneration == generation && TextUtils.equals(mSourceDbFile, sourceDbFile);
+        }
+    }
+}
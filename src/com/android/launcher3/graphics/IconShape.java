@@ -74,6 +74,13 @@ public abstract class IconShape {
         return false;
     };
 
+    /**
+     * Returns the type and radius which define this shape, as listed in the shape options.
+     */
+    public String getDefinition() {
+        return getClass().getSimpleName();
+    }
+
     public abstract void drawShape(Canvas canvas, float offsetX, float offsetY, float radius,
             Paint paint);
 
@@ -214,6 +221,11 @@ public abstract class IconShape {
             mRadiusRatio = radiusRatio;
         }
 
+        @Override
+        public String getDefinition() {
+            return super.getDefinition() + ":" + mRadiusRatio;
+        }
+
         @Override
         public void drawShape(Canvas canvas, float offsetX, float offsetY, float radius, Paint p) {
             float cx = radius + offsetX;
@@ -249,6 +261,11 @@ public abstract class IconShape {
             mRadiusRatio = radiusRatio;
         }
 
+        @Override
+        public String getDefinition() {
+            return super.getDefinition() + ":" + mRadiusRatio;
+        }
+
         @Override
         public void addToPath(Path p, float offsetX, float offsetY, float r1) {
             float r2 = r1 * mRadiusRatio;
@@ -300,6 +317,11 @@ public abstract class IconShape {
             mRadiusRatio = radiusRatio;
         }
 
+        @Override
+        public String getDefinition() {
+            return super.getDefinition() + ":" + mRadiusRatio;
+        }
+
         @Override
         public void addToPath(Path p, float offsetX, float offsetY, float r) {
             float cx = r + offsetX;
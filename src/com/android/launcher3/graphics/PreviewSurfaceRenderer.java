@@ -43,26 +43,20 @@ import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
 
-import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.Utilities;
-import com.android.launcher3.Workspace;
+import com.android.launcher3.graphics.GridPreviewModelCache.PreviewModel;
 import com.android.launcher3.graphics.LauncherPreviewRenderer.PreviewContext;
 import com.android.launcher3.model.BgDataModel;
-import com.android.launcher3.model.BgDataModel.Callbacks;
 import com.android.launcher3.model.GridSizeMigrationUtil;
-import com.android.launcher3.model.LauncherBinder;
-import com.android.launcher3.model.LoaderTask;
 import com.android.launcher3.model.ModelDbController;
-import com.android.launcher3.provider.LauncherDbUtils;
 import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.RunnableList;
 import com.android.launcher3.util.Themes;
 import com.android.launcher3.widget.LocalColorExtractor;
 
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -117,6 +111,10 @@ public class PreviewSurfaceRenderer {
                 .submit(() -> new SurfaceControlViewHost(mContext, mDisplay, mHostToken))
                 .get(5, TimeUnit.SECONDS);
         mOnDestroyCallbacks.add(mSurfaceControlViewHost::release);
+
+        GridPreviewModelCache cache = GridPreviewModelCache.INSTANCE.get(mContext);
+        cache.acquire();
+        mOnDestroyCallbacks.add(cache::release);
     }
 
     public IBinder getHostToken() {
@@ -146,12 +144,21 @@ public class PreviewSurfaceRenderer {
     @Nullable
     public SparseArray<Size> getLoadedLauncherWidgetInfo(
             @NonNull final Context context) {
+        return getLoadedLauncherWidgetInfo(
+                LauncherAppState.getInstance(context).getModel().getModelDbController());
+    }
+
+    /**
+     * Queries the launcher app widget span info from the provided DB
+     */
+    @WorkerThread
+    @Nullable
+    static SparseArray<Size> getLoadedLauncherWidgetInfo(
+            @NonNull ModelDbController mainController) {
         final SparseArray<Size> widgetInfo = new SparseArray<>();
         final String query = LauncherSettings.Favorites.ITEM_TYPE + " = "
                 + LauncherSettings.Favorites.ITEM_TYPE_APPWIDGET;
 
-        ModelDbController mainController =
-                LauncherAppState.getInstance(mContext).getModel().getModelDbController();
         try (Cursor c = mainController.query(TABLE_NAME,
                 new String[] {
                         LauncherSettings.Favorites.APPWIDGET_ID,
@@ -215,55 +222,21 @@ public class PreviewSurfaceRenderer {
         }
 
         if (GridSizeMigrationUtil.needsToMigrate(inflationContext, mIdp)) {
-            // Start the migration
+            GridPreviewModelCache cache = GridPreviewModelCache.INSTANCE.get(mContext);
+            PreviewModel model = cache.getOrLoad(mIdp);
             PreviewContext previewContext = new PreviewContext(inflationContext, mIdp);
-            // Copy existing data to preview DB
-            LauncherDbUtils.copyTable(LauncherAppState.getInstance(mContext)
-                    .getModel().getModelDbController().getDb(),
-                    TABLE_NAME,
-                    LauncherAppState.getInstance(previewContext)
-                            .getModel().getModelDbController().getDb(),
-                    TABLE_NAME,
-                    mContext);
-            LauncherAppState.getInstance(previewContext)
-                    .getModel().getModelDbController().clearEmptyDbFlag();
-
-            BgDataModel bgModel = new BgDataModel();
-            new LoaderTask(
-                    LauncherAppState.getInstance(previewContext),
-                    /* bgAllAppsList= */ null,
-                    bgModel,
-                    LauncherAppState.getInstance(previewContext).getModel().getModelDelegate(),
-                    new LauncherBinder(LauncherAppState.getInstance(previewContext), bgModel,
-                            /* bgAllAppsList= */ null, new Callbacks[0])) {
-
-                @Override
-                public void run() {
-                    DeviceProfile deviceProfile = mIdp.getDeviceProfile(previewContext);
-                    String query =
-                            LauncherSettings.Favorites.SCREEN + " = " + Workspace.FIRST_SCREEN_ID
-                                    + " or " + LauncherSettings.Favorites.CONTAINER + " = "
-                                    + LauncherSettings.Favorites.CONTAINER_HOTSEAT;
-                    if (deviceProfile.isTwoPanels) {
-                        query += " or " + LauncherSettings.Favorites.SCREEN + " = "
-                                + Workspace.SECOND_SCREEN_ID;
-                    }
-                    loadWorkspace(new ArrayList<>(), query, null);
-
-                    final SparseArray<Size> spanInfo =
-                            getLoadedLauncherWidgetInfo(previewContext.getBaseContext());
-
-                    MAIN_EXECUTOR.execute(() -> {
-                        renderView(previewContext, mBgDataModel, mWidgetProvidersMap, spanInfo);
-                        mOnDestroyCallbacks.add(previewContext::onDestroy);
-                    });
-                }
-            }.run();
+            MAIN_EXECUTOR.execute(() -> {
+                mOnDestroyCallbacks.add(previewContext::onDestroy);
+                renderView(previewContext, model.dataModel, model.widgetProvidersMap,
+                        model.launcherWidgetSpanInfo);
+            });
+            cache.preloadAllGrids();
         } else {
             LauncherAppState.getInstance(inflationContext).getModel().loadAsync(dataModel -> {
                 if (dataModel != null) {
                     MAIN_EXECUTOR.execute(() -> renderView(inflationContext, dataModel, null,
                             null));
+                    GridPreviewModelCache.INSTANCE.get(mContext).preloadAllGrids();
                 } else {
                     Log.e(TAG, "Model loading failed");
                 }
@@ -74,8 +74,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -206,6 +208,37 @@ public class IconCache extends BaseIconCache {
         return request;
     }
 
+    /**
+     * Fetches the high-res icons of {@param infos} with a single database query per user, and
+     * calls {@param callback} with the same list when done.
+     *
+     * @return a request ID that can be used to cancel the request.
+     */
+    public HandlerRunnable<List<AppInfo>> updateIconsInBackground(@NonNull List<AppInfo> infos,
+            @NonNull Consumer<List<AppInfo>> callback) {
+        Preconditions.assertUIThread();
+        if (mPendingIconRequestCount <= 0) {
+            MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_FOREGROUND);
+        }
+        mPendingIconRequestCount++;
+
+        HandlerRunnable<List<AppInfo>> request = new HandlerRunnable<>(mWorkerHandler,
+                () -> {
+                    getTitlesAndIconsInBulk(infos.stream()
+                            .map(info -> new IconRequestInfo<>(info, null, false))
+                            .collect(Collectors.toList()));
+                    // Entries missing from the database are loaded one by one
+                    for (AppInfo info : infos) {
+                        if (info.usingLowResIcon()) {
+                            getTitleAndIcon(info, false);
+                        }
+                    }
+                    return infos;
+                }, MAIN_EXECUTOR, callback, this::onIconRequestEnd);
+        Utilities.postAsyncCallback(mWorkerHandler, request);
+        return request;
+    }
+
     private void onIconRequestEnd() {
         mPendingIconRequestCount--;
         if (mPendingIconRequestCount <= 0) {
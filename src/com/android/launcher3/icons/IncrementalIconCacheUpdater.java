@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons;
+
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.Context;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.ShortcutInfo;
+import android.os.UserHandle;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.InvariantDeviceProfile;
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.customization.IconDatabase;
+import com.android.launcher3.graphics.IconShape;
+import com.android.launcher3.icons.cache.CachingLogic;
+import com.android.launcher3.icons.cache.IconCacheUpdateHandler;
+import com.android.launcher3.icons.cache.IconCacheUpdateHandler.OnUpdateCallback;
+import com.android.launcher3.pm.ShortcutConfigActivityInfo.ShortcutConfigActivityInfoVO;
+import com.android.launcher3.pm.UserCache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the icon cache verification of the loader only for the packages which changed since the
+ * last load.
+ *
+ * A fingerprint of the versions of the items of each package is saved at the end of every load,
+ * along with the state affecting all the icons (locale, icon theme, icon pack, shape and size).
+ * Packages whose fingerprint matched on the two previous loads are not verified again, so that a
+ * load interrupted before the icons were updated is retried. The {@link IconCacheUpdateHandler}
+ * is only created once a package needs to be verified, which makes the verification a no-op
+ * when nothing changed.
+ *
+ * The first pass of the handler also removes the rows of the cache which are invalid for that
+ * pass, and later passes only keep the rows they validate. To preserve this, the users part of
+ * the first pass are verified in full by all the passes, including the ones skipped before the
+ * handler was created, and only the other users are verified per package.
+ */
+public class IncrementalIconCacheUpdater {
+
+    private static final String TAG = "IncrementalIconUpdater";
+
+    public static final String CATEGORY_ACTIVITIES = "activities";
+    public static final String CATEGORY_SHORTCUTS = "shortcuts";
+    public static final String CATEGORY_DEEP_SHORTCUTS = "deep_shortcuts";
+    public static final String CATEGORY_WIDGETS = "widgets";
+
+    private static final String FILE_NAME = "icon_cache_fingerprints";
+    private static final int FILE_VERSION = 2;
+    private static final char KEY_SEPARATOR = '/';
+
+    private final Context mContext;
+    private final IconCache mIconCache;
+    private final IconProvider mIconProvider;
+    private final UserCache mUserCache;
+    private final Consumer<IconCacheUpdateHandler> mHandlerInitializer;
+
+    private final String mGlobalState;
+    private boolean mGlobalStateChanged;
+
+    // Fingerprints keyed on category, user serial and package name
+    private final HashMap<String, Fingerprint> mSavedFingerprints = new HashMap<>();
+    private final HashMap<String, Fingerprint> mFingerprints = new HashMap<>();
+
+    // Users which were part of the first pass of the handler
+    private final Set<UserHandle> mFullUpdateUsers = new HashSet<>();
+    // Calls which did not need to verify anything, until the handler is created
+    private final ArrayList<SkippedPass<?>> mSkippedPasses = new ArrayList<>();
+
+    @Nullable
+    private IconCacheUpdateHandler mHandler;
+    private int mVerifiedCount;
+    private int mSkippedCount;
+
+    /**
+     * @param handlerInitializer called with the update handler once it is created
+     */
+    public IncrementalIconCacheUpdater(@NonNull LauncherAppState app,
+            @NonNull Consumer<IconCacheUpdateHandler> handlerInitializer) {
+        mContext = app.getContext();
+        mIconCache = app.getIconCache();
+        mIconProvider = app.getIconProvider();
+        mUserCache = UserCache.INSTANCE.get(mContext);
+        mHandlerInitializer = handlerInitializer;
+
+        InvariantDeviceProfile idp = app.getInvariantDeviceProfile();
+        mGlobalState = mContext.getApplicationInfo().sourceDir
+                + "," + mContext.getResources().getConfiguration().getLocales().toLanguageTags()
+                + "," + mIconProvider.getSystemIconState()
+                + "," + IconDatabase.getGlobal(mContext)
+                + "," + IconShape.getShape().getDefinition()
+                + "," + idp.iconBitmapSize + "," + idp.fillResIconDpi;
+        load();
+    }
+
+    /**
+     * Verifies the icons of {@param items} which changed since the last load, see
+     * {@link IconCacheUpdateHandler#updateIcons}.
+     *
+     * @param category name of the items, the fingerprints of each category are independent
+     * @param versionProvider returns a string which changes when the icon of an item may have
+     *                        changed, or null if unknown in which case the item is always verified
+     */
+    public <T> void updateIcons(@NonNull String category, @NonNull List<T> items,
+            @NonNull CachingLogic<T> cachingLogic, @NonNull Function<T, String> versionProvider,
+            @NonNull OnUpdateCallback onUpdateCallback) {
+        HashMap<UserHandle, HashMap<String, ArrayList<T>>> itemsByUser = new HashMap<>();
+        for (T item : items) {
+            itemsByUser.computeIfAbsent(cachingLogic.getUser(item), u -> new HashMap<>())
+                    .computeIfAbsent(cachingLogic.getComponent(item).getPackageName(),
+                            p -> new ArrayList<>())
+                    .add(item);
+        }
+
+        // The fingerprints of this category are all replaced below
+        String categoryPrefix = category + KEY_SEPARATOR;
+        mFingerprints.keySet().removeIf(key -> key.startsWith(categoryPrefix));
+
+        boolean isFirstPass = mHandler == null;
+        ArrayList<T> itemsToVerify = new ArrayList<>();
+        for (Map.Entry<UserHandle, HashMap<String, ArrayList<T>>> userEntry
+                : itemsByUser.entrySet()) {
+            UserHandle user = userEntry.getKey();
+            HashMap<String, ArrayList<T>> itemsByPackage = userEntry.getValue();
+            String userPrefix =
+                    categoryPrefix + mUserCache.getSerialNumberForUser(user) + KEY_SEPARATOR;
+
+            ArrayList<T> changedItems = new ArrayList<>();
+            boolean userChanged =
+                    mGlobalStateChanged || hasRemovedPackages(userPrefix, itemsByPackage.keySet());
+            for (Map.Entry<String, ArrayList<T>> packageEntry : itemsByPackage.entrySet()) {
+                String key = userPrefix + packageEntry.getKey();
+                Long value = getFingerprint(
+                        packageEntry.getKey(), packageEntry.getValue(), versionProvider);
+                Fingerprint saved = mSavedFingerprints.get(key);
+                boolean unchanged = value != null && saved != null && saved.value == value;
+                if (value != null) {
+                    mFingerprints.put(key, new Fingerprint(value, unchanged));
+                }
+                if (!unchanged || !saved.confirmed) {
+                    userChanged = true;
+                    changedItems.addAll(packageEntry.getValue());
+                }
+            }
+
+            if (isFirstPass ? userChanged : mFullUpdateUsers.contains(user)) {
+                mFullUpdateUsers.add(user);
+                itemsByPackage.values().forEach(itemsToVerify::addAll);
+            } else if (!isFirstPass) {
+                itemsToVerify.addAll(changedItems);
+            }
+        }
+
+        mVerifiedCount += itemsToVerify.size();
+        mSkippedCount += items.size() - itemsToVerify.size();
+        if (itemsToVerify.isEmpty()) {
+            if (mHandler == null) {
+                mSkippedPasses.add(new SkippedPass<>(itemsByUser, cachingLogic, onUpdateCallback));
+            }
+            return;
+        }
+        if (mHandler == null) {
+            mHandler = mIconCache.getUpdateHandler();
+            mHandlerInitializer.accept(mHandler);
+            // The first pass marks all the rows of its users, so the rows of the previous
+            // categories also need to be verified for these users
+            for (SkippedPass<?> pass : mSkippedPasses) {
+                int count = pass.replay(mHandler, mFullUpdateUsers);
+                mVerifiedCount += count;
+                mSkippedCount -= count;
+            }
+            mSkippedPasses.clear();
+        }
+        mHandler.updateIcons(itemsToVerify, cachingLogic, onUpdateCallback);
+    }
+
+    /**
+     * Removes the invalid entries of the cache found by the previous calls, and saves the
+     * fingerprints for the next load.
+     */
+    public void finish() {
+        if (mHandler != null) {
+            mHandler.finish();
+        }
+        Log.d(TAG, "Icon cache verified for " + mVerifiedCount + " items, skipped "
+                + mSkippedCount + " unchanged items");
+        save();
+    }
+
+    private boolean hasRemovedPackages(String userPrefix, Set<String> packages) {
+        for (String key : mSavedFingerprints.keySet()) {
+            if (key.startsWith(userPrefix)
+                    && !packages.contains(key.substring(userPrefix.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    @VisibleForTesting
+    <T> Long getFingerprint(
+            String packageName, List<T> items, Function<T, String> versionProvider) {
+        long hash = 0;
+        for (T item : items) {
+            String version = versionProvider.apply(item);
+            if (version == null) {
+                return null;
+            }
+            // Summed so that the order of the items does not matter. The version already
+            // identifies the item, and unlike the item it is stable across queries.
+            hash += mix(version.hashCode());
+        }
+        String packageState = mIconProvider.getSystemStateForPackage("", packageName);
+        return mix(hash ^ ((long) packageState.hashCode() << 32 | items.size()));
+    }
+
+    /**
+     * Returns the version of the icon of an app activity, which changes with each install or
+     * update of its package.
+     */
+    @NonNull
+    public static String getActivityVersion(@NonNull LauncherActivityInfo info) {
+        return info.getComponentName().flattenToShortString()
+                + "," + info.getApplicationInfo().sourceDir
+                + "," + info.getActivityInfo().getIconResource();
+    }
+
+    /**
+     * Returns the version of the icon of a deep shortcut.
+     */
+    @NonNull
+    public static String getShortcutVersion(@NonNull ShortcutInfo info) {
+        return info.getId() + "," + info.getLastChangedTimestamp();
+    }
+
+    /**
+     * Returns the version of the icon of a widget or shortcut config activity, or null for other
+     * items.
+     */
+    @Nullable
+    public static String getWidgetVersion(@NonNull ComponentWithLabelAndIcon item) {
+        if (item instanceof AppWidgetProviderInfo) {
+            AppWidgetProviderInfo info = (AppWidgetProviderInfo) item;
+            // Custom widgets are provided by plugins and have no provider info
+            return info.providerInfo == null
+                    ? info.provider.flattenToShortString()
+                    : info.provider.flattenToShortString()
+                            + "," + info.providerInfo.applicationInfo.sourceDir;
+        }
+        if (item instanceof ShortcutConfigActivityInfoVO) {
+            return getActivityVersion(((ShortcutConfigActivityInfoVO) item).getActivityInfo());
+        }
+        return null;
+    }
+
+    /**
+     * Finalizer of the 64-bit MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void load() {
+        File file = new File(mContext.getFilesDir(), FILE_NAME);
+        mGlobalStateChanged = true;
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new AtomicFile(file).openRead())) {
+            if (in.readInt() != FILE_VERSION || !mGlobalState.equals(in.readUTF())) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                mSavedFingerprints.put(in.readUTF(),
+                        new Fingerprint(in.readLong(), in.readBoolean()));
+            }
+            mGlobalStateChanged = false;
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read icon cache fingerprints", e);
+            mSavedFingerprints.clear();
+        }
+        // Keep the fingerprints of the categories which are not updated by this load
+        mFingerprints.putAll(mSavedFingerprints);
+    }
+
+    private void save() {
+        AtomicFile file = new AtomicFile(new File(mContext.getFilesDir(), FILE_NAME));
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            DataOutputStream out = new DataOutputStream(fos);
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(mGlobalState);
+            out.writeInt(mFingerprints.size());
+            for (Map.Entry<String, Fingerprint> entry : mFingerprints.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().value);
+                out.writeBoolean(entry.getValue().confirmed);
+            }
+            out.flush();
+            file.finishWrite(fos);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to write icon cache fingerprints", e);
+            file.failWrite(fos);
+        }
+    }
+
+    /**
+     * A call to {@link #updateIcons} made before the update handler was created.
+     */
+    private static class SkippedPass<T> {
+
+        final HashMap<UserHandle, HashMap<String, ArrayList<T>>> itemsByUser;
+        final CachingLogic<T> cachingLogic;
+        final OnUpdateCallback onUpdateCallback;
+
+        SkippedPass(HashMap<UserHandle, HashMap<String, ArrayList<T>>> itemsByUser,
+                CachingLogic<T> cachingLogic, OnUpdateCallback onUpdateCallback) {
+            this.itemsByUser = itemsByUser;
+            this.cachingLogic = cachingLogic;
+            this.onUpdateCallback = onUpdateCallback;
+        }
+
+        /**
+         * Verifies the items of {@param users} and returns their count.
+         */
+        int replay(IconCacheUpdateHandler handler, Set<UserHandle> users) {
+            ArrayList<T> items = new ArrayList<>();
+            for (UserHandle user : users) {
+                HashMap<String, ArrayList<T>> itemsByPackage = itemsByUser.get(user);
+                if (itemsByPackage != null) {
+                    itemsByPackage.values().forEach(items::addAll);
+                }
+            }
+            if (!items.isEmpty()) {
+                handler.updateIcons(items, cachingLogic, onUpdateCallback);
+            }
+            return items.size();
+        }
+    }
+
+    private static class Fingerprint {
+
+        final long value;
+        // True if the same value was also found by the previous load
+        final boolean confirmed;
+
+        Fingerprint(long value, boolean confirmed) {
+            this.value = value;
+            this.confirmed = confirmed;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.logging;
+
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-process recorder for the spans of launcher startup and app launches.
+ *
+ * Spans are written to a fixed size ring buffer without taking any lock, so that recording is
+ * cheap enough for the startup path and can be done from any thread. The buffer can be dumped
+ * as a JSON trace which can be opened in Perfetto, and the total duration of the last launches
+ * of each kind is kept on disk to track percentiles across process restarts.
+ */
+public class LaunchTraceRecorder {
+
+    private static final String TAG = "LaunchTraceRecorder";
+
+    public static final LaunchTraceRecorder INSTANCE = new LaunchTraceRecorder();
+
+    public static final String LAUNCH_STARTUP = "startup";
+    public static final String LAUNCH_APP = "app_launch";
+
+    // Launch id of the spans which are not part of any launch
+    public static final int NO_LAUNCH = 0;
+
+    // Must be a power of two
+    private static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final String HISTORY_FILE_NAME = "launch_latency_history";
+    private static final int HISTORY_VERSION = 1;
+    private static final int HISTORY_SIZE = 50;
+
+    private final AtomicInteger mNextSpan = new AtomicInteger();
+    private final AtomicInteger mLaunchId = new AtomicInteger();
+
+    // Sequence of the span stored in each slot plus one, or 0 while the slot is being written
+    private final AtomicIntegerArray mSlotSequences = new AtomicIntegerArray(CAPACITY);
+    private final String[] mNames = new String[CAPACITY];
+    private final long[] mStartNanos = new long[CAPACITY];
+    private final long[] mEndNanos = new long[CAPACITY];
+    private final int[] mLaunchIds = new int[CAPACITY];
+    private final int[] mThreadIds = new int[CAPACITY];
+
+    // Durations in ms of the last launches keyed on the launch kind, guarded by itself
+    private final HashMap<String, ArrayDeque<Long>> mHistory = new HashMap<>();
+    private boolean mHistoryLoaded;
+
+    @VisibleForTesting
+    LaunchTraceRecorder() { }
+
+    /**
+     * Returns the current time in the time base used by the spans.
+     */
+    public static long now() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Starts a new launch, the spans recorded after this call are grouped under it.
+     */
+    public int beginLaunch() {
+        return mLaunchId.incrementAndGet();
+    }
+
+    /**
+     * Records a span from {@param startNanos} until now.
+     */
+    public void recordSpan(@NonNull String name, long startNanos) {
+        recordSpan(name, startNanos, now());
+    }
+
+    /**
+     * Records a span between the two provided times, see {@link #now()}.
+     */
+    public void recordSpan(@NonNull String name, long startNanos, long endNanos) {
+        recordSpan(name, startNanos, endNanos, mLaunchId.get());
+    }
+
+    /**
+     * Records a span from {@param startNanos} until now which is not grouped under the current
+     * launch, for work which can happen at any time after it.
+     */
+    public void recordSpanOutsideLaunch(@NonNull String name, long startNanos) {
+        recordSpan(name, startNanos, now(), NO_LAUNCH);
+    }
+
+    private void recordSpan(@NonNull String name, long startNanos, long endNanos, int launchId) {
+        int sequence = mNextSpan.getAndIncrement();
+        int slot = sequence & MASK;
+        mSlotSequences.set(slot, 0);
+        mNames[slot] = name;
+        mStartNanos[slot] = startNanos;
+        mEndNanos[slot] = endNanos;
+        mLaunchIds[slot] = launchId;
+        mThreadIds[slot] = Process.myTid();
+        // Publishes the fields written above
+        mSlotSequences.set(slot, sequence + 1);
+    }
+
+    /**
+     * Returns the spans currently in the buffer, oldest first. Spans which are being overwritten
+     * while reading are skipped.
+     */
+    @NonNull
+    public List<Span> getSpans() {
+        int end = mNextSpan.get();
+        ArrayList<Span> spans = new ArrayList<>();
+        for (int sequence = Math.max(0, end - CAPACITY); sequence < end; sequence++) {
+            int slot = sequence & MASK;
+            if (mSlotSequences.get(slot) != sequence + 1) {
+                continue;
+            }
+            Span span = new Span(mNames[slot], mStartNanos[slot], mEndNanos[slot],
+                    mLaunchIds[slot], mThreadIds[slot]);
+            if (mSlotSequences.get(slot) == sequence + 1) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * Records the total duration of a launch of the provided kind, and saves the launch history
+     * on a background thread.
+     */
+    public void finishLaunch(@NonNull Context context, @NonNull String kind, long durationNanos) {
+        Context appContext = context.getApplicationContext();
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        UI_HELPER_EXECUTOR.execute(() -> {
+            synchronized (mHistory) {
+                loadHistoryLocked(appContext);
+                ArrayDeque<Long> durations =
+                        mHistory.computeIfAbsent(kind, k -> new ArrayDeque<>());
+                durations.addLast(durationMs);
+                while (durations.size() > HISTORY_SIZE) {
+                    durations.removeFirst();
+                }
+                saveHistoryLocked(appContext);
+            }
+        });
+    }
+
+    private void loadHistoryLocked(Context context) {
+        if (mHistoryLoaded) {
+            return;
+        }
+        mHistoryLoaded = true;
+        File file = new File(context.getFilesDir(), HISTORY_FILE_NAME);
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new AtomicFile(file).openRead())) {
+            if (in.readInt() != HISTORY_VERSION) {
+                return;
+            }
+            int kindCount = in.readInt();
+            for (int i = 0; i < kindCount; i++) {
+                String kind = in.readUTF();
+                int count = in.readInt();
+                ArrayDeque<Long> durations = new ArrayDeque<>(count);
+                for (int j = 0; j < count; j++) {
+                    durations.addLast(in.readLong());
+                }
+                mHistory.put(kind, durations);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read launch history", e);
+            mHistory.clear();
+        }
+    }
+
+    private void saveHistoryLocked(Context context) {
+        AtomicFile file = new AtomicFile(new File(context.getFilesDir(), HISTORY_FILE_NAME));
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            DataOutputStream out = new DataOutputStream(fos);
+            out.writeInt(HISTORY_VERSION);
+            out.writeInt(mHistory.size());
+            for (Map.Entry<String, ArrayDeque<Long>> entry : mHistory.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (long duration : entry.getValue()) {
+                    out.writeLong(duration);
+                }
+            }
+            out.flush();
+            file.finishWrite(fos);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to write launch history", e);
+            file.failWrite(fos);
+        }
+    }
+
+    /**
+     * Returns the value at {@param percentile} of the sorted {@param values}, using the nearest
+     * rank method.
+     */
+    @VisibleForTesting
+    static long percentile(long[] sortedValues, int percentile) {
+        if (sortedValues.length == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(0, Math.min(sortedValues.length, rank) - 1)];
+    }
+
+    /**
+     * Writes the spans as a JSON trace in the Chrome trace event format, which Perfetto and
+     * chrome://tracing can open.
+     */
+    public void writeJsonTrace(@NonNull PrintWriter writer) {
+        int pid = Process.myPid();
+        writer.print("{\"traceEvents\":[");
+        List<Span> spans = getSpans();
+        for (int i = 0; i < spans.size(); i++) {
+            Span span = spans.get(i);
+            if (i > 0) {
+                writer.print(',');
+            }
+            writer.print("{\"name\":\"" + span.name.replace("\"", "\\\"")
+                    + "\",\"ph\":\"X\",\"ts\":" + TimeUnit.NANOSECONDS.toMicros(span.startNanos)
+                    + ",\"dur\":" + TimeUnit.NANOSECONDS.toMicros(span.getDurationNanos())
+                    + ",\"pid\":" + pid + ",\"tid\":" + span.threadId
+                    + ",\"args\":{\"launch\":" + span.launchId + "}}");
+        }
+        writer.println("]}");
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "LaunchTraceRecorder:");
+        synchronized (mHistory) {
+            for (Map.Entry<String, ArrayDeque<Long>> entry : mHistory.entrySet()) {
+                long[] durations = new long[entry.getValue().size()];
+                int i = 0;
+                for (long duration : entry.getValue()) {
+                    durations[i++] = duration;
+                }
+                Arrays.sort(durations);
+                writer.println(prefix + "  " + entry.getKey() + ": count=" + durations.length
+                        + " p50=" + percentile(durations, 50)
+                        + "ms p90=" + percentile(durations, 90)
+                        + "ms p99=" + percentile(durations, 99) + "ms");
+            }
+        }
+        int currentLaunch = mLaunchId.get();
+        for (Span span : getSpans()) {
+            if (span.launchId == currentLaunch) {
+                writer.println(prefix + "  " + span.name + ": "
+                        + TimeUnit.NANOSECONDS.toMillis(span.getDurationNanos()) + "ms"
+                        + " tid=" + span.threadId);
+            }
+        }
+    }
+
+    /**
+     * A recorded span.
+     */
+    public static class Span {
+
+        @NonNull
+        public final String name;
+        public final long startNanos;
+        public final long endNanos;
+        public final int launchId;
+        public final int threadId;
+
+        Span(@NonNull String name, long startNanos, long endNanos, int launchId, int threadId) {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.launchId = launchId;
+            this.threadId = threadId;
+        }
+
+        public long getDurationNanos() {
+            return endNanos - startNanos;
+        }
+    }
+}
@@ -40,11 +40,13 @@ import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.pm.PackageInstallInfo;
 import com.android.launcher3.util.FlagOp;
+import com.android.launcher3.util.LabelComparator;
 import com.android.launcher3.util.PackageManagerHelper;
 import com.android.launcher3.util.SafeCloseable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.function.Consumer;
@@ -76,6 +78,10 @@ public class AllAppsList {
     private TrustDatabaseHelper mTrustData;
 
     private AlphabeticIndexCompat mIndex;
+    // Used to compute sort keys, recreated along with mIndex as locales might have changed
+    private LabelComparator mLabelComparator = new LabelComparator();
+    // Sort keys for the section names, there are only a few distinct sections
+    private final HashMap<String, byte[]> mSectionSortKeys = new HashMap<>();
 
     /**
      * @see Callbacks#FLAG_HAS_SHORTCUT_PERMISSION
@@ -152,7 +158,7 @@ public class AllAppsList {
         }
         if (loadIcon) {
             mIconCache.getTitleAndIcon(info, activityInfo, false /* useLowResIcon */);
-            info.sectionName = mIndex.computeSectionName(info.title);
+            updateSectionName(info);
         } else {
             info.title = "";
         }
@@ -178,7 +184,7 @@ public class AllAppsList {
 
         if (loadIcon) {
             mIconCache.getTitleAndIcon(promiseAppInfo, promiseAppInfo.usingLowResIcon());
-            promiseAppInfo.sectionName = mIndex.computeSectionName(promiseAppInfo.title);
+            updateSectionName(promiseAppInfo);
         } else {
             promiseAppInfo.title = "";
         }
@@ -189,9 +195,16 @@ public class AllAppsList {
         return promiseAppInfo;
     }
 
+    /**
+     * Updates the section name and sort keys of {@param appInfo}, should be called whenever its
+     * title changes.
+     */
     public void updateSectionName(AppInfo appInfo) {
         appInfo.sectionName = mIndex.computeSectionName(appInfo.title);
-
+        appInfo.sortKey = mLabelComparator.getSortKey(
+                appInfo.title == null ? "" : appInfo.title.toString());
+        appInfo.sectionSortKey = mSectionSortKeys.computeIfAbsent(
+                appInfo.sectionName, mLabelComparator::getSortKey);
     }
 
     /** Updates the given PackageInstallInfo's associated AppInfo's installation info. */
@@ -234,6 +247,8 @@ public class AllAppsList {
         mDataChanged = false;
         // Reset the index as locales might have changed
         mIndex = new AlphabeticIndexCompat(LocaleList.getDefault());
+        mLabelComparator = new LabelComparator();
+        mSectionSortKeys.clear();
     }
 
     /**
@@ -282,7 +297,7 @@ public class AllAppsList {
         for (AppInfo info : data) {
             if (info.user.equals(user) && packages.contains(info.componentName.getPackageName())) {
                 mIconCache.updateTitleAndIcon(info);
-                info.sectionName = mIndex.computeSectionName(info.title);
+                updateSectionName(info);
                 mDataChanged = true;
             }
         }
@@ -319,7 +334,7 @@ public class AllAppsList {
                     Intent launchIntent = AppInfo.makeLaunchIntent(info);
 
                     mIconCache.getTitleAndIcon(applicationInfo, info, false /* useLowResIcon */);
-                    applicationInfo.sectionName = mIndex.computeSectionName(applicationInfo.title);
+                    updateSectionName(applicationInfo);
                     applicationInfo.setProgressLevel(
                             PackageManagerHelper.getLoadingProgress(info),
                             PackageInstallInfo.STATUS_INSTALLED_DOWNLOADING);
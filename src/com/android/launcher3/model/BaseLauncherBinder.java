@@ -29,12 +29,14 @@ import com.android.launcher3.LauncherModel.CallbackTask;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.Workspace;
 import com.android.launcher3.config.FeatureFlags;
+import com.android.launcher3.logging.LaunchTraceRecorder;
 import com.android.launcher3.model.BgDataModel.Callbacks;
 import com.android.launcher3.model.BgDataModel.FixedContainerItems;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.LauncherAppWidgetInfo;
 import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.IntHashSet;
 import com.android.launcher3.util.IntSet;
 import com.android.launcher3.util.LooperExecutor;
 import com.android.launcher3.util.LooperIdleLock;
@@ -44,11 +46,9 @@ import com.android.launcher3.util.RunnableList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
@@ -258,6 +258,7 @@ public abstract class BaseLauncherBinder {
         }
 
         private void bind(boolean isBindSync, int workspaceItemCount) {
+            final long bindStartNanos = LaunchTraceRecorder.now();
             final IntSet currentScreenIds =
                     mCallbacks.getPagesToBindSynchronously(mOrderedScreenIds);
             Objects.requireNonNull(currentScreenIds, "Null screen ids provided by " + mCallbacks);
@@ -300,6 +301,7 @@ public abstract class BaseLauncherBinder {
             executeCallbacksTask(c -> c.finishBindingItems(currentScreenIds), pendingExecutor);
             pendingExecutor.execute(
                     () -> {
+                        LaunchTraceRecorder.INSTANCE.recordSpan("bindOtherPages", bindStartNanos);
                         MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
                         ItemInstallQueue.INSTANCE.get(mApp.getContext())
                                 .resumeModelPush(FLAG_LOADER_RUNNING);
@@ -307,6 +309,8 @@ public abstract class BaseLauncherBinder {
 
             executeCallbacksTask(
                     c -> {
+                        LaunchTraceRecorder.INSTANCE.recordSpan(
+                                "bindCurrentPages", bindStartNanos);
                         MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
                         c.onInitialBindComplete(
                                 currentScreenIds, pendingTasks, workspaceItemCount, isBindSync);
@@ -353,7 +357,7 @@ public abstract class BaseLauncherBinder {
     private class DisjointWorkspaceBinder {
         private final IntArray mOrderedScreenIds;
         private final IntSet mCurrentScreenIds = new IntSet();
-        private final Set<Integer> mBoundItemIds = new HashSet<>();
+        private final IntHashSet mBoundItemIds = new IntHashSet();
 
         protected DisjointWorkspaceBinder(IntArray orderedScreenIds) {
             mOrderedScreenIds = orderedScreenIds;
@@ -375,6 +379,7 @@ public abstract class BaseLauncherBinder {
          * not bind any items.
          */
         protected void bindCurrentWorkspacePages(boolean isBindSync) {
+            final long bindStartNanos = LaunchTraceRecorder.now();
             // Save a copy of all the bg-thread collections
             ArrayList<ItemInfo> workspaceItems;
             ArrayList<LauncherAppWidgetInfo> appWidgets;
@@ -410,6 +415,7 @@ public abstract class BaseLauncherBinder {
             bindWorkspaceItems(workspaceItems);
             bindAppWidgets(appWidgets);
             executeCallbacksTask(c -> {
+                LaunchTraceRecorder.INSTANCE.recordSpan("bindCurrentPages", bindStartNanos);
                 MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
                 c.onInitialBindComplete(
                         mCurrentScreenIds, new RunnableList(), workspaceItemCount, isBindSync);
@@ -417,6 +423,7 @@ public abstract class BaseLauncherBinder {
         }
 
         protected void bindOtherWorkspacePages() {
+            final long bindStartNanos = LaunchTraceRecorder.now();
             // Save a copy of all the bg-thread collections
             ArrayList<ItemInfo> workspaceItems;
             ArrayList<LauncherAppWidgetInfo> appWidgets;
@@ -436,6 +443,7 @@ public abstract class BaseLauncherBinder {
 
             executeCallbacksTask(c -> c.finishBindingItems(mCurrentScreenIds), mUiExecutor);
             mUiExecutor.execute(() -> {
+                LaunchTraceRecorder.INSTANCE.recordSpan("bindOtherPages", bindStartNanos);
                 MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
                 ItemInstallQueue.INSTANCE.get(mApp.getContext())
                         .resumeModelPush(FLAG_LOADER_RUNNING);
@@ -51,6 +51,7 @@ import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.IntSet;
 import com.android.launcher3.util.IntSparseArrayMap;
+import com.android.launcher3.util.ObjectIntHashMap;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.RunnableList;
 import com.android.launcher3.widget.model.WidgetsListBaseEntry;
@@ -62,7 +63,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -108,7 +108,14 @@ public class BgDataModel {
     /**
      * Maps all launcher activities to counts of their shortcuts.
      */
-    public final HashMap<ComponentKey, Integer> deepShortcutMap = new HashMap<>();
+    public final ObjectIntHashMap<ComponentKey> deepShortcutMap = new ObjectIntHashMap<>();
+
+    /**
+     * The shortcut counts of {@link #deepShortcutMap} grouped by package, so that the counts can
+     * be updated one package at a time.
+     */
+    private final HashMap<PackageUserKey, ObjectIntHashMap<ComponentKey>> mDeepShortcutCounts =
+            new HashMap<>();
 
     /**
      * Entire list of widgets.
@@ -134,6 +141,7 @@ public class BgDataModel {
         folders.clear();
         itemsIdMap.clear();
         deepShortcutMap.clear();
+        mDeepShortcutCounts.clear();
         extraItems.clear();
     }
 
@@ -175,9 +183,7 @@ public class BgDataModel {
 
         if (args.length > 0 && TextUtils.equals(args[0], "--all")) {
             writer.println(prefix + "shortcut counts ");
-            for (Integer count : deepShortcutMap.values()) {
-                writer.print(count + ", ");
-            }
+            deepShortcutMap.forEach((key, count) -> writer.print(count + ", "));
             writer.println();
         }
     }
@@ -278,8 +284,14 @@ public class BgDataModel {
      * shortcuts and unpinning any extra shortcuts.
      */
     public void updateShortcutPinnedState(Context context) {
-        for (UserHandle user : UserCache.INSTANCE.get(context).getUserProfiles()) {
-            updateShortcutPinnedState(context, user);
+        if (GO_DISABLE_WIDGETS) {
+            return;
+        }
+        List<UserHandle> users = UserCache.INSTANCE.get(context).getUserProfiles();
+        List<QueryResult> results = ShortcutRequest.queryForUsers(
+                context, users, PINNED | FLAG_GET_KEY_FIELDS_ONLY);
+        for (int i = 0; i < users.size(); i++) {
+            updateShortcutPinnedState(context, users.get(i), results.get(i));
         }
     }
 
@@ -287,14 +299,20 @@ public class BgDataModel {
      * Updates the deep shortucts state in system to match out internal model, pinning any missing
      * shortcuts and unpinning any extra shortcuts.
      */
-    public synchronized void updateShortcutPinnedState(Context context, UserHandle user) {
+    public void updateShortcutPinnedState(Context context, UserHandle user) {
         if (GO_DISABLE_WIDGETS) {
             return;
         }
+        updateShortcutPinnedState(context, user, new ShortcutRequest(context, user)
+                .query(PINNED | FLAG_GET_KEY_FIELDS_ONLY));
+    }
 
-        // Collect all system shortcuts
-        QueryResult result = new ShortcutRequest(context, user)
-                .query(PINNED | FLAG_GET_KEY_FIELDS_ONLY);
+    /**
+     * Updates the deep shortcuts state in system for {@param user}, where {@param result} is the
+     * list of shortcuts currently pinned in the system.
+     */
+    private void updateShortcutPinnedState(
+            Context context, UserHandle user, QueryResult result) {
         if (!result.wasSuccess()) {
             return;
         }
@@ -303,19 +321,23 @@ public class BgDataModel {
                 .collect(groupingBy(ShortcutInfo::getPackage,
                         mapping(ShortcutInfo::getId, Collectors.toSet())));
 
-        // Collect all model shortcuts
-        Stream.Builder<WorkspaceItemInfo> itemStream = Stream.builder();
-        forAllWorkspaceItemInfos(user, itemStream::accept);
-        // Map of packageName to shortcutIds that are currently in our model
-        Map<String, Set<String>> modelMap = Stream.concat(
-                    // Model shortcuts
-                    itemStream.build()
-                        .filter(wi -> wi.itemType == Favorites.ITEM_TYPE_DEEP_SHORTCUT)
-                        .map(ShortcutKey::fromItemInfo),
-                    // Pending shortcuts
-                    ItemInstallQueue.INSTANCE.get(context).getPendingShortcuts(user))
-                .collect(groupingBy(ShortcutKey::getPackageName,
-                        mapping(ShortcutKey::getId, Collectors.toSet())));
+        // Map of packageName to shortcutIds that are currently in our model. Only this needs the
+        // lock, the calls to the system below are made without blocking other model readers.
+        Map<String, Set<String>> modelMap;
+        synchronized (this) {
+            // Collect all model shortcuts
+            Stream.Builder<WorkspaceItemInfo> itemStream = Stream.builder();
+            forAllWorkspaceItemInfos(user, itemStream::accept);
+            modelMap = Stream.concat(
+                        // Model shortcuts
+                        itemStream.build()
+                            .filter(wi -> wi.itemType == Favorites.ITEM_TYPE_DEEP_SHORTCUT)
+                            .map(ShortcutKey::fromItemInfo),
+                        // Pending shortcuts
+                        ItemInstallQueue.INSTANCE.get(context).getPendingShortcuts(user))
+                    .collect(groupingBy(ShortcutKey::getPackageName,
+                            mapping(ShortcutKey::getId, Collectors.toSet())));
+        }
 
         // Check for diff
         for (Map.Entry<String, Set<String>> entry : modelMap.entrySet()) {
@@ -366,22 +388,15 @@ public class BgDataModel {
     }
 
     /**
-     * Clear all the deep shortcut counts for the given package, and re-add the new shortcut counts.
+     * Replaces the deep shortcut counts of the given package with the counts of {@param shortcuts},
+     * or the counts of all the packages of {@param user} if {@param packageName} is null. Only the
+     * packages whose counts differ are updated.
+     *
+     * @return true if any of the counts changed
      */
-    public synchronized void updateDeepShortcutCounts(
-            String packageName, UserHandle user, List<ShortcutInfo> shortcuts) {
-        if (packageName != null) {
-            Iterator<ComponentKey> keysIter = deepShortcutMap.keySet().iterator();
-            while (keysIter.hasNext()) {
-                ComponentKey next = keysIter.next();
-                if (next.componentName.getPackageName().equals(packageName)
-                        && next.user.equals(user)) {
-                    keysIter.remove();
-                }
-            }
-        }
-
-        // Now add the new shortcuts to the map.
+    public synchronized boolean updateDeepShortcutCounts(
+            @Nullable String packageName, UserHandle user, List<ShortcutInfo> shortcuts) {
+        HashMap<PackageUserKey, ObjectIntHashMap<ComponentKey>> newCounts = new HashMap<>();
         for (ShortcutInfo shortcut : shortcuts) {
             boolean shouldShowInContainer = shortcut.isEnabled()
                     && (shortcut.isDeclaredInManifest() || shortcut.isDynamic())
@@ -389,11 +404,63 @@ public class BgDataModel {
             if (shouldShowInContainer) {
                 ComponentKey targetComponent
                         = new ComponentKey(shortcut.getActivity(), shortcut.getUserHandle());
+                newCounts.computeIfAbsent(
+                        new PackageUserKey(shortcut.getPackage(), shortcut.getUserHandle()),
+                        k -> new ObjectIntHashMap<>()).increment(targetComponent, 1);
+            }
+        }
 
-                Integer previousCount = deepShortcutMap.get(targetComponent);
-                deepShortcutMap.put(targetComponent, previousCount == null ? 1 : previousCount + 1);
+        boolean changed = false;
+        if (packageName != null) {
+            PackageUserKey key = new PackageUserKey(packageName, user);
+            changed = setDeepShortcutCounts(key, newCounts.remove(key));
+        } else {
+            // Clear the packages of the user which no longer have any shortcut
+            ArrayList<PackageUserKey> removedPackages = new ArrayList<>();
+            for (PackageUserKey key : mDeepShortcutCounts.keySet()) {
+                if (key.mUser.equals(user) && !newCounts.containsKey(key)) {
+                    removedPackages.add(key);
+                }
+            }
+            for (PackageUserKey key : removedPackages) {
+                changed |= setDeepShortcutCounts(key, null);
             }
         }
+        for (Map.Entry<PackageUserKey, ObjectIntHashMap<ComponentKey>> entry
+                : newCounts.entrySet()) {
+            changed |= setDeepShortcutCounts(entry.getKey(), entry.getValue());
+        }
+        return changed;
+    }
+
+    /**
+     * Clears the deep shortcut counts of all the packages of {@param user}.
+     *
+     * @return true if any of the counts changed
+     */
+    public synchronized boolean clearDeepShortcutCounts(UserHandle user) {
+        return updateDeepShortcutCounts(null, user, Collections.emptyList());
+    }
+
+    /**
+     * Sets the shortcut counts of the activities of the package {@param key}, and returns true if
+     * they changed.
+     */
+    private boolean setDeepShortcutCounts(
+            PackageUserKey key, @Nullable ObjectIntHashMap<ComponentKey> counts) {
+        ObjectIntHashMap<ComponentKey> oldCounts = counts == null
+                ? mDeepShortcutCounts.remove(key)
+                : mDeepShortcutCounts.put(key, counts);
+        if (oldCounts == null ? counts == null : oldCounts.equals(counts)) {
+            return false;
+        }
+        if (oldCounts != null) {
+            oldCounts.forEach((component, count) -> deepShortcutMap.remove(component));
+        }
+        if (counts != null) {
+            counts.forEach(deepShortcutMap::put);
+        }
+        return true;
     }
 
     /**
@@ -493,7 +560,7 @@ public class BgDataModel {
             pendingTasks.executeAllAndDestroy();
         }
 
-        default void bindDeepShortcutMap(HashMap<ComponentKey, Integer> deepShortcutMap) { }
+        default void bindDeepShortcutMap(ObjectIntHashMap<ComponentKey> deepShortcutMap) { }
 
         /**
          * Binds extra item provided any external source
@@ -28,8 +28,8 @@ import android.content.Intent;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
-import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.graphics.Point;
 import android.util.ArrayMap;
 import android.util.Log;
@@ -43,7 +43,6 @@ import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.pm.InstallSessionHelper;
 import com.android.launcher3.provider.LauncherDbUtils.SQLiteTransaction;
-import com.android.launcher3.util.GridOccupancy;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.MainThreadInitializedObject.SandboxContext;
 import com.android.launcher3.widget.LauncherAppWidgetProviderInfo;
@@ -148,6 +147,7 @@ public class GridSizeMigrationUtil {
             @NonNull final DeviceGridState srcDeviceState,
             @NonNull final DeviceGridState destDeviceState) {
 
+        final long startTime = System.currentTimeMillis();
         final List<DbEntry> srcHotseatItems = srcReader.loadHotseatEntries();
         final List<DbEntry> srcWorkspaceItems = srcReader.loadAllWorkspaceEntries();
         final List<DbEntry> dstHotseatItems = destReader.loadHotseatEntries();
@@ -155,9 +155,11 @@ public class GridSizeMigrationUtil {
         final List<DbEntry> hotseatToBeAdded = new ArrayList<>(1);
         final List<DbEntry> workspaceToBeAdded = new ArrayList<>(1);
         final IntArray toBeRemoved = new IntArray();
+        final long readEndTime = System.currentTimeMillis();
 
         calcDiff(srcHotseatItems, dstHotseatItems, hotseatToBeAdded, toBeRemoved);
         calcDiff(srcWorkspaceItems, dstWorkspaceItems, workspaceToBeAdded, toBeRemoved);
+        final long diffEndTime = System.currentTimeMillis();
 
         final int trgX = targetSize.x;
         final int trgY = targetSize.y;
@@ -192,45 +194,65 @@ public class GridSizeMigrationUtil {
         // Sort the items by the reading order.
         Collections.sort(hotseatToBeAdded);
         Collections.sort(workspaceToBeAdded);
+        final int hotseatAddCount = hotseatToBeAdded.size();
+        final int workspaceAddCount = workspaceToBeAdded.size();
+
+        final EntryWriter writer =
+                new EntryWriter(helper, srcReader.mTableName, destReader.mTableName);
+        try (SQLiteTransaction t = new SQLiteTransaction(helper.getWritableDatabase())) {
+            // Migrate hotseat
+            solveHotseatPlacement(writer, destHotseatSize, dstHotseatItems, hotseatToBeAdded);
+
+            // Migrate workspace.
+            // First we create a collection of the screens
+            List<Integer> screens = new ArrayList<>();
+            for (int screenId = 0; screenId <= destReader.mLastScreenId; screenId++) {
+                screens.add(screenId);
+            }
 
-        // Migrate hotseat
-        solveHotseatPlacement(helper, destHotseatSize,
-                srcReader, destReader, dstHotseatItems, hotseatToBeAdded);
-
-        // Migrate workspace.
-        // First we create a collection of the screens
-        List<Integer> screens = new ArrayList<>();
-        for (int screenId = 0; screenId <= destReader.mLastScreenId; screenId++) {
-            screens.add(screenId);
-        }
-
-        boolean preservePages = false;
-        if (screens.isEmpty() && FeatureFlags.ENABLE_NEW_MIGRATION_LOGIC.get()) {
-            preservePages = destDeviceState.compareTo(srcDeviceState) >= 0
-                    && destDeviceState.getColumns() - srcDeviceState.getColumns() <= 2;
-        }
-
-        // Then we place the items on the screens
-        for (int screenId : screens) {
-            if (DEBUG) {
-                Log.d(TAG, "Migrating " + screenId);
+            boolean preservePages = false;
+            if (screens.isEmpty() && FeatureFlags.ENABLE_NEW_MIGRATION_LOGIC.get()) {
+                preservePages = destDeviceState.compareTo(srcDeviceState) >= 0
+                        && destDeviceState.getColumns() - srcDeviceState.getColumns() <= 2;
             }
-            solveGridPlacement(context, helper, srcReader,
-                    destReader, screenId, trgX, trgY, workspaceToBeAdded, false);
-            if (workspaceToBeAdded.isEmpty()) {
-                break;
+
+            // Then we place the items on the screens
+            for (int screenId : screens) {
+                if (DEBUG) {
+                    Log.d(TAG, "Migrating " + screenId + ", "
+                            + workspaceToBeAdded.size() + " items remaining");
+                }
+                solveGridPlacement(context, writer, destReader, screenId, trgX, trgY,
+                        workspaceToBeAdded, false);
+                if (workspaceToBeAdded.isEmpty()) {
+                    break;
+                }
             }
-        }
 
-        // In case the new grid is smaller, there might be some leftover items that don't fit on
-        // any of the screens, in this case we add them to new screens until all of them are placed.
-        int screenId = destReader.mLastScreenId + 1;
-        while (!workspaceToBeAdded.isEmpty()) {
-            solveGridPlacement(context, helper, srcReader,
-                    destReader, screenId, trgX, trgY, workspaceToBeAdded, preservePages);
-            screenId++;
+            // In case the new grid is smaller, there might be some leftover items that don't fit
+            // on any of the screens, in this case we add them to new screens until all of them
+            // are placed.
+            int screenId = destReader.mLastScreenId + 1;
+            while (!workspaceToBeAdded.isEmpty()) {
+                if (DEBUG) {
+                    Log.d(TAG, "Migrating " + screenId + ", "
+                            + workspaceToBeAdded.size() + " items remaining");
+                }
+                solveGridPlacement(context, writer, destReader, screenId, trgX, trgY,
+                        workspaceToBeAdded, preservePages);
+                screenId++;
+            }
+            t.commit();
+        } finally {
+            writer.close();
         }
 
+        Log.i(TAG, "Migrated " + hotseatAddCount + " hotseat and " + workspaceAddCount
+                + " workspace items (" + writer.mInsertCount + " rows), removed "
+                + toBeRemoved.size() + " rows in " + (System.currentTimeMillis() - startTime)
+                + "ms: read " + (readEndTime - startTime)
+                + "ms, diff " + (diffEndTime - readEndTime)
+                + "ms, placement " + (System.currentTimeMillis() - diffEndTime) + "ms");
         return true;
     }
 
@@ -243,13 +265,18 @@ public class GridSizeMigrationUtil {
     private static void calcDiff(@NonNull final List<DbEntry> src,
             @NonNull final List<DbEntry> dest, @NonNull final List<DbEntry> toBeAdded,
             @NonNull final IntArray toBeRemoved) {
+        final Set<String> srcIds = new HashSet<>(src.size());
+        src.forEach(entry -> srcIds.add(entry.getEntryMigrationId()));
+        final Set<String> destIds = new HashSet<>(dest.size());
+        dest.forEach(entry -> destIds.add(entry.getEntryMigrationId()));
+
         src.forEach(entry -> {
-            if (!dest.contains(entry)) {
+            if (!destIds.contains(entry.getEntryMigrationId())) {
                 toBeAdded.add(entry);
             }
         });
         dest.forEach(entry -> {
-            if (!src.contains(entry)) {
+            if (!srcIds.contains(entry.getEntryMigrationId())) {
                 toBeRemoved.add(entry.id);
                 if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
                     entry.mFolderItems.values().forEach(ids -> ids.forEach(toBeRemoved::add));
@@ -258,51 +285,6 @@ public class GridSizeMigrationUtil {
         });
     }
 
-    private static void insertEntryInDb(DatabaseHelper helper, DbEntry entry,
-            String srcTableName, String destTableName) {
-        int id = copyEntryAndUpdate(helper, entry, srcTableName, destTableName);
-
-        if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
-            for (Set<Integer> itemIds : entry.mFolderItems.values()) {
-                for (int itemId : itemIds) {
-                    copyEntryAndUpdate(helper, itemId, id, srcTableName, destTableName);
-                }
-            }
-        }
-    }
-
-    private static int copyEntryAndUpdate(DatabaseHelper helper,
-            DbEntry entry, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(helper, entry, -1, -1, srcTableName, destTableName);
-    }
-
-    private static int copyEntryAndUpdate(DatabaseHelper helper,
-            int id, int folderId, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(helper, null, id, folderId, srcTableName, destTableName);
-    }
-
-    private static int copyEntryAndUpdate(DatabaseHelper helper, DbEntry entry,
-            int id, int folderId, String srcTableName, String destTableName) {
-        int newId = -1;
-        Cursor c = helper.getWritableDatabase().query(srcTableName, null,
-                LauncherSettings.Favorites._ID + " = '" + (entry != null ? entry.id : id) + "'",
-                null, null, null, null);
-        while (c.moveToNext()) {
-            ContentValues values = new ContentValues();
-            DatabaseUtils.cursorRowToContentValues(c, values);
-            if (entry != null) {
-                entry.updateContentValues(values);
-            } else {
-                values.put(LauncherSettings.Favorites.CONTAINER, folderId);
-            }
-            newId = helper.generateNewItemId();
-            values.put(LauncherSettings.Favorites._ID, newId);
-            helper.getWritableDatabase().insert(destTableName, null, values);
-        }
-        c.close();
-        return newId;
-    }
-
     private static void removeEntryFromDb(SQLiteDatabase db, String tableName, IntArray entryIds) {
         db.delete(tableName,
                 Utilities.createDbSelectionQuery(LauncherSettings.Favorites._ID, entryIds), null);
@@ -325,18 +307,18 @@ public class GridSizeMigrationUtil {
         return validPackages;
     }
 
-    private static void solveGridPlacement(@NonNull Context context, @NonNull final DatabaseHelper helper,
-            @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
+    private static void solveGridPlacement(@NonNull Context context,
+            @NonNull final EntryWriter writer, @NonNull final DbReader destReader,
             final int screenId, final int trgX, final int trgY,
             @NonNull final List<DbEntry> sortedItemsToPlace, final boolean matchingScreenIdOnly) {
-        final GridOccupancy occupied = new GridOccupancy(trgX, trgY);
+        final GridBitmask occupied = new GridBitmask(trgX, trgY);
         final Point trg = new Point(trgX, trgY);
         final Point next = new Point(0, screenId == 0 && Utilities.showQuickspace(context)
                 ? 1 /* smartspace */ : 0);
         List<DbEntry> existedEntries = destReader.mWorkspaceEntriesByScreenId.get(screenId);
         if (existedEntries != null) {
             for (DbEntry entry : existedEntries) {
-                occupied.markCells(entry, true);
+                occupied.markCells(entry.cellX, entry.cellY, entry.spanX, entry.spanY);
             }
         }
         Iterator<DbEntry> iterator = sortedItemsToPlace.iterator();
@@ -349,7 +331,7 @@ public class GridSizeMigrationUtil {
                 continue;
             }
             if (findPlacementForEntry(entry, next, trg, occupied, screenId)) {
-                insertEntryInDb(helper, entry, srcReader.mTableName, destReader.mTableName);
+                writer.insertEntry(entry);
                 iterator.remove();
             }
         }
@@ -362,7 +344,7 @@ public class GridSizeMigrationUtil {
      */
     private static boolean findPlacementForEntry(@NonNull final DbEntry entry,
             @NonNull final Point next, @NonNull final Point trg,
-            @NonNull final GridOccupancy occupied, final int screenId) {
+            @NonNull final GridBitmask occupied, final int screenId) {
         for (int y = next.y; y <  trg.y; y++) {
             for (int x = next.x; x < trg.x; x++) {
                 boolean fits = occupied.isRegionVacant(x, y, entry.spanX, entry.spanY);
@@ -376,7 +358,7 @@ public class GridSizeMigrationUtil {
                     entry.screenId = screenId;
                     entry.cellX = x;
                     entry.cellY = y;
-                    occupied.markCells(entry, true);
+                    occupied.markCells(x, y, entry.spanX, entry.spanY);
                     next.set(x + entry.spanX, y);
                     return true;
                 }
@@ -387,8 +369,7 @@ public class GridSizeMigrationUtil {
     }
 
     private static void solveHotseatPlacement(
-            @NonNull final DatabaseHelper helper, final int hotseatSize,
-            @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
+            @NonNull final EntryWriter writer, final int hotseatSize,
             @NonNull final  List<DbEntry> placedHotseatItems,
             @NonNull final List<DbEntry> itemsToPlace) {
 
@@ -405,12 +386,170 @@ public class GridSizeMigrationUtil {
                 // to something other than -1.
                 entry.cellX = i;
                 entry.cellY = 0;
-                insertEntryInDb(helper, entry, srcReader.mTableName, destReader.mTableName);
+                writer.insertEntry(entry);
                 occupied[entry.screenId] = true;
             }
         }
     }
 
+    /**
+     * Occupancy of a grid stored as one bitmask per row, so that checking if a region is vacant
+     * only takes one operation per row instead of one per cell.
+     */
+    private static class GridBitmask {
+
+        private final int mCountX;
+        private final int mCountY;
+        private final long[] mRows;
+
+        GridBitmask(int countX, int countY) {
+            if (countX > Long.SIZE) {
+                throw new IllegalArgumentException("Unsupported grid width " + countX);
+            }
+            mCountX = countX;
+            mCountY = countY;
+            mRows = new long[countY];
+        }
+
+        boolean isRegionVacant(int x, int y, int spanX, int spanY) {
+            if (x < 0 || y < 0 || x + spanX > mCountX || y + spanY > mCountY) {
+                return false;
+            }
+            long mask = getRowMask(x, spanX);
+            for (int j = y; j < y + spanY; j++) {
+                if ((mRows[j] & mask) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void markCells(int cellX, int cellY, int spanX, int spanY) {
+            if (cellX < 0 || cellY < 0) return;
+            int endX = Math.min(cellX + spanX, mCountX);
+            if (endX <= cellX) return;
+            long mask = getRowMask(cellX, endX - cellX);
+            for (int y = cellY; y < cellY + spanY && y < mCountY; y++) {
+                mRows[y] |= mask;
+            }
+        }
+
+        private static long getRowMask(int x, int spanX) {
+            return (spanX >= Long.SIZE ? -1L : (1L << spanX) - 1) << x;
+        }
+    }
+
+    /**
+     * Copies entries from the source table into the destination table with a single compiled
+     * {@code INSERT ... SELECT} statement, overriding the position of the copied rows. This
+     * avoids reading every row back into {@link ContentValues} before inserting it.
+     */
+    private static class EntryWriter implements AutoCloseable {
+
+        private static final int BIND_ID = 1;
+        private static final int BIND_CONTAINER = 2;
+        private static final int BIND_SCREEN = 3;
+        private static final int BIND_CELLX = 4;
+        private static final int BIND_CELLY = 5;
+        private static final int BIND_SPANX = 6;
+        private static final int BIND_SPANY = 7;
+        private static final int BIND_SRC_ID = 8;
+
+        private final DatabaseHelper mHelper;
+        private final SQLiteStatement mInsert;
+        private int mInsertCount;
+
+        EntryWriter(DatabaseHelper helper, String srcTableName, String destTableName) {
+            mHelper = helper;
+            SQLiteDatabase db = helper.getWritableDatabase();
+            StringBuilder columns = new StringBuilder();
+            StringBuilder values = new StringBuilder();
+            try (Cursor c = db.rawQuery("PRAGMA table_info(" + srcTableName + ")", null)) {
+                final int indexName = c.getColumnIndexOrThrow("name");
+                while (c.moveToNext()) {
+                    String column = c.getString(indexName);
+                    if (columns.length() > 0) {
+                        columns.append(", ");
+                        values.append(", ");
+                    }
+                    columns.append('"').append(column).append('"');
+                    values.append(getColumnValue(column));
+                }
+            }
+            mInsert = db.compileStatement("INSERT INTO " + destTableName + " (" + columns
+                    + ") SELECT " + values + " FROM " + srcTableName
+                    + " WHERE " + LauncherSettings.Favorites._ID + " = ?" + BIND_SRC_ID);
+        }
+
+        /**
+         * Returns the value copied into {@param column}: the id is always replaced, the position
+         * is only replaced when the corresponding argument is bound.
+         */
+        private static String getColumnValue(String column) {
+            switch (column) {
+                case LauncherSettings.Favorites._ID:
+                    return "?" + BIND_ID;
+                case LauncherSettings.Favorites.CONTAINER:
+                    return coalesce(BIND_CONTAINER, column);
+                case LauncherSettings.Favorites.SCREEN:
+                    return coalesce(BIND_SCREEN, column);
+                case LauncherSettings.Favorites.CELLX:
+                    return coalesce(BIND_CELLX, column);
+                case LauncherSettings.Favorites.CELLY:
+                    return coalesce(BIND_CELLY, column);
+                case LauncherSettings.Favorites.SPANX:
+                    return coalesce(BIND_SPANX, column);
+                case LauncherSettings.Favorites.SPANY:
+                    return coalesce(BIND_SPANY, column);
+                default:
+                    return '"' + column + '"';
+            }
+        }
+
+        private static String coalesce(int bindIndex, String column) {
+            return "COALESCE(?" + bindIndex + ", \"" + column + "\")";
+        }
+
+        /**
+         * Copies {@param entry} at its new position, along with its folder items if any.
+         */
+        void insertEntry(DbEntry entry) {
+            mInsert.clearBindings();
+            mInsert.bindLong(BIND_SCREEN, entry.screenId);
+            mInsert.bindLong(BIND_CELLX, entry.cellX);
+            mInsert.bindLong(BIND_CELLY, entry.cellY);
+            mInsert.bindLong(BIND_SPANX, entry.spanX);
+            mInsert.bindLong(BIND_SPANY, entry.spanY);
+            int id = copyRow(entry.id);
+
+            if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
+                mInsert.clearBindings();
+                mInsert.bindLong(BIND_CONTAINER, id);
+                for (Set<Integer> itemIds : entry.mFolderItems.values()) {
+                    for (int itemId : itemIds) {
+                        copyRow(itemId);
+                    }
+                }
+            }
+        }
+
+        private int copyRow(int srcId) {
+            int newId = mHelper.generateNewItemId();
+            mInsert.bindLong(BIND_ID, newId);
+            mInsert.bindLong(BIND_SRC_ID, srcId);
+            if (mInsert.executeInsert() < 0) {
+                return -1;
+            }
+            mInsertCount++;
+            return newId;
+        }
+
+        @Override
+        public void close() {
+            mInsert.close();
+        }
+    }
+
     protected static class DbReader {
 
         private final SQLiteDatabase mDb;
@@ -644,6 +783,8 @@ public class GridSizeMigrationUtil {
         private String mIntent;
         private String mProvider;
         private Map<String, Set<Integer>> mFolderItems = new HashMap<>();
+        // Cached as computing it requires parsing the intents
+        private String mMigrationId;
 
         /** Comparator according to the reading order */
         @Override
@@ -683,6 +824,13 @@ public class GridSizeMigrationUtil {
          * migration id even thought they have different database ids.
          */
         public String getEntryMigrationId() {
+            if (mMigrationId == null) {
+                mMigrationId = computeEntryMigrationId();
+            }
+            return mMigrationId;
+        }
+
+        private String computeEntryMigrationId() {
             switch (itemType) {
                 case LauncherSettings.Favorites.ITEM_TYPE_FOLDER:
                     return getFolderMigrationId();
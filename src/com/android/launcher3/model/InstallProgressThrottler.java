@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.pm.PackageInstallInfo.STATUS_INSTALLED_DOWNLOADING;
+import static com.android.launcher3.pm.PackageInstallInfo.STATUS_INSTALLING;
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import android.os.UserHandle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.LauncherModel;
+import com.android.launcher3.LauncherModel.ModelUpdateTask;
+import com.android.launcher3.pm.PackageInstallInfo;
+import com.android.launcher3.util.PackageUserKey;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Samples install and incremental download progress so that a burst of progress events (e.g.
+ * restoring many apps) results in at most one model pass and bind per package and frame.
+ *
+ * Only the latest progress of a package is kept while waiting for the next flush, and progress
+ * changes smaller than {@link #MIN_PROGRESS_STEP} are dropped as they are not visible on the
+ * icon. Other state changes (install finished or failed) are not throttled, and discard any
+ * progress still pending for the package. The last progress applied to a package is kept until
+ * the progress completes, the session ends or the package is removed.
+ */
+public class InstallProgressThrottler {
+
+    // Delay between two flushes, about one frame
+    private static final long FLUSH_DELAY_MS = 16;
+
+    // Smallest progress change, in percent, which is applied to the icons
+    @VisibleForTesting
+    static final int MIN_PROGRESS_STEP = 2;
+
+    @NonNull
+    private final LauncherModel mModel;
+
+    private final Object mLock = new Object();
+    // Guarded by mLock
+    private final LinkedHashMap<PackageUserKey, PackageInstallInfo> mPending =
+            new LinkedHashMap<>();
+    // Last progress applied to the icons of each package still in progress
+    private final HashMap<PackageUserKey, PackageInstallInfo> mDispatched = new HashMap<>();
+    private int mReceivedCount;
+    private int mDroppedCount;
+    private int mDispatchedCount;
+
+    public InstallProgressThrottler(@NonNull LauncherModel model) {
+        mModel = model;
+    }
+
+    /**
+     * Queues an install session state change, to be processed as a
+     * {@link PackageInstallStateChangedTask}.
+     */
+    public void enqueueInstallState(@NonNull PackageInstallInfo info) {
+        enqueue(info);
+    }
+
+    /**
+     * Queues an incremental download {@param progress} between 0 and 1, to be processed as a
+     * {@link PackageIncrementalDownloadUpdatedTask}.
+     */
+    public void enqueueDownloadProgress(@NonNull String packageName, @NonNull UserHandle user,
+            float progress) {
+        enqueue(PackageIncrementalDownloadUpdatedTask.newDownloadInfo(
+                packageName, user, progress));
+    }
+
+    /**
+     * Forgets the progress of the {@param packages} removed for {@param user}.
+     */
+    public void onPackagesRemoved(@NonNull UserHandle user, @NonNull String... packages) {
+        synchronized (mLock) {
+            for (String packageName : packages) {
+                PackageUserKey key = new PackageUserKey(packageName, user);
+                mPending.remove(key);
+                mDispatched.remove(key);
+            }
+        }
+    }
+
+    private void enqueue(@NonNull PackageInstallInfo info) {
+        PackageUserKey key = new PackageUserKey(info.packageName, info.user);
+        boolean scheduleFlush = false;
+        boolean dispatchNow = false;
+        synchronized (mLock) {
+            mReceivedCount++;
+            if (!isProgressState(info.state)) {
+                // Any pending progress is older than this state
+                mPending.remove(key);
+                mDispatched.remove(key);
+                mDispatchedCount++;
+                dispatchNow = true;
+            } else if (isVisibleChange(mDispatched.get(key), info)) {
+                scheduleFlush = mPending.isEmpty();
+                if (mPending.put(key, info) != null) {
+                    mDroppedCount++;
+                }
+            } else {
+                if (mPending.remove(key) != null) {
+                    mDroppedCount++;
+                }
+                mDroppedCount++;
+            }
+        }
+        if (dispatchNow) {
+            mModel.enqueueModelUpdateTask(createTask(info));
+        }
+        if (scheduleFlush) {
+            MODEL_EXECUTOR.getHandler().postDelayed(
+                    () -> mModel.enqueueModelUpdateTask(new FlushTask()), FLUSH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Returns true if the icons showing {@param last} need to be updated for {@param info}.
+     */
+    @VisibleForTesting
+    static boolean isVisibleChange(@Nullable PackageInstallInfo last,
+            @NonNull PackageInstallInfo info) {
+        if (last == null || last.state != info.state) {
+            return true;
+        }
+        if (info.progress == last.progress) {
+            return false;
+        }
+        // Always show the start and the end of the progress
+        return info.progress == 0 || info.progress >= 100
+                || Math.abs(info.progress - last.progress) >= MIN_PROGRESS_STEP;
+    }
+
+    private static boolean isProgressState(int state) {
+        return state == STATUS_INSTALLING || state == STATUS_INSTALLED_DOWNLOADING;
+    }
+
+    @NonNull
+    private static BaseModelUpdateTask createTask(@NonNull PackageInstallInfo info) {
+        return info.state == STATUS_INSTALLED_DOWNLOADING
+                ? new PackageIncrementalDownloadUpdatedTask(info)
+                : new PackageInstallStateChangedTask(info);
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        synchronized (mLock) {
+            writer.println(prefix + "InstallProgressThrottler:"
+                    + " received=" + mReceivedCount
+                    + " dispatched=" + mDispatchedCount
+                    + " dropped=" + mDroppedCount
+                    + " pending=" + mPending.size()
+                    + " tracked=" + mDispatched.size());
+        }
+    }
+
+    /**
+     * Removes and returns the pending progress, remembering it as the last applied progress of
+     * each package unless it is complete.
+     */
+    @VisibleForTesting
+    @NonNull
+    ArrayList<PackageInstallInfo> drainPending() {
+        synchronized (mLock) {
+            ArrayList<PackageInstallInfo> infos = new ArrayList<>(mPending.values());
+            for (PackageInstallInfo info : infos) {
+                PackageUserKey key = new PackageUserKey(info.packageName, info.user);
+                if (info.progress >= 100) {
+                    // No more progress is expected, and a finished session is not throttled
+                    mDispatched.remove(key);
+                } else {
+                    mDispatched.put(key, info);
+                }
+            }
+            mPending.clear();
+            mDispatchedCount += infos.size();
+            return infos;
+        }
+    }
+
+    @VisibleForTesting
+    int getTrackedCount() {
+        synchronized (mLock) {
+            return mDispatched.size();
+        }
+    }
+
+    /**
+     * Task which drains the pending progress and executes the corresponding tasks inline.
+     */
+    private class FlushTask implements ModelUpdateTask {
+
+        private LauncherAppState mApp;
+        private LauncherModel mTaskModel;
+        private BgDataModel mDataModel;
+        private AllAppsList mAllAppsList;
+        private Executor mUiExecutor;
+
+        @Override
+        public void init(@NonNull LauncherAppState app, @NonNull LauncherModel model,
+                @NonNull BgDataModel dataModel, @NonNull AllAppsList allAppsList,
+                @NonNull Executor uiExecutor) {
+            mApp = app;
+            mTaskModel = model;
+            mDataModel = dataModel;
+            mAllAppsList = allAppsList;
+            mUiExecutor = uiExecutor;
+        }
+
+        @Override
+        public void run() {
+            for (PackageInstallInfo info : drainPending()) {
+                BaseModelUpdateTask task = createTask(info);
+                task.init(mApp, mTaskModel, mDataModel, mAllAppsList, mUiExecutor);
+                task.run();
+            }
+        }
+    }
+}
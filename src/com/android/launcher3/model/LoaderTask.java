@@ -17,6 +17,10 @@
 package com.android.launcher3.model;
 
 import static com.android.launcher3.LauncherSettings.Favorites.TABLE_NAME;
+import static com.android.launcher3.icons.IncrementalIconCacheUpdater.CATEGORY_ACTIVITIES;
+import static com.android.launcher3.icons.IncrementalIconCacheUpdater.CATEGORY_DEEP_SHORTCUTS;
+import static com.android.launcher3.icons.IncrementalIconCacheUpdater.CATEGORY_SHORTCUTS;
+import static com.android.launcher3.icons.IncrementalIconCacheUpdater.CATEGORY_WIDGETS;
 import static com.android.launcher3.model.BgDataModel.Callbacks.FLAG_HAS_MULTIPLE_PROFILES;
 import static com.android.launcher3.model.BgDataModel.Callbacks.FLAG_HAS_SHORTCUT_PERMISSION;
 import static com.android.launcher3.model.BgDataModel.Callbacks.FLAG_QUIET_MODE_CHANGE_PERMISSION;
@@ -68,14 +72,17 @@ import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.folder.Folder;
 import com.android.launcher3.folder.FolderGridOrganizer;
 import com.android.launcher3.folder.FolderNameInfos;
+import com.android.launcher3.folder.FolderNameIndex;
 import com.android.launcher3.folder.FolderNameProvider;
 import com.android.launcher3.icons.ComponentWithLabelAndIcon;
 import com.android.launcher3.icons.ComponentWithLabelAndIcon.ComponentWithIconCachingLogic;
 import com.android.launcher3.icons.IconCache;
+import com.android.launcher3.icons.IncrementalIconCacheUpdater;
 import com.android.launcher3.icons.LauncherActivityCachingLogic;
 import com.android.launcher3.icons.ShortcutCachingLogic;
 import com.android.launcher3.icons.cache.IconCacheUpdateHandler;
 import com.android.launcher3.logging.FileLog;
+import com.android.launcher3.logging.LaunchTraceRecorder;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.FolderInfo;
 import com.android.launcher3.model.data.IconRequestInfo;
@@ -150,6 +157,8 @@ public class LoaderTask implements Runnable {
     private final Set<PackageUserKey> mPendingPackages = new HashSet<>();
     private boolean mItemsDeleted = false;
     private String mDbName;
+    // Time of the last split, in the time base of LaunchTraceRecorder
+    private long mLastSplitNanos;
 
     public LoaderTask(@NonNull LauncherAppState app, AllAppsList bgAllAppsList, BgDataModel bgModel,
             ModelDelegate modelDelegate, @NonNull LauncherBinder launcherBinder) {
@@ -205,6 +214,7 @@ public class LoaderTask implements Runnable {
         }
 
         Object traceToken = TraceHelper.INSTANCE.beginSection(TAG);
+        mLastSplitNanos = LaunchTraceRecorder.now();
         LoaderMemoryLogger memoryLogger = new LoaderMemoryLogger();
         try (LauncherModel.LoaderTransaction transaction = mApp.getModel().beginLoader(this)) {
             List<ShortcutInfo> allShortcuts = new ArrayList<>();
@@ -255,16 +265,18 @@ public class LoaderTask implements Runnable {
             logASplit("bindAllApps");
 
             verifyNotStopped();
-            IconCacheUpdateHandler updateHandler = mIconCache.getUpdateHandler();
-            setIgnorePackages(updateHandler);
-            updateHandler.updateIcons(allActivityList,
+            IncrementalIconCacheUpdater iconUpdater =
+                    new IncrementalIconCacheUpdater(mApp, this::setIgnorePackages);
+            iconUpdater.updateIcons(CATEGORY_ACTIVITIES, allActivityList,
                     LauncherActivityCachingLogic.newInstance(mApp.getContext()),
+                    IncrementalIconCacheUpdater::getActivityVersion,
                     mApp.getModel()::onPackageIconsUpdated);
             logASplit("update icon cache");
 
             verifyNotStopped();
             logASplit("save shortcuts in icon cache");
-            updateHandler.updateIcons(allShortcuts, new ShortcutCachingLogic(),
+            iconUpdater.updateIcons(CATEGORY_SHORTCUTS, allShortcuts, new ShortcutCachingLogic(),
+                    IncrementalIconCacheUpdater::getShortcutVersion,
                     mApp.getModel()::onPackageIconsUpdated);
 
             // Take a break
@@ -282,8 +294,9 @@ public class LoaderTask implements Runnable {
 
             verifyNotStopped();
             logASplit("save deep shortcuts in icon cache");
-            updateHandler.updateIcons(allDeepShortcuts,
-                    new ShortcutCachingLogic(), (pkgs, user) -> { });
+            iconUpdater.updateIcons(CATEGORY_DEEP_SHORTCUTS, allDeepShortcuts,
+                    new ShortcutCachingLogic(), IncrementalIconCacheUpdater::getShortcutVersion,
+                    (pkgs, user) -> { });
 
             // Take a break
             waitForIdle();
@@ -306,8 +319,9 @@ public class LoaderTask implements Runnable {
                 verifyNotStopped();
             }
 
-            updateHandler.updateIcons(allWidgetsList,
+            iconUpdater.updateIcons(CATEGORY_WIDGETS, allWidgetsList,
                     new ComponentWithIconCachingLogic(mApp.getContext(), true),
+                    IncrementalIconCacheUpdater::getWidgetVersion,
                     mApp.getModel()::onWidgetLabelsUpdated);
             logASplit("save widgets in icon cache");
 
@@ -315,7 +329,7 @@ public class LoaderTask implements Runnable {
             loadFolderNames();
 
             verifyNotStopped();
-            updateHandler.finish();
+            iconUpdater.finish();
             logASplit("finish icon update");
 
             mModelDelegate.modelLoadComplete();
@@ -405,14 +419,24 @@ public class LoaderTask implements Runnable {
 
                 mUserManagerState.init(mUserCache, mUserManager);
 
-                for (UserHandle user : mUserCache.getUserProfiles()) {
+                // We can only query for shortcuts when the user is unlocked.
+                List<UserHandle> users = mUserCache.getUserProfiles();
+                List<UserHandle> queriedUsers = new ArrayList<>(users.size());
+                for (UserHandle user : users) {
+                    if (mUserManager.isUserUnlocked(user)) {
+                        queriedUsers.add(user);
+                    }
+                }
+                List<QueryResult> pinnedResults = ShortcutRequest.queryForUsers(
+                        context, queriedUsers, ShortcutRequest.PINNED);
+
+                for (UserHandle user : users) {
                     long serialNo = mUserCache.getSerialNumberForUser(user);
-                    boolean userUnlocked = mUserManager.isUserUnlocked(user);
+                    int queryIndex = queriedUsers.indexOf(user);
+                    boolean userUnlocked = queryIndex >= 0;
 
-                    // We can only query for shortcuts when the user is unlocked.
                     if (userUnlocked) {
-                        QueryResult pinnedShortcuts = new ShortcutRequest(context, user)
-                                .query(ShortcutRequest.PINNED);
+                        QueryResult pinnedShortcuts = pinnedResults.get(queryIndex);
                         if (pinnedShortcuts.wasSuccess()) {
                             for (ShortcutInfo shortcut : pinnedShortcuts) {
                                 mShortcutKeyToPinnedShortcuts.put(ShortcutKey.fromInfo(shortcut),
@@ -1018,24 +1042,28 @@ public class LoaderTask implements Runnable {
 
     private List<ShortcutInfo> loadDeepShortcuts() {
         List<ShortcutInfo> allShortcuts = new ArrayList<>();
-        mBgDataModel.deepShortcutMap.clear();
-
-        if (mBgAllAppsList.hasShortcutHostPermission()) {
-            for (UserHandle user : mUserCache.getUserProfiles()) {
-                if (mUserManager.isUserUnlocked(user)) {
-                    List<ShortcutInfo> shortcuts = new ShortcutRequest(mApp.getContext(), user)
-                            .query(ShortcutRequest.ALL);
-                    allShortcuts.addAll(shortcuts);
-                    mBgDataModel.updateDeepShortcutCounts(null, user, shortcuts);
-                }
+        List<UserHandle> unlockedUsers = new ArrayList<>();
+        boolean hasShortcutHostPermission = mBgAllAppsList.hasShortcutHostPermission();
+        for (UserHandle user : mUserCache.getUserProfiles()) {
+            if (hasShortcutHostPermission && mUserManager.isUserUnlocked(user)) {
+                unlockedUsers.add(user);
+            } else {
+                mBgDataModel.clearDeepShortcutCounts(user);
             }
         }
+
+        List<QueryResult> results = ShortcutRequest.queryForUsers(
+                mApp.getContext(), unlockedUsers, ShortcutRequest.ALL);
+        for (int i = 0; i < unlockedUsers.size(); i++) {
+            allShortcuts.addAll(results.get(i));
+            mBgDataModel.updateDeepShortcutCounts(null, unlockedUsers.get(i), results.get(i));
+        }
         return allShortcuts;
     }
 
     private void loadFolderNames() {
-        FolderNameProvider provider = FolderNameProvider.newInstance(mApp.getContext(),
-                mBgAllAppsList.data, mBgDataModel.folders);
+        FolderNameIndex.INSTANCE.get(mApp.getContext()).rebuild(mBgAllAppsList.data);
+        FolderNameProvider provider = FolderNameProvider.newInstance(mApp.getContext());
 
         synchronized (mBgDataModel) {
             for (int i = 0; i < mBgDataModel.folders.size(); i++) {
@@ -1101,7 +1129,13 @@ public class LoaderTask implements Runnable {
         FileLog.d(TAG, widgetDimension.toString());
     }
 
-    private static void logASplit(String label) {
+    private void logASplit(String label) {
+        long splitNanos = LaunchTraceRecorder.now();
+        if (mLastSplitNanos != 0) {
+            LaunchTraceRecorder.INSTANCE.recordSpan("LoaderTask: " + label, mLastSplitNanos,
+                    splitNanos);
+        }
+        mLastSplitNanos = splitNanos;
         if (DEBUG) {
             Log.d(TAG, label);
         }
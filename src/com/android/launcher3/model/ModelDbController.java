@@ -76,6 +76,7 @@ import org.xmlpull.v1.XmlPullParser;
 
 import java.io.InputStream;
 import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class which maintains an instance of Launcher database and provides utility methods
@@ -90,6 +91,9 @@ public class ModelDbController {
 
     private final Context mContext;
 
+    // Incremented whenever the workspace data is modified through this controller
+    private final AtomicInteger mChangeGeneration = new AtomicInteger();
+
     public ModelDbController(Context context) {
         mContext = context;
     }
@@ -157,6 +161,7 @@ public class ModelDbController {
         int rowId = mOpenHelper.dbInsertAndCheck(db, table, initialValues);
         if (rowId >= 0) {
             onAddOrDeleteOp(db);
+            mChangeGeneration.incrementAndGet();
         }
         return rowId;
     }
@@ -180,6 +185,7 @@ public class ModelDbController {
             onAddOrDeleteOp(db);
             t.commit();
         }
+        mChangeGeneration.incrementAndGet();
         return values.length;
     }
 
@@ -198,6 +204,7 @@ public class ModelDbController {
         int count = db.delete(table, selection, selectionArgs);
         if (count > 0) {
             onAddOrDeleteOp(db);
+            mChangeGeneration.incrementAndGet();
         }
         return count;
     }
@@ -213,6 +220,9 @@ public class ModelDbController {
         addModifiedTime(values);
         SQLiteDatabase db = mOpenHelper.getWritableDatabase();
         int count = db.update(table, values, selection, selectionArgs);
+        if (count > 0) {
+            mChangeGeneration.incrementAndGet();
+        }
         return count;
     }
 
@@ -250,6 +260,7 @@ public class ModelDbController {
     public void createEmptyDB() {
         createDbIfNotExists();
         mOpenHelper.createEmptyDB(mOpenHelper.getWritableDatabase());
+        mChangeGeneration.incrementAndGet();
     }
 
     /**
@@ -259,6 +270,7 @@ public class ModelDbController {
     public void removeGhostWidgets() {
         createDbIfNotExists();
         mOpenHelper.removeGhostWidgets(mOpenHelper.getWritableDatabase());
+        mChangeGeneration.incrementAndGet();
     }
 
     /**
@@ -267,6 +279,8 @@ public class ModelDbController {
     @WorkerThread
     public SQLiteTransaction newTransaction() {
         createDbIfNotExists();
+        // Writes in the transaction do not go through this controller
+        mChangeGeneration.incrementAndGet();
         return new SQLiteTransaction(mOpenHelper.getWritableDatabase());
     }
 
@@ -297,6 +311,7 @@ public class ModelDbController {
             Log.e(TAG, "migrateGridIfNeeded - target db is same as current: " + targetDbName);
             return false;
         }
+        mChangeGeneration.incrementAndGet();
         DatabaseHelper oldHelper = mOpenHelper;
         mOpenHelper = (mContext instanceof SandboxContext) ? oldHelper
                 : createDatabaseHelper(true /* forMigration */);
@@ -310,6 +325,14 @@ public class ModelDbController {
         }
     }
 
+    /**
+     * Returns a counter which changes whenever the workspace data is modified through this
+     * controller. Direct writes to {@link #getDb()} are not tracked.
+     */
+    public int getChangeGeneration() {
+        return mChangeGeneration.get();
+    }
+
     /**
      * Returns the underlying model database
      */
@@ -344,6 +367,7 @@ public class ModelDbController {
             if (!folderIds.isEmpty()) {
                 db.delete(Favorites.TABLE_NAME, Utilities.createDbSelectionQuery(
                         LauncherSettings.Favorites._ID, folderIds), null);
+                mChangeGeneration.incrementAndGet();
             }
             t.commit();
             return folderIds;
@@ -409,6 +433,7 @@ public class ModelDbController {
                             getDefaultLayoutParser(widgetHolder));
                 }
                 clearFlagEmptyDbCreated();
+                mChangeGeneration.incrementAndGet();
             } finally {
                 widgetHolder.destroy();
             }
@@ -18,6 +18,7 @@ package com.android.launcher3.model;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.IntHashSet;
 import com.android.launcher3.util.IntSet;
 
 import java.util.ArrayList;
@@ -45,7 +46,7 @@ public class ModelUtils {
         // Order the set of items by their containers first, this allows use to walk through the
         // list sequentially, build up a list of containers that are in the specified screen,
         // as well as all items in those containers.
-        IntSet itemsOnScreen = new IntSet();
+        IntHashSet itemsOnScreen = new IntHashSet(allWorkspaceItems.size());
         Collections.sort(allWorkspaceItems,
                 (lhs, rhs) -> Integer.compare(lhs.container, rhs.container));
         for (T info : allWorkspaceItems) {
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.model.PackageUpdatedTask.OP_USER_AVAILABILITY_CHANGE;
+
+import android.os.UserHandle;
+
+import androidx.annotation.NonNull;
+
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.LauncherModel;
+import com.android.launcher3.LauncherModel.ModelUpdateTask;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Coalesces package change events so that a burst of them (e.g. bulk app updates) results in a
+ * single {@link PackageUpdatedTask} per operation instead of one model pass and bind per package.
+ *
+ * Events are queued as they arrive and drained when the model thread reaches the flush task, so
+ * all events received while the model thread is busy are merged into the next pass. An event is
+ * only merged into an earlier batch of the same operation if none of its packages are touched by
+ * a batch in between, which preserves the per-package order of operations.
+ */
+public class PackageChangeQueue {
+
+    @NonNull
+    private final LauncherModel mModel;
+
+    // Guarded by itself
+    @NonNull
+    private final ArrayList<PendingOp> mPendingOps = new ArrayList<>();
+
+    // Stats, only accessed on the model thread
+    private int mFlushCount;
+    private int mReceivedOpCount;
+    private int mExecutedTaskCount;
+    private int mMaxMergedOpCount;
+
+    public PackageChangeQueue(@NonNull LauncherModel model) {
+        mModel = model;
+    }
+
+    /**
+     * Queues a package change, to be processed as a {@link PackageUpdatedTask}.
+     */
+    public void enqueue(int op, @NonNull UserHandle user, @NonNull String... packages) {
+        boolean scheduleFlush;
+        synchronized (mPendingOps) {
+            scheduleFlush = mPendingOps.isEmpty();
+            mPendingOps.add(new PendingOp(op, user, packages));
+        }
+        if (scheduleFlush) {
+            mModel.enqueueModelUpdateTask(new FlushTask());
+        }
+    }
+
+    /**
+     * Merges the pending operations into as few batches as possible without reordering operations
+     * on the same package.
+     */
+    @NonNull
+    static List<PendingOp> mergeOps(@NonNull List<PendingOp> ops) {
+        ArrayList<PendingOp> batches = new ArrayList<>();
+        for (PendingOp op : ops) {
+            PendingOp target = null;
+            for (int i = batches.size() - 1; i >= 0; i--) {
+                PendingOp batch = batches.get(i);
+                if (batch.op == op.op && batch.user.equals(op.user)
+                        && op.op != OP_USER_AVAILABILITY_CHANGE) {
+                    target = batch;
+                    break;
+                }
+                if (batch.conflictsWith(op)) {
+                    break;
+                }
+            }
+            if (target == null) {
+                batches.add(new PendingOp(op.op, op.user, op.packages));
+            } else {
+                target.mergedOpCount++;
+                target.packages.addAll(op.packages);
+            }
+        }
+        return batches;
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "PackageChangeQueue:"
+                + " flushes=" + mFlushCount
+                + " receivedOps=" + mReceivedOpCount
+                + " executedTasks=" + mExecutedTaskCount
+                + " maxMergedOps=" + mMaxMergedOpCount);
+    }
+
+    /**
+     * A package change operation, or a batch of merged operations.
+     */
+    static class PendingOp {
+
+        final int op;
+        @NonNull
+        final UserHandle user;
+        @NonNull
+        final LinkedHashSet<String> packages = new LinkedHashSet<>();
+        int mergedOpCount = 1;
+
+        PendingOp(int op, @NonNull UserHandle user, @NonNull String... packages) {
+            this.op = op;
+            this.user = user;
+            Collections.addAll(this.packages, packages);
+        }
+
+        PendingOp(int op, @NonNull UserHandle user, @NonNull LinkedHashSet<String> packages) {
+            this.op = op;
+            this.user = user;
+            this.packages.addAll(packages);
+        }
+
+        /**
+         * Returns true if {@param other} can not be moved before this operation.
+         */
+        boolean conflictsWith(@NonNull PendingOp other) {
+            if (!user.equals(other.user)) {
+                return false;
+            }
+            if (op == OP_USER_AVAILABILITY_CHANGE || other.op == OP_USER_AVAILABILITY_CHANGE) {
+                // Affects all packages of the user
+                return true;
+            }
+            for (String pkg : other.packages) {
+                if (packages.contains(pkg)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @NonNull
+        PackageUpdatedTask toTask() {
+            return new PackageUpdatedTask(op, user, packages.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Task which drains the queue and executes the merged {@link PackageUpdatedTask}s inline.
+     */
+    private class FlushTask implements ModelUpdateTask {
+
+        private LauncherAppState mApp;
+        private LauncherModel mTaskModel;
+        private BgDataModel mDataModel;
+        private AllAppsList mAllAppsList;
+        private Executor mUiExecutor;
+
+        @Override
+        public void init(@NonNull LauncherAppState app, @NonNull LauncherModel model,
+                @NonNull BgDataModel dataModel, @NonNull AllAppsList allAppsList,
+                @NonNull Executor uiExecutor) {
+            mApp = app;
+            mTaskModel = model;
+            mDataModel = dataModel;
+            mAllAppsList = allAppsList;
+            mUiExecutor = uiExecutor;
+        }
+
+        @Override
+        public void run() {
+            ArrayList<PendingOp> ops;
+            synchronized (mPendingOps) {
+                ops = new ArrayList<>(mPendingOps);
+                mPendingOps.clear();
+            }
+            if (ops.isEmpty()) {
+                return;
+            }
+            List<PendingOp> batches = mergeOps(ops);
+            mFlushCount++;
+            mReceivedOpCount += ops.size();
+            mExecutedTaskCount += batches.size();
+            for (PendingOp batch : batches) {
+                mMaxMergedOpCount = Math.max(mMaxMergedOpCount, batch.mergedOpCount);
+                PackageUpdatedTask task = batch.toTask();
+                task.init(mApp, mTaskModel, mDataModel, mAllAppsList, mUiExecutor);
+                task.run();
+            }
+        }
+    }
+}
@@ -36,26 +36,40 @@ public class PackageIncrementalDownloadUpdatedTask extends BaseModelUpdateTask {
     @NonNull
     private final UserHandle mUser;
 
-    private final int mProgress;
-
     @NonNull
     private final String mPackageName;
 
+    @NonNull
+    private final PackageInstallInfo mDownloadInfo;
+
     public PackageIncrementalDownloadUpdatedTask(@NonNull final String packageName,
             @NonNull final UserHandle user, final float progress) {
-        mUser = user;
-        mProgress = 1 - progress > 0.001 ? (int) (100 * progress) : 100;
-        mPackageName = packageName;
+        this(newDownloadInfo(packageName, user, progress));
+    }
+
+    PackageIncrementalDownloadUpdatedTask(@NonNull final PackageInstallInfo downloadInfo) {
+        mUser = downloadInfo.user;
+        mPackageName = downloadInfo.packageName;
+        mDownloadInfo = downloadInfo;
+    }
+
+    /**
+     * Returns the install info for a download {@param progress} between 0 and 1.
+     */
+    @NonNull
+    static PackageInstallInfo newDownloadInfo(@NonNull final String packageName,
+            @NonNull final UserHandle user, final float progress) {
+        return new PackageInstallInfo(
+                packageName,
+                PackageInstallInfo.STATUS_INSTALLED_DOWNLOADING,
+                1 - progress > 0.001 ? (int) (100 * progress) : 100,
+                user);
     }
 
     @Override
     public void execute(@NonNull LauncherAppState app, @NonNull final BgDataModel dataModel,
             @NonNull final AllAppsList appsList) {
-        PackageInstallInfo downloadInfo = new PackageInstallInfo(
-                mPackageName,
-                PackageInstallInfo.STATUS_INSTALLED_DOWNLOADING,
-                mProgress,
-                mUser);
+        PackageInstallInfo downloadInfo = mDownloadInfo;
 
         synchronized (appsList) {
             List<AppInfo> updatedAppInfos = appsList.updatePromiseInstallInfo(downloadInfo);
@@ -40,6 +40,7 @@ import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.LauncherSettings.Favorites;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.config.FeatureFlags;
+import com.android.launcher3.folder.FolderNameIndex;
 import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.logging.FileLog;
 import com.android.launcher3.model.data.ItemInfo;
@@ -50,7 +51,7 @@ import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.testing.shared.TestProtocol;
 import com.android.launcher3.util.FlagOp;
-import com.android.launcher3.util.IntSet;
+import com.android.launcher3.util.IntHashSet;
 import com.android.launcher3.util.ItemInfoMatcher;
 import com.android.launcher3.util.PackageManagerHelper;
 import com.android.launcher3.util.PackageUserKey;
@@ -213,10 +214,11 @@ public class PackageUpdatedTask extends BaseModelUpdateTask {
         }
 
         bindApplicationsIfNeeded();
+        FolderNameIndex.INSTANCE.get(context).updatePackages(appsList, packageSet);
 
-        final IntSet removedShortcuts = new IntSet();
+        final IntHashSet removedShortcuts = new IntHashSet();
         // Shortcuts to keep even if the corresponding app was removed
-        final IntSet forceKeepShortcuts = new IntSet();
+        final IntHashSet forceKeepShortcuts = new IntHashSet();
 
         // Update shortcut infos
         if (mOp == OP_ADD || flagOp != FlagOp.NO_OP) {
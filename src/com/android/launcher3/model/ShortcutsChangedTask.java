@@ -32,6 +32,7 @@ import com.android.launcher3.util.PackageManagerHelper;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -94,6 +95,9 @@ public class ShortcutsChangedTask extends BaseModelUpdateTask {
                     .forPackage(mPackageName, allLauncherKnownIds)
                     .query(ShortcutRequest.ALL);
 
+            Map<String, List<WorkspaceItemInfo>> itemsById = matchingWorkspaceItems.stream()
+                    .filter(itemInfo -> itemInfo.getDeepShortcutId() != null)
+                    .collect(Collectors.groupingBy(WorkspaceItemInfo::getDeepShortcutId));
             Set<String> nonPinnedIds = new HashSet<>(allLauncherKnownIds);
             ArrayList<WorkspaceItemInfo> updatedWorkspaceItemInfos = new ArrayList<>();
             for (ShortcutInfo fullDetails : shortcuts) {
@@ -103,14 +107,15 @@ public class ShortcutsChangedTask extends BaseModelUpdateTask {
 
                 String sid = fullDetails.getId();
                 nonPinnedIds.remove(sid);
-                matchingWorkspaceItems
-                        .stream()
-                        .filter(itemInfo -> sid.equals(itemInfo.getDeepShortcutId()))
-                        .forEach(workspaceItemInfo -> {
-                            workspaceItemInfo.updateFromDeepShortcutInfo(fullDetails, context);
-                            app.getIconCache().getShortcutIcon(workspaceItemInfo, fullDetails);
-                            updatedWorkspaceItemInfos.add(workspaceItemInfo);
-                        });
+                List<WorkspaceItemInfo> items = itemsById.get(sid);
+                if (items == null) {
+                    continue;
+                }
+                for (WorkspaceItemInfo workspaceItemInfo : items) {
+                    workspaceItemInfo.updateFromDeepShortcutInfo(fullDetails, context);
+                    app.getIconCache().getShortcutIcon(workspaceItemInfo, fullDetails);
+                    updatedWorkspaceItemInfos.add(workspaceItemInfo);
+                }
             }
 
             bindUpdatedWorkspaceItems(updatedWorkspaceItemInfos);
@@ -123,9 +128,9 @@ public class ShortcutsChangedTask extends BaseModelUpdateTask {
             }
         }
 
-        if (mUpdateIdMap) {
-            // Update the deep shortcut map if the list of ids has changed for an activity.
-            dataModel.updateDeepShortcutCounts(mPackageName, mUser, mShortcuts);
+        // Update the deep shortcut map if the list of ids has changed for an activity. Only the
+        // counts of this package are recomputed, and nothing is bound if they are unchanged.
+        if (mUpdateIdMap && dataModel.updateDeepShortcutCounts(mPackageName, mUser, mShortcuts)) {
             bindDeepShortcuts(dataModel);
         }
     }
@@ -32,13 +32,11 @@ import com.android.launcher3.shortcuts.ShortcutKey;
 import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.shortcuts.ShortcutRequest.QueryResult;
 import com.android.launcher3.testing.shared.TestProtocol;
-import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.ItemInfoMatcher;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 
 /**
  * Task to handle changing of lock state of the user
@@ -115,19 +113,17 @@ public class UserLockStateChangedTask extends BaseModelUpdateTask {
                             + " (possibly due to clear data)");
         }
 
-        // Remove shortcut id map for that user
-        Iterator<ComponentKey> keysIter = dataModel.deepShortcutMap.keySet().iterator();
-        while (keysIter.hasNext()) {
-            if (keysIter.next().user.equals(mUser)) {
-                keysIter.remove();
-            }
-        }
-
+        // Update shortcut id map for that user
+        boolean shortcutCountsChanged;
         if (mIsUserUnlocked) {
-            dataModel.updateDeepShortcutCounts(
+            shortcutCountsChanged = dataModel.updateDeepShortcutCounts(
                     null, mUser,
                     new ShortcutRequest(context, mUser).query(ShortcutRequest.ALL));
+        } else {
+            shortcutCountsChanged = dataModel.clearDeepShortcutCounts(mUser);
+        }
+        if (shortcutCountsChanged) {
+            bindDeepShortcuts(dataModel);
         }
-        bindDeepShortcuts(dataModel);
     }
 }
@@ -61,6 +61,13 @@ public class AppInfo extends ItemInfoWithIcon implements WorkspaceItemFactory {
     // Section name used for indexing.
     public String sectionName = "";
 
+    // Precomputed collation keys for the title and section name, see LabelComparator#getSortKey.
+    // Computed whenever the section name is updated, null if not computed yet.
+    @Nullable
+    public byte[] sortKey;
+    @Nullable
+    public byte[] sectionSortKey;
+
     /**
      * The uid of the application.
      * The kernel user-ID that has been assigned to this application. Currently this is not a unique
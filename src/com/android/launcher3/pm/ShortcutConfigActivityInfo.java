@@ -121,6 +121,10 @@ public abstract class ShortcutConfigActivityInfo implements ComponentWithLabelAn
             mInfo = info;
         }
 
+        public LauncherActivityInfo getActivityInfo() {
+            return mInfo;
+        }
+
         @Override
         public CharSequence getLabel(PackageManager pm) {
             return mInfo.getLabel();
@@ -29,6 +29,7 @@ import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.notification.NotificationKeyData;
 import com.android.launcher3.notification.NotificationListener;
 import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.ObjectIntHashMap;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.ShortcutUtil;
 import com.android.launcher3.widget.model.WidgetsListBaseEntry;
@@ -56,7 +57,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     private final Consumer<Predicate<PackageUserKey>> mNotificationDotsChangeListener;
 
     /** Maps launcher activity components to a count of how many shortcuts they have. */
-    private HashMap<ComponentKey, Integer> mDeepShortcutMap = new HashMap<>();
+    private ObjectIntHashMap<ComponentKey> mDeepShortcutMap = new ObjectIntHashMap<>();
     /** Maps packages to their DotInfo's . */
     private Map<PackageUserKey, DotInfo> mPackageUserToDotInfos = new HashMap<>();
 
@@ -143,7 +144,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
         mChangeListener.trimNotifications(updatedDots);
     }
 
-    public void setDeepShortcutMap(HashMap<ComponentKey, Integer> deepShortcutMapCopy) {
+    public void setDeepShortcutMap(ObjectIntHashMap<ComponentKey> deepShortcutMapCopy) {
         mDeepShortcutMap = deepShortcutMapCopy;
         if (LOGD) Log.d(TAG, "bindDeepShortcutMap: " + mDeepShortcutMap);
     }
@@ -157,8 +158,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             return 0;
         }
 
-        Integer count = mDeepShortcutMap.get(new ComponentKey(component, info.user));
-        return count == null ? 0 : count;
+        return mDeepShortcutMap.get(new ComponentKey(component, info.user), 0);
     }
 
     public @Nullable DotInfo getDotInfoForItem(@NonNull ItemInfo info) {
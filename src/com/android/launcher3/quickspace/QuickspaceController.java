@@ -24,7 +24,9 @@ import android.media.RemoteControlClient;
 import android.media.RemoteController;
 import android.os.Handler;
 import android.service.notification.StatusBarNotification;
+import android.text.TextUtils;
 import android.util.Log;
+import android.view.Choreographer;
 
 import com.android.internal.util.evolution.OmniJawsClient;
 
@@ -35,8 +37,10 @@ import com.android.launcher3.notification.NotificationListener;
 import com.android.launcher3.util.PackageUserKey;
 
 import java.util.ArrayList;
+import java.util.Locale;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.List;
 
 public class QuickspaceController implements NotificationListener.NotificationsChangedListener, OmniJawsClient.OmniJawsObserver {
@@ -46,6 +50,18 @@ public class QuickspaceController implements NotificationListener.NotificationsC
     private static final boolean DEBUG = false;
     private static final String TAG = "Launcher3:QuickspaceController";
 
+    // Weather condition keywords and their display strings, checked in order
+    private static final String[] WEATHER_CONDITIONS = {
+            "clouds", "rain", "clear", "storm", "snow", "wind", "mist"};
+    private static final int[] WEATHER_CONDITION_STRINGS = {
+            R.string.quick_event_weather_clouds,
+            R.string.quick_event_weather_rain,
+            R.string.quick_event_weather_clear,
+            R.string.quick_event_weather_storm,
+            R.string.quick_event_weather_snow,
+            R.string.quick_event_weather_wind,
+            R.string.quick_event_weather_mist};
+
     private final Context mContext;
     private final Handler mHandler;
     private QuickEventsController mEventsController;
@@ -62,6 +78,25 @@ public class QuickspaceController implements NotificationListener.NotificationsC
     private boolean mMediaActive = false;
     private ExecutorService executorService = Executors.newSingleThreadExecutor();
 
+    // Last media state pushed to the events controller, used to skip unrelated notifications
+    private String mLastTrackTitle;
+    private String mLastTrackArtist;
+    private boolean mLastClientLost = true;
+    private boolean mLastMediaActive = false;
+    private boolean mMediaStateInitialized = false;
+
+    // Weather string, computed once per weather or settings update
+    private volatile String mWeatherTemp;
+
+    // Listeners are notified at most once per frame
+    private final AtomicBoolean mNotifyPending = new AtomicBoolean();
+    private final Choreographer.FrameCallback mNotifyFrameCallback = frameTimeNanos -> {
+        mNotifyPending.set(false);
+        for (OnDataListener list : mListeners) {
+            list.onDataUpdated();
+        }
+    };
+
     public interface OnDataListener {
         void onDataUpdated();
     }
@@ -112,30 +147,34 @@ public class QuickspaceController implements NotificationListener.NotificationsC
     }
 
     public String getWeatherTemp() {
+        return mWeatherTemp;
+    }
+
+    /**
+     * Computes the weather string shown in the quickspace, called when the weather info or the
+     * quickspace settings change.
+     */
+    private void updateWeatherTemp() {
+        OmniJawsClient.WeatherInfo weatherInfo = mWeatherInfo;
+        if (weatherInfo == null) {
+            mWeatherTemp = null;
+            return;
+        }
         boolean shouldShowCity = Utilities.QuickSpaceShowCity(mContext);
         boolean showWeatherText = Utilities.QuickSpaceShowWeatherText(mContext);
-        if (mWeatherInfo != null) {
-            String formattedCondition = mWeatherInfo.condition;
-            if (formattedCondition.toLowerCase().contains("clouds")) {
-                formattedCondition = mContext.getResources().getString(R.string.quick_event_weather_clouds);
-            } else if (formattedCondition.toLowerCase().contains("rain")) {
-                formattedCondition = mContext.getResources().getString(R.string.quick_event_weather_rain);
-            } else if (formattedCondition.toLowerCase().contains("clear")) {
-                formattedCondition = mContext.getResources().getString(R.string.quick_event_weather_clear);
-            } else if (formattedCondition.toLowerCase().contains("storm")) {
-                formattedCondition = mContext.getResources().getString(R.string.quick_event_weather_storm);
-            } else if (formattedCondition.toLowerCase().contains("snow")) {
-                formattedCondition = mContext.getResources().getString(R.string.quick_event_weather_snow);
-            } else if (formattedCondition.toLowerCase().contains("wind")) {
-                formattedCondition = mContext.getResources().getString(R.string.quick_event_weather_wind);
-            } else if (formattedCondition.toLowerCase().contains("mist")) {
-                formattedCondition = mContext.getResources().getString(R.string.quick_event_weather_mist);
+        String formattedCondition = weatherInfo.condition;
+        if (showWeatherText && formattedCondition != null) {
+            String condition = formattedCondition.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < WEATHER_CONDITIONS.length; i++) {
+                if (condition.contains(WEATHER_CONDITIONS[i])) {
+                    formattedCondition = mContext.getResources().getString(
+                            WEATHER_CONDITION_STRINGS[i]);
+                    break;
+                }
             }
-            String weatherTemp = (shouldShowCity ? mWeatherInfo.city : "") + " " + mWeatherInfo.temp +
-                    mWeatherInfo.tempUnits  + (showWeatherText ? " · "  + formattedCondition : "");
-            return weatherTemp;
         }
-        return null;
+        mWeatherTemp = (shouldShowCity ? weatherInfo.city : "") + " " + weatherInfo.temp +
+                weatherInfo.tempUnits  + (showWeatherText ? " · "  + formattedCondition : "");
     }
 
     private void playbackStateUpdate(int state) {
@@ -153,32 +192,55 @@ public class QuickspaceController implements NotificationListener.NotificationsC
         if (active != mMediaActive) {
             mMediaActive = active;
         }
-        updateMediaInfo();
+        updateMediaInfoIfChanged();
     }
 
     public void updateMediaInfo() {
         if (mEventsController != null) {
             mEventsController.setMediaInfo(mMetadata.trackTitle, mMetadata.trackArtist, mClientLost, mMediaActive);
             mEventsController.updateQuickEvents();
+            onMediaStateEmitted();
             notifyListeners();
         }
     }
 
+    /**
+     * Updates the media info only if the media state changed since it was last emitted.
+     */
+    private void updateMediaInfoIfChanged() {
+        if (mMediaStateInitialized
+                && TextUtils.equals(mLastTrackTitle, mMetadata.trackTitle)
+                && TextUtils.equals(mLastTrackArtist, mMetadata.trackArtist)
+                && mLastClientLost == mClientLost
+                && mLastMediaActive == mMediaActive) {
+            return;
+        }
+        updateMediaInfo();
+    }
+
+    private void onMediaStateEmitted() {
+        mMediaStateInitialized = true;
+        mLastTrackTitle = mMetadata.trackTitle;
+        mLastTrackArtist = mMetadata.trackArtist;
+        mLastClientLost = mClientLost;
+        mLastMediaActive = mMediaActive;
+    }
+
     @Override
     public void onNotificationPosted(PackageUserKey postedPackageUserKey,
                                      NotificationKeyData notificationKey) {
-        updateMediaInfo();
+        updateMediaInfoIfChanged();
     }
 
     @Override
     public void onNotificationRemoved(PackageUserKey removedPackageUserKey,
                                       NotificationKeyData notificationKey) {
-        updateMediaInfo();
+        updateMediaInfoIfChanged();
     }
 
     @Override
     public void onNotificationFullRefresh(List<StatusBarNotification> activeNotifications) {
-        updateMediaInfo();
+        updateMediaInfoIfChanged();
     }
 
     public void onPause() {
@@ -187,6 +249,8 @@ public class QuickspaceController implements NotificationListener.NotificationsC
 
     public void onResume() {
         if (mEventsController != null) {
+            // Settings might have changed while paused
+            updateWeatherTemp();
             updateMediaInfo();
             mEventsController.onResume();
             notifyListeners();
@@ -203,6 +267,7 @@ public class QuickspaceController implements NotificationListener.NotificationsC
         Log.d(TAG, "weatherError " + errorReason);
         if (errorReason == OmniJawsClient.EXTRA_ERROR_DISABLED) {
             mWeatherInfo = null;
+            mWeatherTemp = null;
             notifyListeners();
         }
     }
@@ -219,11 +284,22 @@ public class QuickspaceController implements NotificationListener.NotificationsC
             public void run() {
                 try {
                     mWeatherClient.queryWeather();
+                    String oldWeatherTemp = mWeatherTemp;
+                    OmniJawsClient.WeatherInfo oldWeatherInfo = mWeatherInfo;
                     mWeatherInfo = mWeatherClient.getWeatherInfo();
-                    if (mWeatherInfo != null) {
-                        mConditionImage = mWeatherClient.getWeatherConditionImage(mWeatherInfo.conditionCode);
+                    // The condition image is a new drawable on every call, so the condition
+                    // code is compared instead
+                    boolean conditionChanged = oldWeatherInfo == null || mWeatherInfo == null
+                            ? oldWeatherInfo != mWeatherInfo
+                            : oldWeatherInfo.conditionCode != mWeatherInfo.conditionCode;
+                    if (mWeatherInfo != null && (conditionChanged || mConditionImage == null)) {
+                        mConditionImage = mWeatherClient.getWeatherConditionImage(
+                                mWeatherInfo.conditionCode);
+                    }
+                    updateWeatherTemp();
+                    if (conditionChanged || !TextUtils.equals(oldWeatherTemp, mWeatherTemp)) {
+                        notifyListeners();
                     }
-                    notifyListeners();
                 } catch(Exception e) {
                     // Do nothing
                 }
@@ -232,14 +308,11 @@ public class QuickspaceController implements NotificationListener.NotificationsC
     }
 
     public void notifyListeners() {
-        mHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                for (OnDataListener list : mListeners) {
-                    list.onDataUpdated();
-                }
-            }
-        });
+        if (!mNotifyPending.compareAndSet(false, true)) {
+            // Already scheduled for the next frame
+            return;
+        }
+        mHandler.post(() -> Choreographer.getInstance().postFrameCallback(mNotifyFrameCallback));
     }
 
    private RemoteController.OnClientUpdateListener mRCClientUpdateListener =
@@ -252,7 +325,7 @@ public class QuickspaceController implements NotificationListener.NotificationsC
                 mMediaActive = false;
                 mClientLost = true;
             }
-            updateMediaInfo();
+            updateMediaInfoIfChanged();
         }
 
         @Override
@@ -275,7 +348,7 @@ public class QuickspaceController implements NotificationListener.NotificationsC
             mMetadata.trackArtist = data.getString(MediaMetadataRetriever.METADATA_KEY_ARTIST,
                     mMetadata.trackArtist);
             mClientLost = false;
-            updateMediaInfo();
+            updateMediaInfoIfChanged();
         }
 
         @Override
@@ -56,13 +56,13 @@ import com.android.launcher3.popup.PopupDataProvider;
 import com.android.launcher3.touch.ItemClickHandler.ItemClickProxy;
 import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.IntSet;
+import com.android.launcher3.util.ObjectIntHashMap;
 import com.android.launcher3.util.OnboardingPrefs;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.Preconditions;
 import com.android.launcher3.util.Themes;
 import com.android.launcher3.views.BaseDragLayer;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -293,7 +293,7 @@ public class SecondaryDisplayLauncher extends BaseDraggingActivity
     }
 
     @Override
-    public void bindDeepShortcutMap(HashMap<ComponentKey, Integer> deepShortcutMap) {
+    public void bindDeepShortcutMap(ObjectIntHashMap<ComponentKey> deepShortcutMap) {
         mPopupDataProvider.setDeepShortcutMap(deepShortcutMap);
     }
 
@@ -19,7 +19,6 @@ package com.android.launcher3.settings;
 import static androidx.core.view.accessibility.AccessibilityNodeInfoCompat.ACTION_ACCESSIBILITY_FOCUS;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.MenuItem;
@@ -43,10 +42,10 @@ import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherFiles;
-import com.android.launcher3.LauncherPrefs;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.model.WidgetsModel;
+import com.android.launcher3.util.PrefsSnapshot;
 
 import com.android.settingslib.collapsingtoolbar.CollapsingToolbarBaseActivity;
 
@@ -54,8 +53,7 @@ import com.android.settingslib.collapsingtoolbar.CollapsingToolbarBaseActivity;
  * Settings activity for Launcher.
  */
 public class SettingsAppDrawer extends CollapsingToolbarBaseActivity
-        implements OnPreferenceStartFragmentCallback, OnPreferenceStartScreenCallback,
-        SharedPreferences.OnSharedPreferenceChangeListener{
+        implements OnPreferenceStartFragmentCallback, OnPreferenceStartScreenCallback {
 
     public static final String EXTRA_FRAGMENT_ARG_KEY = ":settings:fragment_args_key";
     public static final String EXTRA_SHOW_FRAGMENT_ARGS = ":settings:show_fragment_args";
@@ -67,6 +65,9 @@ public class SettingsAppDrawer extends CollapsingToolbarBaseActivity
     @VisibleForTesting
     static final String EXTRA_FRAGMENT_ARGS = ":settings:fragment_args";
 
+    private final Runnable mRestartOnChange =
+            () -> LauncherAppState.getInstanceNoCreate().setNeedsRestart();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -93,19 +94,17 @@ public class SettingsAppDrawer extends CollapsingToolbarBaseActivity
             // Display the fragment as the main content.
             fm.beginTransaction().replace(com.android.settingslib.widget.R.id.content_frame, f).commit();
         }
-        LauncherPrefs.getPrefs(getApplicationContext()).registerOnSharedPreferenceChangeListener(this);
+        PrefsSnapshot.Tracker tracker = PrefsSnapshot.TRACKER.get(this);
+        tracker.addListener(Utilities.KEY_DRAWER_SEARCH, mRestartOnChange);
+        tracker.addListener(Utilities.KEY_APP_DRAWER_OPACITY, mRestartOnChange);
     }
 
     @Override
-    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
-        switch (key) {
-            case Utilities.KEY_DRAWER_SEARCH:
-            case Utilities.KEY_APP_DRAWER_OPACITY:
-                LauncherAppState.getInstanceNoCreate().setNeedsRestart();
-                break;
-            default:
-                break;
-        }
+    protected void onDestroy() {
+        PrefsSnapshot.Tracker tracker = PrefsSnapshot.TRACKER.get(this);
+        tracker.removeListener(Utilities.KEY_DRAWER_SEARCH, mRestartOnChange);
+        tracker.removeListener(Utilities.KEY_APP_DRAWER_OPACITY, mRestartOnChange);
+        super.onDestroy();
     }
 
     private boolean startPreference(String fragment, Bundle args, String key) {
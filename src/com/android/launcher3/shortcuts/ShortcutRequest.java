@@ -17,6 +17,7 @@
 package com.android.launcher3.shortcuts;
 
 import static com.android.launcher3.model.WidgetsModel.GO_DISABLE_WIDGETS;
+import static com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR;
 
 import android.content.ComponentName;
 import android.content.Context;
@@ -32,6 +33,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Utility class to streamline Shortcut query
@@ -106,6 +109,40 @@ public class ShortcutRequest {
         }
     }
 
+    /**
+     * Runs the query with {@param flags} for each of the {@param users} in parallel, as each query
+     * is a separate call to the system. The returned results are in the order of the users.
+     */
+    public static List<QueryResult> queryForUsers(
+            Context context, List<UserHandle> users, int flags) {
+        ArrayList<QueryResult> results = new ArrayList<>(users.size());
+        if (GO_DISABLE_WIDGETS || users.isEmpty()) {
+            users.forEach(user -> results.add(QueryResult.DEFAULT));
+            return results;
+        }
+
+        // Query the first user on the calling thread, and the other ones in the background
+        ArrayList<Future<QueryResult>> futures = new ArrayList<>(users.size() - 1);
+        for (int i = 1; i < users.size(); i++) {
+            UserHandle user = users.get(i);
+            futures.add(THREAD_POOL_EXECUTOR.submit(
+                    () -> new ShortcutRequest(context, user).query(flags)));
+        }
+        results.add(new ShortcutRequest(context, users.get(0)).query(flags));
+        for (Future<QueryResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException | ExecutionException e) {
+                Log.e(TAG, "Failed to query for shortcuts", e);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                results.add(new QueryResult(false));
+            }
+        }
+        return results;
+    }
+
     public static class QueryResult extends ArrayList<ShortcutInfo> {
 
         static final QueryResult DEFAULT = new QueryResult(GO_DISABLE_WIDGETS);
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.util.OpenAddressing.DEFAULT_CAPACITY;
+import static com.android.launcher3.util.OpenAddressing.FREE_KEY;
+import static com.android.launcher3.util.OpenAddressing.isOverLoaded;
+import static com.android.launcher3.util.OpenAddressing.mix;
+import static com.android.launcher3.util.OpenAddressing.tableSizeFor;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of int primitives with constant time add and contains, using open addressing with
+ * linear probing. Unlike {@link IntSet}, the values are not kept sorted.
+ *
+ * The value 0 is used to mark the empty slots of the table and is stored outside of it.
+ */
+public class IntHashSet {
+
+    private int[] mKeys;
+    private int mMask;
+    // Number of values in the table, excluding the free key
+    private int mSize;
+    private boolean mHasFreeKey;
+
+    public IntHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Adds {@param value} to the set and returns true if it was not already present.
+     */
+    public boolean add(int value) {
+        if (value == FREE_KEY) {
+            boolean added = !mHasFreeKey;
+            mHasFreeKey = true;
+            return added;
+        }
+        int slot = findSlot(value);
+        if (mKeys[slot] != FREE_KEY) {
+            return false;
+        }
+        mKeys[slot] = value;
+        mSize++;
+        ensureCapacity();
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return value == FREE_KEY ? mHasFreeKey : mKeys[findSlot(value)] != FREE_KEY;
+    }
+
+    /**
+     * Removes {@param value} from the set and returns true if it was present.
+     */
+    public boolean remove(int value) {
+        if (value == FREE_KEY) {
+            boolean removed = mHasFreeKey;
+            mHasFreeKey = false;
+            return removed;
+        }
+        int slot = findSlot(value);
+        if (mKeys[slot] == FREE_KEY) {
+            return false;
+        }
+        int gap = slot;
+        int i = (slot + 1) & mMask;
+        while (mKeys[i] != FREE_KEY) {
+            int ideal = mix(mKeys[i]) & mMask;
+            if (((i - ideal) & mMask) >= ((i - gap) & mMask)) {
+                mKeys[gap] = mKeys[i];
+                gap = i;
+            }
+            i = (i + 1) & mMask;
+        }
+        mKeys[gap] = FREE_KEY;
+        mSize--;
+        return true;
+    }
+
+    public int size() {
+        return mHasFreeKey ? mSize + 1 : mSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(mKeys, FREE_KEY);
+        mSize = 0;
+        mHasFreeKey = false;
+    }
+
+    /**
+     * Calls {@param consumer} for every value, in no particular order. The set must not be
+     * modified while iterating.
+     */
+    public void forEach(IntConsumer consumer) {
+        if (mHasFreeKey) {
+            consumer.accept(FREE_KEY);
+        }
+        for (int key : mKeys) {
+            if (key != FREE_KEY) {
+                consumer.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the values of this set as a sorted {@link IntArray}.
+     */
+    public IntArray toSortedArray() {
+        IntArray result = new IntArray(size());
+        forEach(result::add);
+        Arrays.sort(result.mValues, 0, result.mSize);
+        return result;
+    }
+
+    private int findSlot(int value) {
+        int slot = mix(value) & mMask;
+        while (mKeys[slot] != FREE_KEY && mKeys[slot] != value) {
+            slot = (slot + 1) & mMask;
+        }
+        return slot;
+    }
+
+    private void ensureCapacity() {
+        if (!isOverLoaded(mSize, mKeys.length)) {
+            return;
+        }
+        int[] oldKeys = mKeys;
+        allocate(oldKeys.length * 2);
+        for (int key : oldKeys) {
+            if (key != FREE_KEY) {
+                mKeys[findSlot(key)] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new int[capacity];
+        mMask = capacity - 1;
+    }
+
+    /**
+     * Returns an IntHashSet with the given values.
+     */
+    public static IntHashSet wrap(int... values) {
+        IntHashSet set = new IntHashSet(values.length);
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    @Override
+    public String toString() {
+        return "IntHashSet{" + toSortedArray().toConcatString() + '}';
+    }
+}
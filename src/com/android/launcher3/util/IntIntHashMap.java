@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.util.OpenAddressing.DEFAULT_CAPACITY;
+import static com.android.launcher3.util.OpenAddressing.FREE_KEY;
+import static com.android.launcher3.util.OpenAddressing.isOverLoaded;
+import static com.android.launcher3.util.OpenAddressing.mix;
+import static com.android.launcher3.util.OpenAddressing.tableSizeFor;
+
+import java.util.Arrays;
+
+/**
+ * A map of int primitives to int primitives, using open addressing with linear probing so that
+ * lookups and updates do not box or allocate.
+ *
+ * The key 0 is used to mark the empty slots of the table and is stored outside of it.
+ */
+public class IntIntHashMap {
+
+    private int[] mKeys;
+    private int[] mValues;
+    private int mMask;
+    // Number of keys in the table, excluding the free key
+    private int mSize;
+
+    private boolean mHasFreeKey;
+    private int mFreeKeyValue;
+
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Returns the value mapped to {@param key}, or {@param defaultValue} if there is none.
+     */
+    public int get(int key, int defaultValue) {
+        if (key == FREE_KEY) {
+            return mHasFreeKey ? mFreeKeyValue : defaultValue;
+        }
+        int slot = findSlot(key);
+        return mKeys[slot] == FREE_KEY ? defaultValue : mValues[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return key == FREE_KEY ? mHasFreeKey : mKeys[findSlot(key)] != FREE_KEY;
+    }
+
+    /**
+     * Maps {@param key} to {@param value}, replacing any existing value.
+     */
+    public void put(int key, int value) {
+        if (key == FREE_KEY) {
+            mHasFreeKey = true;
+            mFreeKeyValue = value;
+            return;
+        }
+        int slot = findSlot(key);
+        if (mKeys[slot] == FREE_KEY) {
+            mKeys[slot] = key;
+            mSize++;
+            mValues[slot] = value;
+            ensureCapacity();
+        } else {
+            mValues[slot] = value;
+        }
+    }
+
+    /**
+     * Adds {@param delta} to the value of {@param key}, treating a missing value as 0, and
+     * returns the new value.
+     */
+    public int increment(int key, int delta) {
+        int value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Removes the mapping for {@param key} and returns true if there was one.
+     */
+    public boolean remove(int key) {
+        if (key == FREE_KEY) {
+            boolean hadFreeKey = mHasFreeKey;
+            mHasFreeKey = false;
+            return hadFreeKey;
+        }
+        int slot = findSlot(key);
+        if (mKeys[slot] == FREE_KEY) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    public int size() {
+        return mHasFreeKey ? mSize + 1 : mSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(mKeys, FREE_KEY);
+        mSize = 0;
+        mHasFreeKey = false;
+    }
+
+    /**
+     * Calls {@param consumer} for every mapping, in no particular order. The map must not be
+     * modified while iterating.
+     */
+    public void forEach(Consumer consumer) {
+        if (mHasFreeKey) {
+            consumer.accept(FREE_KEY, mFreeKeyValue);
+        }
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i] != FREE_KEY) {
+                consumer.accept(mKeys[i], mValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the slot containing {@param key}, or the free slot where it should be inserted.
+     */
+    private int findSlot(int key) {
+        int slot = mix(key) & mMask;
+        while (mKeys[slot] != FREE_KEY && mKeys[slot] != key) {
+            slot = (slot + 1) & mMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Frees {@param slot}, shifting back the following keys of the probe sequence so that
+     * lookups never need to skip removed slots.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int i = (slot + 1) & mMask;
+        while (mKeys[i] != FREE_KEY) {
+            int ideal = mix(mKeys[i]) & mMask;
+            if (((i - ideal) & mMask) >= ((i - gap) & mMask)) {
+                mKeys[gap] = mKeys[i];
+                mValues[gap] = mValues[i];
+                gap = i;
+            }
+            i = (i + 1) & mMask;
+        }
+        mKeys[gap] = FREE_KEY;
+        mSize--;
+    }
+
+    private void ensureCapacity() {
+        if (!isOverLoaded(mSize, mKeys.length)) {
+            return;
+        }
+        int[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE_KEY) {
+                int slot = findSlot(oldKeys[i]);
+                mKeys[slot] = oldKeys[i];
+                mValues[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new int[capacity];
+        mValues = new int[capacity];
+        mMask = capacity - 1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("IntIntHashMap{");
+        forEach((key, value) -> sb.append(key).append('=').append(value).append(", "));
+        if (!isEmpty()) {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Callback for iterating over the mappings of an {@link IntIntHashMap}.
+     */
+    public interface Consumer {
+        void accept(int key, int value);
+    }
+}
@@ -76,11 +76,18 @@ public abstract class ItemInfoMatcher {
         return info -> info != null && ids.contains(info.id);
     }
 
+    /**
+     * Returns a matcher for items with provided ids
+     */
+    public static Predicate<ItemInfo> ofItemIds(IntHashSet ids) {
+        return info -> info != null && ids.contains(info.id);
+    }
+
     /**
      * Returns a matcher for items with provided items
      */
     public static Predicate<ItemInfo> ofItems(Collection<? extends ItemInfo> items) {
-        IntSet ids = new IntSet();
+        IntHashSet ids = new IntHashSet(items.size());
         items.forEach(item -> ids.add(item.id));
         return ofItemIds(ids);
     }
@@ -30,10 +30,8 @@ public class LabelComparator implements Comparator<String> {
     public int compare(String titleA, String titleB) {
         // Ensure that we de-prioritize any titles that don't start with a
         // linguistic letter or digit
-        boolean aStartsWithLetter = (titleA.length() > 0) &&
-                Character.isLetterOrDigit(titleA.codePointAt(0));
-        boolean bStartsWithLetter = (titleB.length() > 0) &&
-                Character.isLetterOrDigit(titleB.codePointAt(0));
+        boolean aStartsWithLetter = startsWithLetterOrDigit(titleA);
+        boolean bStartsWithLetter = startsWithLetterOrDigit(titleB);
         if (aStartsWithLetter && !bStartsWithLetter) {
             return -1;
         } else if (!aStartsWithLetter && bStartsWithLetter) {
@@ -43,4 +41,34 @@ public class LabelComparator implements Comparator<String> {
         // Order by the title in the current locale
         return mCollator.compare(titleA, titleB);
     }
+
+    /**
+     * Returns a sort key for {@param title} such that comparing two keys using
+     * {@link #compareSortKeys} gives the same result as {@link #compare}.
+     */
+    public byte[] getSortKey(String title) {
+        byte[] collationKey = mCollator.getCollationKey(title).toByteArray();
+        byte[] key = new byte[collationKey.length + 1];
+        key[0] = (byte) (startsWithLetterOrDigit(title) ? 0 : 1);
+        System.arraycopy(collationKey, 0, key, 1, collationKey.length);
+        return key;
+    }
+
+    /**
+     * Compares two keys returned by {@link #getSortKey} as unsigned bytes.
+     */
+    public static int compareSortKeys(byte[] keyA, byte[] keyB) {
+        int length = Math.min(keyA.length, keyB.length);
+        for (int i = 0; i < length; i++) {
+            int result = (keyA[i] & 0xFF) - (keyB[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return keyA.length - keyB.length;
+    }
+
+    private static boolean startsWithLetterOrDigit(String title) {
+        return title.length() > 0 && Character.isLetterOrDigit(title.codePointAt(0));
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.util.OpenAddressing.DEFAULT_CAPACITY;
+import static com.android.launcher3.util.OpenAddressing.isOverLoaded;
+import static com.android.launcher3.util.OpenAddressing.mix;
+import static com.android.launcher3.util.OpenAddressing.tableSizeFor;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A map of non-null objects to int primitives, using open addressing with linear probing so that
+ * the values are never boxed.
+ *
+ * @param <K> the type of the keys
+ */
+public class ObjectIntHashMap<K> {
+
+    private Object[] mKeys;
+    private int[] mValues;
+    private int mMask;
+    private int mSize;
+
+    public ObjectIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ObjectIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Creates a copy of {@param other}.
+     */
+    public ObjectIntHashMap(@NonNull ObjectIntHashMap<? extends K> other) {
+        mKeys = other.mKeys.clone();
+        mValues = other.mValues.clone();
+        mMask = other.mMask;
+        mSize = other.mSize;
+    }
+
+    /**
+     * Returns the value mapped to {@param key}, or {@param defaultValue} if there is none.
+     */
+    public int get(@NonNull K key, int defaultValue) {
+        int slot = findSlot(key);
+        return mKeys[slot] == null ? defaultValue : mValues[slot];
+    }
+
+    public boolean containsKey(@NonNull K key) {
+        return mKeys[findSlot(key)] != null;
+    }
+
+    /**
+     * Maps {@param key} to {@param value}, replacing any existing value.
+     */
+    public void put(@NonNull K key, int value) {
+        int slot = findSlot(key);
+        mValues[slot] = value;
+        if (mKeys[slot] == null) {
+            mKeys[slot] = key;
+            mSize++;
+            ensureCapacity();
+        }
+    }
+
+    /**
+     * Adds {@param delta} to the value of {@param key}, treating a missing value as 0, and
+     * returns the new value.
+     */
+    public int increment(@NonNull K key, int delta) {
+        int slot = findSlot(key);
+        if (mKeys[slot] != null) {
+            return mValues[slot] += delta;
+        }
+        mKeys[slot] = key;
+        mValues[slot] = delta;
+        mSize++;
+        ensureCapacity();
+        return delta;
+    }
+
+    /**
+     * Removes the mapping for {@param key} and returns true if there was one.
+     */
+    public boolean remove(@NonNull K key) {
+        int slot = findSlot(key);
+        if (mKeys[slot] == null) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes all the mappings whose key matches {@param filter} and returns true if any was
+     * removed.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(@NonNull Predicate<? super K> filter) {
+        // Scan from a free slot, so that no probe sequence wraps around the start of the scan
+        // and the keys shifted back by a removal are never moved to a slot already scanned
+        int start = 0;
+        while (mKeys[start] != null) {
+            start++;
+        }
+        int oldSize = mSize;
+        int scanned = 0;
+        while (scanned < mKeys.length) {
+            int slot = (start + scanned) & mMask;
+            if (mKeys[slot] != null && filter.test((K) mKeys[slot])) {
+                // The slot is scanned again as a following key may have been shifted into it
+                removeSlot(slot);
+            } else {
+                scanned++;
+            }
+        }
+        return mSize != oldSize;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(mKeys, null);
+        mSize = 0;
+    }
+
+    /**
+     * Calls {@param consumer} for every mapping, in no particular order. The map must not be
+     * modified while iterating.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(@NonNull ObjIntConsumer<? super K> consumer) {
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i] != null) {
+                consumer.accept((K) mKeys[i], mValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Frees {@param slot}, shifting back the following keys of the probe sequence so that
+     * lookups never need to skip removed slots.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int i = (slot + 1) & mMask;
+        while (mKeys[i] != null) {
+            int ideal = mix(mKeys[i].hashCode()) & mMask;
+            if (((i - ideal) & mMask) >= ((i - gap) & mMask)) {
+                mKeys[gap] = mKeys[i];
+                mValues[gap] = mValues[i];
+                gap = i;
+            }
+            i = (i + 1) & mMask;
+        }
+        mKeys[gap] = null;
+        mSize--;
+    }
+
+    private int findSlot(@NonNull Object key) {
+        int slot = mix(key.hashCode()) & mMask;
+        while (mKeys[slot] != null && !mKeys[slot].equals(key)) {
+            slot = (slot + 1) & mMask;
+        }
+        return slot;
+    }
+
+    private void ensureCapacity() {
+        if (!isOverLoaded(mSize, mKeys.length)) {
+            return;
+        }
+        Object[] oldKeys = mKeys;
+        int[] oldValues = mValues;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                mKeys[slot] = oldKeys[i];
+                mValues[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new Object[capacity];
+        mValues = new int[capacity];
+        mMask = capacity - 1;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ObjectIntHashMap) || ((ObjectIntHashMap<?>) obj).mSize != mSize) {
+            return false;
+        }
+        ObjectIntHashMap<?> other = (ObjectIntHashMap<?>) obj;
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i] != null) {
+                int slot = other.findSlot(mKeys[i]);
+                if (other.mKeys[slot] == null || other.mValues[slot] != mValues[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i] != null) {
+                hash += mKeys[i].hashCode() ^ mValues[i];
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ObjectIntHashMap{");
+        forEach((key, value) -> sb.append(key).append('=').append(value).append(", "));
+        if (mSize > 0) {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+/**
+ * Utilities shared by the hash collections using open addressing with linear probing.
+ */
+final class OpenAddressing {
+
+    static final int DEFAULT_CAPACITY = 16;
+    // Marks the empty slots of the tables of int keys
+    static final int FREE_KEY = 0;
+
+    private OpenAddressing() { }
+
+    /**
+     * Spreads the bits of {@param hash} so that sequential keys do not cluster in the table.
+     */
+    static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the power of two table size which can hold {@param expectedSize} keys.
+     */
+    static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (isOverLoaded(expectedSize, capacity)) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns true if a table of {@param capacity} slots is too full with {@param size} keys,
+     * keeping the load under 1/2 as linear probing degrades quickly above it.
+     */
+    static boolean isOverLoaded(int size, int capacity) {
+        return size * 2 > capacity;
+    }
+}
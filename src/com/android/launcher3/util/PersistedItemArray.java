@@ -16,6 +16,8 @@
 
 package com.android.launcher3.util;
 
+import static com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR;
+
 import android.content.Context;
 import android.content.Intent;
 import android.os.UserHandle;
@@ -23,6 +25,7 @@ import android.util.AtomicFile;
 import android.util.Log;
 import android.util.Xml;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
@@ -33,8 +36,14 @@ import com.android.launcher3.pm.UserCache;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlSerializer;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -42,13 +51,17 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.LongFunction;
 
 /**
  * Utility class to read/write a list of {@link com.android.launcher3.model.data.ItemInfo} on disk.
- * This class is not thread safe, the caller should ensure proper threading
+ *
+ * The list is stored as a log of length-prefixed records, each setting one slot of the list or
+ * its size. Writing a list only appends the records for the slots which changed since the last
+ * write, and the log is compacted into a snapshot on a background thread once it grows too long.
+ * Items are only resolved when the list is read, one record at a time.
  */
 public class PersistedItemArray<T extends ItemInfo> {
 
@@ -57,10 +70,33 @@ public class PersistedItemArray<T extends ItemInfo> {
     private static final String TAG_ROOT = "items";
     private static final String TAG_ENTRY = "entry";
 
+    private static final int FILE_MAGIC = 0x4c504941;
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte OP_SET = 1;
+    private static final byte OP_SIZE = 2;
+
+    // Minimum number of stale records in the log before it is compacted
+    private static final int MIN_COMPACTION_RECORDS = 32;
+
     private final String mFileName;
+    // Name of the XML file used before the record log
+    private final String mLegacyFileName;
+
+    private final Object mLock = new Object();
+
+    // Records currently stored on disk, or null if the file was not loaded yet
+    @Nullable
+    private List<Record> mRecords;
+    // Length of the file after the last read or write, or -1 if it must be written from scratch
+    private long mFileLength = -1;
+    private int mStaleRecordCount;
+    private boolean mCompactionScheduled;
 
     public PersistedItemArray(String fileName) {
-        mFileName = fileName + ".xml";
+        mFileName = fileName + ".records";
+        mLegacyFileName = fileName + ".xml";
     }
 
     /**
@@ -68,44 +104,63 @@ public class PersistedItemArray<T extends ItemInfo> {
      */
     @WorkerThread
     public void write(Context context, List<T> items) {
-        AtomicFile file = getFile(context);
-        FileOutputStream fos;
-        try {
-            fos = file.startWrite();
-        } catch (IOException e) {
-            Log.e(TAG, "Unable to persist items in " + mFileName, e);
-            return;
+        UserCache userCache = UserCache.INSTANCE.get(context);
+        List<Record> records = new ArrayList<>(items.size());
+        for (T item : items) {
+            Intent intent = item.getIntent();
+            if (intent != null) {
+                records.add(new Record(item.itemType,
+                        userCache.getSerialNumberForUser(item.user), intent.toUri(0)));
+            }
         }
 
-        UserCache userCache = UserCache.INSTANCE.get(context);
+        synchronized (mLock) {
+            File file = context.getFileStreamPath(mFileName);
+            if (mRecords == null || mFileLength < 0 || file.length() != mFileLength) {
+                // Unknown or externally modified content
+                writeSnapshotLocked(context, records);
+                return;
+            }
 
-        try {
-            XmlSerializer out = Xml.newSerializer();
-            out.setOutput(fos, StandardCharsets.UTF_8.name());
-            out.startDocument(null, true);
-            out.startTag(null, TAG_ROOT);
-            for (T item : items) {
-                Intent intent = item.getIntent();
-                if (intent == null) {
-                    continue;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int appendedCount = 0;
+            try {
+                for (int i = 0; i < records.size(); i++) {
+                    if (i >= mRecords.size() || !records.get(i).equals(mRecords.get(i))) {
+                        writeOp(out, OP_SET, i, records.get(i));
+                        appendedCount++;
+                    }
                 }
+                if (records.size() < mRecords.size()) {
+                    writeOp(out, OP_SIZE, records.size(), null);
+                    appendedCount++;
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to persist items in " + mFileName, e);
+                return;
+            }
+            if (appendedCount == 0) {
+                return;
+            }
 
-                out.startTag(null, TAG_ENTRY);
-                out.attribute(null, Favorites.ITEM_TYPE, Integer.toString(item.itemType));
-                out.attribute(null, Favorites.PROFILE_ID,
-                        Long.toString(userCache.getSerialNumberForUser(item.user)));
-                out.attribute(null, Favorites.INTENT, intent.toUri(0));
-                out.endTag(null, TAG_ENTRY);
+            try (FileOutputStream fos = new FileOutputStream(file, true /* append */)) {
+                bytes.writeTo(fos);
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to append items in " + mFileName, e);
+                writeSnapshotLocked(context, records);
+                return;
             }
-            out.endTag(null, TAG_ROOT);
-            out.endDocument();
-        } catch (IOException e) {
-            file.failWrite(fos);
-            Log.e(TAG, "Unable to persist items in " + mFileName, e);
-            return;
-        }
+            mRecords = records;
+            mFileLength = file.length();
+            mStaleRecordCount += appendedCount;
 
-        file.finishWrite(fos);
+            if (!mCompactionScheduled && mStaleRecordCount
+                    >= Math.max(MIN_COMPACTION_RECORDS, records.size())) {
+                mCompactionScheduled = true;
+                THREAD_POOL_EXECUTOR.execute(() -> compact(context));
+            }
+        }
     }
 
     /**
@@ -122,8 +177,129 @@ public class PersistedItemArray<T extends ItemInfo> {
      */
     @WorkerThread
     public List<T> read(Context context, ItemFactory<T> factory, LongFunction<UserHandle> userFn) {
-        List<T> result = new ArrayList<>();
-        try (FileInputStream fis = getFile(context).openRead()) {
+        List<Record> records;
+        synchronized (mLock) {
+            loadLocked(context);
+            records = mRecords;
+        }
+        List<T> result = new ArrayList<>(records.size());
+        for (Record record : records) {
+            T item = record.resolve(factory, userFn);
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the persisted items from the disk
+     */
+    @WorkerThread
+    public void delete(Context context) {
+        synchronized (mLock) {
+            getFile(context).delete();
+            context.getFileStreamPath(mLegacyFileName).delete();
+            mRecords = new ArrayList<>();
+            mFileLength = -1;
+            mStaleRecordCount = 0;
+        }
+    }
+
+    /**
+     * Returns the underlying file used for persisting data
+     */
+    public AtomicFile getFile(Context context) {
+        return new AtomicFile(context.getFileStreamPath(mFileName));
+    }
+
+    @WorkerThread
+    private void compact(Context context) {
+        synchronized (mLock) {
+            mCompactionScheduled = false;
+            if (mRecords != null && mFileLength >= 0
+                    && context.getFileStreamPath(mFileName).length() == mFileLength) {
+                writeSnapshotLocked(context, mRecords);
+            }
+        }
+    }
+
+    private void writeSnapshotLocked(Context context, List<Record> records) {
+        AtomicFile file = getFile(context);
+        FileOutputStream fos;
+        try {
+            fos = file.startWrite();
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to persist items in " + mFileName, e);
+            mFileLength = -1;
+            return;
+        }
+
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            for (int i = 0; i < records.size(); i++) {
+                writeOp(out, OP_SET, i, records.get(i));
+            }
+            out.flush();
+        } catch (IOException e) {
+            file.failWrite(fos);
+            Log.e(TAG, "Unable to persist items in " + mFileName, e);
+            mFileLength = -1;
+            return;
+        }
+
+        file.finishWrite(fos);
+        mRecords = records;
+        mFileLength = file.getBaseFile().length();
+        mStaleRecordCount = 0;
+        context.getFileStreamPath(mLegacyFileName).delete();
+    }
+
+    private void loadLocked(Context context) {
+        List<Record> records = new ArrayList<>();
+        File baseFile = context.getFileStreamPath(mFileName);
+        int opCount = 0;
+        boolean isComplete = false;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(getFile(context).openRead()))) {
+            // Read the length after opening the file, as it can restore a backup
+            long fileLength = baseFile.length();
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unknown file format");
+            }
+            long position = HEADER_SIZE;
+            while (position + Integer.BYTES <= fileLength) {
+                int length = in.readInt();
+                if (length <= 0 || position + Integer.BYTES + length > fileLength) {
+                    // Partially written record
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                applyOp(records, payload);
+                opCount++;
+                position += Integer.BYTES + length;
+            }
+            isComplete = position == fileLength;
+            mFileLength = isComplete ? fileLength : -1;
+        } catch (FileNotFoundException e) {
+            records = readLegacyFile(context);
+            mFileLength = -1;
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read items in " + mFileName, e);
+            records = new ArrayList<>();
+            mFileLength = -1;
+        }
+        mRecords = records;
+        mStaleRecordCount = isComplete ? opCount - records.size() : 0;
+    }
+
+    private List<Record> readLegacyFile(Context context) {
+        List<Record> result = new ArrayList<>();
+        try (FileInputStream fis = new AtomicFile(
+                context.getFileStreamPath(mLegacyFileName)).openRead()) {
             XmlPullParser parser = Xml.newPullParser();
             parser.setInput(new InputStreamReader(fis, StandardCharsets.UTF_8));
 
@@ -137,18 +313,14 @@ public class PersistedItemArray<T extends ItemInfo> {
                     continue;
                 }
                 try {
-                    int itemType = Integer.parseInt(
-                            parser.getAttributeValue(null, Favorites.ITEM_TYPE));
-                    UserHandle user = userFn.apply(Long.parseLong(
-                            parser.getAttributeValue(null, Favorites.PROFILE_ID)));
-                    Intent intent = Intent.parseUri(
-                            parser.getAttributeValue(null, Favorites.INTENT), 0);
-
-                    if (user != null && intent != null) {
-                        T item = factory.createInfo(itemType, user, intent);
-                        if (item != null) {
-                            result.add(item);
-                        }
+                    String intent = parser.getAttributeValue(null, Favorites.INTENT);
+                    if (intent != null) {
+                        result.add(new Record(
+                                Integer.parseInt(parser.getAttributeValue(
+                                        null, Favorites.ITEM_TYPE)),
+                                Long.parseLong(parser.getAttributeValue(
+                                        null, Favorites.PROFILE_ID)),
+                                intent));
                     }
                 } catch (Exception e) {
                     // Ignore this entry
@@ -157,17 +329,97 @@ public class PersistedItemArray<T extends ItemInfo> {
         } catch (FileNotFoundException e) {
             // Ignore
         } catch (IOException | XmlPullParserException e) {
-            Log.e(TAG, "Unable to read items in " + mFileName, e);
-            return Collections.emptyList();
+            Log.e(TAG, "Unable to read items in " + mLegacyFileName, e);
+            return new ArrayList<>();
         }
         return result;
     }
 
+    private static void writeOp(DataOutputStream out, byte op, int slot,
+            @Nullable Record record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(op);
+        payload.writeInt(slot);
+        if (record != null) {
+            payload.writeInt(record.itemType);
+            payload.writeLong(record.profileId);
+            payload.writeUTF(record.intent);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private static void applyOp(List<Record> records, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        int slot = in.readInt();
+        switch (op) {
+            case OP_SET: {
+                if (slot < 0 || slot > records.size()) {
+                    throw new IOException("Invalid slot " + slot);
+                }
+                Record record = new Record(in.readInt(), in.readLong(), in.readUTF());
+                if (slot == records.size()) {
+                    records.add(record);
+                } else {
+                    records.set(slot, record);
+                }
+                break;
+            }
+            case OP_SIZE: {
+                while (records.size() > slot) {
+                    records.remove(records.size() - 1);
+                }
+                break;
+            }
+            default:
+                // Unknown operation, skip it
+        }
+    }
+
     /**
-     * Returns the underlying file used for persisting data
+     * A single persisted item, which is only resolved when needed
      */
-    public AtomicFile getFile(Context context) {
-        return new AtomicFile(context.getFileStreamPath(mFileName));
+    private static class Record {
+
+        final int itemType;
+        final long profileId;
+        @NonNull
+        final String intent;
+
+        Record(int itemType, long profileId, @NonNull String intent) {
+            this.itemType = itemType;
+            this.profileId = profileId;
+            this.intent = intent;
+        }
+
+        @Nullable
+        <T extends ItemInfo> T resolve(ItemFactory<T> factory, LongFunction<UserHandle> userFn) {
+            try {
+                UserHandle user = userFn.apply(profileId);
+                Intent intent = Intent.parseUri(this.intent, 0);
+                return user != null && intent != null
+                        ? factory.createInfo(itemType, user, intent) : null;
+            } catch (Exception e) {
+                // Ignore this entry
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Record)) return false;
+            Record other = (Record) o;
+            return itemType == other.itemType && profileId == other.profileId
+                    && intent.equals(other.intent);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(itemType, profileId, intent);
+        }
     }
 
     /**
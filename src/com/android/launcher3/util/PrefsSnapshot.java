@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.Utilities.DESKTOP_SHOW_QUICKSPACE;
+import static com.android.launcher3.Utilities.KEY_ALLOW_WALLPAPER_ZOOMING;
+import static com.android.launcher3.Utilities.KEY_APP_DRAWER_OPACITY;
+import static com.android.launcher3.Utilities.KEY_BLUR_DEPTH;
+import static com.android.launcher3.Utilities.KEY_DOCK_MUSIC_SEARCH;
+import static com.android.launcher3.Utilities.KEY_DOCK_SEARCH;
+import static com.android.launcher3.Utilities.KEY_DOCK_THEME;
+import static com.android.launcher3.Utilities.KEY_DRAWER_SEARCH;
+import static com.android.launcher3.Utilities.KEY_FORCE_MONOCHROME_ICONS;
+import static com.android.launcher3.Utilities.KEY_HOTSEAT_OPACITY;
+import static com.android.launcher3.Utilities.KEY_RECENTS_MEMINFO;
+import static com.android.launcher3.Utilities.KEY_RECENTS_OPACITY;
+import static com.android.launcher3.Utilities.KEY_SEARCH_RADIUS;
+import static com.android.launcher3.Utilities.KEY_SHORT_PARALLAX;
+import static com.android.launcher3.Utilities.KEY_SHOW_ALT_QUICKSPACE;
+import static com.android.launcher3.Utilities.KEY_SHOW_HOTSEAT_BG;
+import static com.android.launcher3.Utilities.KEY_SHOW_QUICKSPACE_NOWPLAYING;
+import static com.android.launcher3.Utilities.KEY_SHOW_QUICKSPACE_PSONALITY;
+import static com.android.launcher3.Utilities.KEY_SHOW_QUICKSPACE_WEATHER;
+import static com.android.launcher3.Utilities.KEY_SHOW_QUICKSPACE_WEATHER_CITY;
+import static com.android.launcher3.Utilities.KEY_SHOW_QUICKSPACE_WEATHER_TEXT;
+import static com.android.launcher3.Utilities.KEY_SINGLE_PAGE_CENTER;
+import static com.android.launcher3.Utilities.KEY_STATUS_BAR;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import com.android.launcher3.LauncherPrefs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable, typed copy of the launcher preferences which are read on hot paths (state scrims,
+ * view setup during transitions, etc). Reading a field does not touch the preferences map and
+ * does not box values. A new snapshot is built whenever one of the tracked keys changes.
+ */
+public final class PrefsSnapshot {
+
+    public static final MainThreadInitializedObject<Tracker> TRACKER =
+            new MainThreadInitializedObject<>(Tracker::new);
+
+    // Value of blurDepth when it is not set, as the default depends on the resources of the caller
+    public static final int DEFAULT_BLUR_DEPTH = -1;
+
+    private static final Set<String> TRACKED_KEYS = new HashSet<>(Arrays.asList(
+            KEY_DOCK_SEARCH, KEY_DOCK_MUSIC_SEARCH, KEY_DOCK_THEME, KEY_SEARCH_RADIUS,
+            KEY_SHOW_HOTSEAT_BG, KEY_HOTSEAT_OPACITY, KEY_ALLOW_WALLPAPER_ZOOMING, KEY_STATUS_BAR,
+            KEY_RECENTS_MEMINFO, KEY_RECENTS_OPACITY, KEY_APP_DRAWER_OPACITY, KEY_BLUR_DEPTH,
+            KEY_SHORT_PARALLAX, KEY_SINGLE_PAGE_CENTER, KEY_DRAWER_SEARCH, DESKTOP_SHOW_QUICKSPACE,
+            KEY_SHOW_ALT_QUICKSPACE, KEY_SHOW_QUICKSPACE_PSONALITY, KEY_SHOW_QUICKSPACE_NOWPLAYING,
+            KEY_SHOW_QUICKSPACE_WEATHER, KEY_SHOW_QUICKSPACE_WEATHER_CITY,
+            KEY_SHOW_QUICKSPACE_WEATHER_TEXT, KEY_FORCE_MONOCHROME_ICONS));
+
+    public final boolean dockSearch;
+    public final boolean dockMusicSearch;
+    public final boolean dockTheme;
+    public final int searchRadius;
+    public final boolean showHotseatBg;
+    public final int hotseatOpacity;
+    public final boolean allowWallpaperZooming;
+    public final boolean showStatusBar;
+    public final boolean recentsMeminfo;
+    public final int recentsOpacity;
+    public final int appDrawerOpacity;
+    // The blur depth set by the user, or DEFAULT_BLUR_DEPTH
+    public final int blurDepth;
+    public final boolean shortParallax;
+    public final boolean singlePageCenter;
+    public final boolean drawerSearch;
+    public final boolean showQuickspace;
+    public final boolean altQuickspace;
+    public final boolean quickspacePersonality;
+    public final boolean quickspaceNowPlaying;
+    public final boolean quickspaceWeather;
+    public final boolean quickspaceWeatherCity;
+    public final boolean quickspaceWeatherText;
+    public final boolean forceMonochromeIcons;
+
+    private PrefsSnapshot(SharedPreferences prefs) {
+        dockSearch = prefs.getBoolean(KEY_DOCK_SEARCH, true);
+        dockMusicSearch = prefs.getBoolean(KEY_DOCK_MUSIC_SEARCH, false);
+        dockTheme = prefs.getBoolean(KEY_DOCK_THEME, false);
+        searchRadius = prefs.getInt(KEY_SEARCH_RADIUS, 100);
+        showHotseatBg = prefs.getBoolean(KEY_SHOW_HOTSEAT_BG, false);
+        hotseatOpacity = prefs.getInt(KEY_HOTSEAT_OPACITY, 40);
+        allowWallpaperZooming = prefs.getBoolean(KEY_ALLOW_WALLPAPER_ZOOMING, true);
+        showStatusBar = prefs.getBoolean(KEY_STATUS_BAR, true);
+        recentsMeminfo = prefs.getBoolean(KEY_RECENTS_MEMINFO, false);
+        recentsOpacity = prefs.getInt(KEY_RECENTS_OPACITY, 40);
+        appDrawerOpacity = prefs.getInt(KEY_APP_DRAWER_OPACITY, 100);
+        blurDepth = prefs.getInt(KEY_BLUR_DEPTH, DEFAULT_BLUR_DEPTH);
+        shortParallax = prefs.getBoolean(KEY_SHORT_PARALLAX, false);
+        singlePageCenter = prefs.getBoolean(KEY_SINGLE_PAGE_CENTER, false);
+        drawerSearch = prefs.getBoolean(KEY_DRAWER_SEARCH, true);
+        showQuickspace = prefs.getBoolean(DESKTOP_SHOW_QUICKSPACE, true);
+        altQuickspace = prefs.getBoolean(KEY_SHOW_ALT_QUICKSPACE, false);
+        quickspacePersonality = prefs.getBoolean(KEY_SHOW_QUICKSPACE_PSONALITY, true);
+        quickspaceNowPlaying = prefs.getBoolean(KEY_SHOW_QUICKSPACE_NOWPLAYING, true);
+        quickspaceWeather = prefs.getBoolean(KEY_SHOW_QUICKSPACE_WEATHER, true);
+        quickspaceWeatherCity = prefs.getBoolean(KEY_SHOW_QUICKSPACE_WEATHER_CITY, false);
+        quickspaceWeatherText = prefs.getBoolean(KEY_SHOW_QUICKSPACE_WEATHER_TEXT, true);
+        forceMonochromeIcons = prefs.getBoolean(KEY_FORCE_MONOCHROME_ICONS, false);
+    }
+
+    /**
+     * Returns the current snapshot of the launcher preferences.
+     */
+    @NonNull
+    public static PrefsSnapshot get(@NonNull Context context) {
+        return TRACKER.get(context).getSnapshot();
+    }
+
+    /**
+     * Keeps the current {@link PrefsSnapshot} up to date and dispatches per-key change events.
+     */
+    public static class Tracker implements OnSharedPreferenceChangeListener, SafeCloseable {
+
+        private final SharedPreferences mPrefs;
+
+        // Only accessed on the main thread
+        private final HashMap<String, ArrayList<Runnable>> mListeners = new HashMap<>();
+
+        private volatile PrefsSnapshot mSnapshot;
+
+        private Tracker(Context context) {
+            mPrefs = LauncherPrefs.getPrefs(context);
+            mSnapshot = new PrefsSnapshot(mPrefs);
+            mPrefs.registerOnSharedPreferenceChangeListener(this);
+        }
+
+        @NonNull
+        public PrefsSnapshot getSnapshot() {
+            return mSnapshot;
+        }
+
+        /**
+         * Adds a listener which is called on the main thread after {@param key} has changed and
+         * the snapshot has been updated.
+         */
+        @UiThread
+        public void addListener(@NonNull String key, @NonNull Runnable listener) {
+            mListeners.computeIfAbsent(key, k -> new ArrayList<>()).add(listener);
+        }
+
+        @UiThread
+        public void removeListener(@NonNull String key, @NonNull Runnable listener) {
+            ArrayList<Runnable> listeners = mListeners.get(key);
+            if (listeners != null) {
+                listeners.remove(listener);
+                if (listeners.isEmpty()) {
+                    mListeners.remove(key);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            mPrefs.unregisterOnSharedPreferenceChangeListener(this);
+        }
+
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences prefs, @Nullable String key) {
+            // A null key means the preferences were cleared
+            if (key != null && !TRACKED_KEYS.contains(key)) {
+                return;
+            }
+            mSnapshot = new PrefsSnapshot(mPrefs);
+            if (key == null) {
+                for (String k : new ArrayList<>(mListeners.keySet())) {
+                    notifyListeners(k);
+                }
+            } else {
+                notifyListeners(key);
+            }
+        }
+
+        private void notifyListeners(String key) {
+            ArrayList<Runnable> listeners = mListeners.get(key);
+            if (listeners != null) {
+                // Copy to allow listeners to unregister themselves
+                for (Runnable listener : new ArrayList<>(listeners)) {
+                    listener.run();
+                }
+            }
+        }
+    }
+}
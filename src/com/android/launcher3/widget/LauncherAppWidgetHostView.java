@@ -28,6 +28,8 @@ import android.os.Trace;
 import android.util.Log;
 import android.util.SparseBooleanArray;
 import android.util.SparseIntArray;
+import android.view.Choreographer;
+import android.view.Choreographer.FrameCallback;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewDebug;
@@ -95,6 +97,21 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
 
     private boolean mTrackingWidgetUpdate = false;
 
+    // Set once the view has been replaced by a placeholder to free up its content.
+    private boolean mIsReleased = false;
+
+    // Latest RemoteViews which have not been applied yet, either because the widget is not
+    // visible or because an update was already applied in the current frame.
+    private RemoteViews mPendingRemoteViews;
+    private boolean mHasPendingRemoteViews = false;
+    private boolean mHasAppliedRemoteViews = false;
+    private boolean mAppliedInCurrentFrame = false;
+    private final FrameCallback mApplyFrameCallback = frameTimeNanos -> {
+        mAppliedInCurrentFrame = false;
+        applyDeferredRemoteViews();
+    };
+    private final Rect mTmpVisibleRect = new Rect();
+
     public LauncherAppWidgetHostView(Context context) {
         super(context);
         mLauncher = Launcher.getLauncher(context);
@@ -142,6 +159,9 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
     @Override
     @TargetApi(Build.VERSION_CODES.Q)
     public void updateAppWidget(RemoteViews remoteViews) {
+        if (mIsReleased) {
+            return;
+        }
         if (mTrackingWidgetUpdate && remoteViews != null && Utilities.ATLEAST_Q) {
             Log.i(TAG, "App widget with id: " + getAppWidgetId() + " loaded");
             Trace.endAsyncSection(
@@ -161,6 +181,52 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
             mLastRemoteViews = null;
         }
 
+        LauncherWidgetHolder holder = mLauncher.getAppWidgetHolder();
+        holder.recordWidgetUpdateReceived(getAppWidgetId());
+        // Always apply the first update so that the widget is not bound empty. After that only
+        // keep the latest update until the widget is visible and at most apply one per frame.
+        if (mHasAppliedRemoteViews && (mAppliedInCurrentFrame || !canApplyRemoteViews(holder))) {
+            mPendingRemoteViews = remoteViews;
+            mHasPendingRemoteViews = true;
+            if (!mAppliedInCurrentFrame && isAttachedToWindow()) {
+                holder.deferWidgetUpdate(this);
+            }
+            return;
+        }
+        applyRemoteViews(holder, remoteViews);
+    }
+
+    /**
+     * Applies the latest deferred {@link RemoteViews} update, if any, if the widget can be
+     * updated now.
+     */
+    public void applyDeferredRemoteViews() {
+        if (!mHasPendingRemoteViews || mAppliedInCurrentFrame || mIsReleased) {
+            return;
+        }
+        LauncherWidgetHolder holder = mLauncher.getAppWidgetHolder();
+        if (!canApplyRemoteViews(holder)) {
+            if (isAttachedToWindow()) {
+                holder.deferWidgetUpdate(this);
+            }
+            return;
+        }
+        applyRemoteViews(holder, mPendingRemoteViews);
+    }
+
+    private boolean canApplyRemoteViews(LauncherWidgetHolder holder) {
+        return holder.canApplyWidgetUpdates() && isAttachedToWindow() && isShown()
+                && getGlobalVisibleRect(mTmpVisibleRect);
+    }
+
+    private void applyRemoteViews(LauncherWidgetHolder holder, RemoteViews remoteViews) {
+        mPendingRemoteViews = null;
+        mHasPendingRemoteViews = false;
+        mHasAppliedRemoteViews = true;
+        mAppliedInCurrentFrame = true;
+        Choreographer.getInstance().postFrameCallback(mApplyFrameCallback);
+        holder.recordWidgetUpdateApplied(getAppWidgetId());
+
         super.updateAppWidget(remoteViews);
 
         // The provider info or the views might have changed.
@@ -261,6 +327,18 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
         mIsAttachedToWindow = true;
         checkIfAutoAdvance();
         mColorExtractor.setListener(this);
+        if (mHasPendingRemoteViews) {
+            // Wait for the layout to know whether the widget is visible
+            post(this::applyDeferredRemoteViews);
+        }
+    }
+
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        if (isVisible) {
+            applyDeferredRemoteViews();
+        }
     }
 
     @Override
@@ -331,6 +409,9 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
 
     @Override
     public void onColorsChanged(SparseIntArray colors) {
+        if (mIsReleased) {
+            return;
+        }
         if (isDeferringUpdates()) {
             mDeferredColorChange = colors;
             mHasDeferredColorChange = true;
@@ -430,6 +511,18 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
         }
     }
 
+    /**
+     * Drops the inflated content of this view after it has been replaced on the workspace by a
+     * placeholder. Any further updates to this view are ignored.
+     */
+    public void release() {
+        mIsReleased = true;
+        mLastRemoteViews = null;
+        mPendingRemoteViews = null;
+        mHasPendingRemoteViews = false;
+        removeAllViews();
+    }
+
     public void reInflate() {
         if (!isAttachedToWindow()) {
             return;
@@ -27,7 +27,10 @@ import android.appwidget.AppWidgetProviderInfo;
 import android.content.ActivityNotFoundException;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.ArraySet;
 import android.util.SparseArray;
 import android.widget.RemoteViews;
 import android.widget.Toast;
@@ -41,6 +44,7 @@ import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.config.FeatureFlags;
+import com.android.launcher3.icons.BitmapRenderer;
 import com.android.launcher3.model.WidgetsModel;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.testing.TestLogging;
@@ -49,6 +53,9 @@ import com.android.launcher3.util.ActivityOptionsWrapper;
 import com.android.launcher3.util.ResourceBasedOverride;
 import com.android.launcher3.widget.custom.CustomWidgetManager;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Locale;
 import java.util.function.IntConsumer;
 
 /**
@@ -64,6 +71,10 @@ public class LauncherWidgetHolder {
     protected static final int FLAG_ACTIVITY_RESUMED = 1 << 3;
     private static final int FLAGS_SHOULD_LISTEN =
             FLAG_STATE_IS_NORMAL | FLAG_ACTIVITY_STARTED | FLAG_ACTIVITY_RESUMED;
+    private static final int FLAGS_CAN_APPLY_UPDATES =
+            FLAG_STATE_IS_NORMAL | FLAG_ACTIVITY_RESUMED;
+
+    private static final int MAX_DUMPED_UPDATE_STATS = 10;
 
     @NonNull
     private final Context mContext;
@@ -77,6 +88,14 @@ public class LauncherWidgetHolder {
     private final SparseArray<PendingAppWidgetHostView> mPendingViews = new SparseArray<>();
     @NonNull
     private final SparseArray<LauncherAppWidgetHostView> mDeferredViews = new SparseArray<>();
+    // Snapshots of released widgets, shown by their placeholders until they are inflated again
+    @NonNull
+    private final SparseArray<Bitmap> mWidgetSnapshots = new SparseArray<>();
+    // Views holding RemoteViews which are not applied until the widget is visible again
+    @NonNull
+    private final ArraySet<LauncherAppWidgetHostView> mViewsWithDeferredUpdates = new ArraySet<>();
+    @NonNull
+    private final SparseArray<UpdateStats> mUpdateStats = new SparseArray<>();
 
     protected int mFlags = FLAG_STATE_IS_NORMAL;
 
@@ -126,7 +145,8 @@ public class LauncherWidgetHolder {
         // We go in reverse order and inflate any deferred or cached widget
         for (int i = mViews.size() - 1; i >= 0; i--) {
             LauncherAppWidgetHostView view = mViews.valueAt(i);
-            if (view instanceof DeferredAppWidgetHostView) {
+            if (view instanceof DeferredAppWidgetHostView
+                    && !(view instanceof LazyAppWidgetHostView)) {
                 view.reInflate();
             }
             if (FeatureFlags.ENABLE_CACHED_WIDGET.get()) {
@@ -175,6 +195,8 @@ public class LauncherWidgetHolder {
     public void deleteAppWidgetId(int appWidgetId) {
         mWidgetHost.deleteAppWidgetId(appWidgetId);
         mViews.remove(appWidgetId);
+        mWidgetSnapshots.remove(appWidgetId);
+        mUpdateStats.remove(appWidgetId);
         if (FeatureFlags.ENABLE_CACHED_WIDGET.get()) {
             final LauncherAppState state = LauncherAppState.getInstance(mContext);
             synchronized (state.mCachedRemoteViews) {
@@ -420,6 +442,50 @@ public class LauncherWidgetHolder {
         }
     }
 
+    /**
+     * Create a lightweight placeholder for a widget which is far from the visible pages. The
+     * placeholder does not receive updates and should be replaced by a view from
+     * {@link #createView} before it becomes visible.
+     * @param context The activity context for which the view is created
+     * @param appWidgetId The ID of the widget
+     * @param appWidget The {@link LauncherAppWidgetProviderInfo} of the widget
+     * @return A placeholder view for the widget
+     */
+    @NonNull
+    public AppWidgetHostView createLazyView(@NonNull Context context, int appWidgetId,
+            @NonNull LauncherAppWidgetProviderInfo appWidget) {
+        if (appWidget.isCustomWidget()) {
+            return createView(context, appWidgetId, appWidget);
+        }
+        LazyAppWidgetHostView view = new LazyAppWidgetHostView(context);
+        view.setAppWidget(appWidgetId, appWidget);
+        // The placeholder owns the snapshot from now on
+        view.setSnapshot(mWidgetSnapshots.get(appWidgetId));
+        mWidgetSnapshots.remove(appWidgetId);
+        return view;
+    }
+
+    /**
+     * Releases the content of a widget view which is about to be replaced by a placeholder,
+     * optionally keeping a snapshot of it for the placeholder to draw.
+     * @param view The view to release
+     * @param keepSnapshot Whether to keep a snapshot, otherwise the placeholder shows the label
+     */
+    public void releaseView(@NonNull LauncherAppWidgetHostView view, boolean keepSnapshot) {
+        final int appWidgetId = view.getAppWidgetId();
+        if (keepSnapshot && view.isLaidOut() && view.getWidth() > 0 && view.getHeight() > 0) {
+            mWidgetSnapshots.put(appWidgetId, BitmapRenderer.createHardwareBitmap(
+                    view.getWidth(), view.getHeight(), view::draw));
+        }
+        view.release();
+        if (mViews.get(appWidgetId) == view) {
+            mViews.remove(appWidgetId);
+        }
+        if (mDeferredViews.get(appWidgetId) == view) {
+            mDeferredViews.remove(appWidgetId);
+        }
+    }
+
     /**
      * Listener for getting notifications on provider changes.
      */
@@ -467,6 +533,8 @@ public class LauncherWidgetHolder {
             mDeferredViews.clear();
         }
         mViews.clear();
+        mWidgetSnapshots.clear();
+        mViewsWithDeferredUpdates.clear();
     }
 
     /**
@@ -495,6 +563,84 @@ public class LauncherWidgetHolder {
             // Postpone stopping listening until the activity is stopped.
             stopListening();
         }
+        if (canApplyWidgetUpdates()) {
+            applyDeferredWidgetUpdates();
+        }
+    }
+
+    /**
+     * Returns true if widget views can apply their {@link RemoteViews} updates right away, false
+     * if the updates should be deferred because the launcher is not resumed or not in the normal
+     * state.
+     */
+    public boolean canApplyWidgetUpdates() {
+        return (mFlags & FLAGS_CAN_APPLY_UPDATES) == FLAGS_CAN_APPLY_UPDATES;
+    }
+
+    /**
+     * Registers a view holding a deferred {@link RemoteViews} update, to be applied on the next
+     * call to {@link #applyDeferredWidgetUpdates()}.
+     */
+    public void deferWidgetUpdate(@NonNull LauncherAppWidgetHostView view) {
+        mViewsWithDeferredUpdates.add(view);
+    }
+
+    /**
+     * Applies the deferred updates of the widgets which can now be updated.
+     */
+    public void applyDeferredWidgetUpdates() {
+        if (mViewsWithDeferredUpdates.isEmpty()) {
+            return;
+        }
+        ArrayList<LauncherAppWidgetHostView> views = new ArrayList<>(mViewsWithDeferredUpdates);
+        mViewsWithDeferredUpdates.clear();
+        // Views which still can't be updated will register themselves again
+        for (LauncherAppWidgetHostView view : views) {
+            view.applyDeferredRemoteViews();
+        }
+    }
+
+    /**
+     * Records that a widget received a {@link RemoteViews} update.
+     */
+    public void recordWidgetUpdateReceived(int appWidgetId) {
+        getUpdateStats(appWidgetId).receivedCount++;
+    }
+
+    /**
+     * Records that a widget applied a {@link RemoteViews} update.
+     */
+    public void recordWidgetUpdateApplied(int appWidgetId) {
+        getUpdateStats(appWidgetId).appliedCount++;
+    }
+
+    @NonNull
+    private UpdateStats getUpdateStats(int appWidgetId) {
+        UpdateStats stats = mUpdateStats.get(appWidgetId);
+        if (stats == null) {
+            stats = new UpdateStats(appWidgetId);
+            mUpdateStats.put(appWidgetId, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Dumps the widgets receiving the most updates.
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "LauncherWidgetHolder:");
+        writer.println(prefix + "\tcanApplyWidgetUpdates=" + canApplyWidgetUpdates()
+                + " deferredUpdates=" + mViewsWithDeferredUpdates.size());
+        ArrayList<UpdateStats> stats = new ArrayList<>(mUpdateStats.size());
+        for (int i = 0; i < mUpdateStats.size(); i++) {
+            stats.add(mUpdateStats.valueAt(i));
+        }
+        stats.sort((a, b) -> Integer.compare(b.receivedCount, a.receivedCount));
+        writer.println(prefix + "\tWidget updates (top " + MAX_DUMPED_UPDATE_STATS + "):");
+        long now = SystemClock.uptimeMillis();
+        for (int i = 0; i < Math.min(stats.size(), MAX_DUMPED_UPDATE_STATS); i++) {
+            writer.println(prefix + "\t\t" + stats.get(i).toString(now));
+        }
     }
 
     /**
@@ -513,6 +659,30 @@ public class LauncherWidgetHolder {
         }
     }
 
+    /**
+     * Update counters of a single widget
+     */
+    private static class UpdateStats {
+
+        final int appWidgetId;
+        final long firstUpdateTime = SystemClock.uptimeMillis();
+        int receivedCount;
+        int appliedCount;
+
+        UpdateStats(int appWidgetId) {
+            this.appWidgetId = appWidgetId;
+        }
+
+        String toString(long now) {
+            float seconds = Math.max(1, now - firstUpdateTime) / 1000f;
+            return "id=" + appWidgetId
+                    + " received=" + receivedCount
+                    + " applied=" + appliedCount
+                    + " receivedPerMin="
+                    + String.format(Locale.US, "%.1f", receivedCount * 60 / seconds);
+        }
+    }
+
     /**
      * Returns the new LauncherWidgetHolder instance
      */
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A placeholder for a widget on a page far from the visible pages. It is not registered with the
+ * widget host and draws the last snapshot of the widget, if any, until it is replaced by a real
+ * widget view when the user gets close to its page.
+ */
+public class LazyAppWidgetHostView extends DeferredAppWidgetHostView {
+
+    private final Rect mSnapshotBounds = new Rect();
+    @Nullable
+    private Bitmap mSnapshot;
+
+    public LazyAppWidgetHostView(Context context) {
+        super(context);
+    }
+
+    /**
+     * Sets the snapshot of the widget to be drawn instead of its label.
+     */
+    public void setSnapshot(@Nullable Bitmap snapshot) {
+        mSnapshot = snapshot;
+        if (snapshot != null) {
+            setBackground(null);
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mSnapshot == null) {
+            super.onDraw(canvas);
+            return;
+        }
+        mSnapshotBounds.set(0, 0, getWidth(), getHeight());
+        canvas.drawBitmap(mSnapshot, null, mSnapshotBounds, null);
+    }
+}
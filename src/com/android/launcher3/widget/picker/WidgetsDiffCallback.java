@@ -58,7 +58,11 @@ public class WidgetsDiffCallback extends Callback {
 
     @Override
     public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-        // Always update all entries since the icon may have changed
-        return false;
+        // The model reuses the entries of a package until its widgets or icon change, so only
+        // entries which were recreated, or which became or stopped being the first or last entry
+        // and need a different background, need to be bound again
+        return mOldEntries.get(oldItemPosition) == mNewEntries.get(newItemPosition)
+                && WidgetsListAdapter.getListPosition(oldItemPosition, mOldEntries.size())
+                        == WidgetsListAdapter.getListPosition(newItemPosition, mNewEntries.size());
     }
 }
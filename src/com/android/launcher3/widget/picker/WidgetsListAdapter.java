@@ -259,13 +259,21 @@ public class WidgetsListAdapter extends Adapter<ViewHolder> implements OnHeaderC
     @Override
     public void onBindViewHolder(ViewHolder holder, int pos, List<Object> payloads) {
         ViewHolderBinder viewHolderBinder = mViewHolderBinders.get(getItemViewType(pos));
+        viewHolderBinder.bindViewHolder(holder, mVisibleEntries.get(pos),
+                getListPosition(pos, getItemCount()), payloads);
+    }
 
+    /**
+     * Returns the position flags of the entry at {@param pos} in a list of {@param count}
+     * entries, which decide the shape of its background.
+     */
+    static int getListPosition(int pos, int count) {
         // The first entry has an empty space, count from second entries.
         int listPos = (pos > 1) ? POSITION_DEFAULT : POSITION_FIRST;
-        if (pos == (getItemCount() - 1)) {
+        if (pos == (count - 1)) {
             listPos |= POSITION_LAST;
         }
-        viewHolderBinder.bindViewHolder(holder, mVisibleEntries.get(pos), listPos, payloads);
+        return listPos;
     }
 
     /**
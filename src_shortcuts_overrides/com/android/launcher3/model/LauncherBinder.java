@@ -21,9 +21,9 @@ import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.model.BgDataModel.Callbacks;
 import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.ObjectIntHashMap;
 import com.android.launcher3.widget.model.WidgetsListBaseEntry;
 
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -38,9 +38,9 @@ public class LauncherBinder extends BaseLauncherBinder {
 
     @Override
     public void bindDeepShortcuts() {
-        final HashMap<ComponentKey, Integer> shortcutMapCopy;
+        final ObjectIntHashMap<ComponentKey> shortcutMapCopy;
         synchronized (mBgDataModel) {
-            shortcutMapCopy = new HashMap<>(mBgDataModel.deepShortcutMap);
+            shortcutMapCopy = new ObjectIntHashMap<>(mBgDataModel.deepShortcutMap);
         }
         executeCallbacksTask(c -> c.bindDeepShortcutMap(shortcutMapCopy), mUiExecutor);
     }
@@ -70,24 +70,38 @@ public class WidgetsModel {
     /* Map of widgets and shortcuts that are tracked per package. */
     private final Map<PackageItemInfo, List<WidgetItem>> mWidgetsList = new HashMap<>();
 
+    /* Picker entries of each package, cached until the widgets of the package change. */
+    private final Map<PackageItemInfo, WidgetsListBaseEntry[]> mPickerEntries = new HashMap<>();
+
     /**
      * Returns a list of {@link WidgetsListBaseEntry}. All {@link WidgetItem} in a single row
      * are sorted (based on label and user), but the overall list of
-     * {@link WidgetsListBaseEntry}s is not sorted.
+     * {@link WidgetsListBaseEntry}s is not sorted. The entries of a package are the same
+     * objects across calls until the widgets of that package change.
      *
      * @see com.android.launcher3.widget.picker.WidgetsListAdapter#setWidgets(List)
      */
     public synchronized ArrayList<WidgetsListBaseEntry> getWidgetsListForPicker(Context context) {
-        ArrayList<WidgetsListBaseEntry> result = new ArrayList<>();
-        AlphabeticIndexCompat indexer = new AlphabeticIndexCompat(context);
+        ArrayList<WidgetsListBaseEntry> result = new ArrayList<>(mWidgetsList.size() * 2);
+        AlphabeticIndexCompat indexer = null;
 
         for (Map.Entry<PackageItemInfo, List<WidgetItem>> entry : mWidgetsList.entrySet()) {
             PackageItemInfo pkgItem = entry.getKey();
-            List<WidgetItem> widgetItems = entry.getValue();
-            String sectionName = (pkgItem.title == null) ? "" :
-                    indexer.computeSectionName(pkgItem.title);
-            result.add(WidgetsListHeaderEntry.create(pkgItem, sectionName, widgetItems));
-            result.add(new WidgetsListContentEntry(pkgItem, sectionName, widgetItems));
+            WidgetsListBaseEntry[] entries = mPickerEntries.get(pkgItem);
+            if (entries == null) {
+                if (indexer == null) {
+                    indexer = new AlphabeticIndexCompat(context);
+                }
+                List<WidgetItem> widgetItems = entry.getValue();
+                String sectionName = (pkgItem.title == null) ? "" :
+                        indexer.computeSectionName(pkgItem.title);
+                entries = new WidgetsListBaseEntry[] {
+                        WidgetsListHeaderEntry.create(pkgItem, sectionName, widgetItems),
+                        new WidgetsListContentEntry(pkgItem, sectionName, widgetItems)};
+                mPickerEntries.put(pkgItem, entries);
+            }
+            result.add(entries[0]);
+            result.add(entries[1]);
         }
         return result;
     }
@@ -185,12 +199,22 @@ public class WidgetsModel {
         for (PackageItemInfo p : packageItemInfoCache.values()) {
             iconCache.getTitleAndIconForApp(p, true /* userLowResIcon */);
         }
+
+        // Drop the picker entries of the packages which changed
+        if (packageUser == null) {
+            mPickerEntries.clear();
+        } else {
+            for (PackageItemInfo p : packageItemInfoCache.values()) {
+                mPickerEntries.remove(p);
+            }
+        }
     }
 
-    public void onPackageIconsUpdated(Set<String> packageNames, UserHandle user,
+    public synchronized void onPackageIconsUpdated(Set<String> packageNames, UserHandle user,
             LauncherAppState app) {
         for (Entry<PackageItemInfo, List<WidgetItem>> entry : mWidgetsList.entrySet()) {
             if (packageNames.contains(entry.getKey().packageName)) {
+                mPickerEntries.remove(entry.getKey());
                 List<WidgetItem> items = entry.getValue();
                 int count = items.size();
                 for (int i = 0; i < count; i++) {
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.benchmark;
+
+import static org.junit.Assert.assertTrue;
+
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Rule which measures the time per operation of a benchmark, in the style of JMH: the operation
+ * is run for a warmup period, then in several timed batches, and the median batch is reported.
+ *
+ * Results are compared against the baselines in the benchmark_baselines.txt asset. A regression
+ * is reported in the instrumentation output, and fails the benchmark if the "checkBaselines"
+ * instrumentation argument is true.
+ */
+public class BenchmarkRule implements TestRule {
+
+    private static final String TAG = "LauncherBenchmark";
+
+    private static final String BASELINES_ASSET = "benchmark_baselines.txt";
+    private static final String ARG_CHECK_BASELINES = "checkBaselines";
+    private static final String ARG_REGRESSION_FACTOR = "regressionFactor";
+    private static final float DEFAULT_REGRESSION_FACTOR = 1.5f;
+
+    private static final long WARMUP_NS = 250_000_000L;
+    private static final long BATCH_NS = 50_000_000L;
+    private static final int BATCH_COUNT = 15;
+
+    private static Map<String, Long> sBaselines;
+
+    // Results of the operations are folded into this field so that they are not optimized away
+    private static volatile int sSink;
+
+    private String mName;
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        mName = description.getTestClass().getSimpleName() + "#" + description.getMethodName();
+        return base;
+    }
+
+    /**
+     * Measures {@param op} and returns the median time per operation in nanoseconds.
+     */
+    public long measure(Supplier<?> op) {
+        // Warmup, also used to estimate the number of operations per batch
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            consume(op.get());
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < WARMUP_NS);
+        long opsPerBatch = Math.max(1, ops * BATCH_NS / elapsed);
+
+        long[] batchNsPerOp = new long[BATCH_COUNT];
+        for (int batch = 0; batch < BATCH_COUNT; batch++) {
+            long batchStart = System.nanoTime();
+            for (long i = 0; i < opsPerBatch; i++) {
+                consume(op.get());
+            }
+            batchNsPerOp[batch] = (System.nanoTime() - batchStart) / opsPerBatch;
+        }
+        Arrays.sort(batchNsPerOp);
+        long median = batchNsPerOp[BATCH_COUNT / 2];
+        report(median, batchNsPerOp[0], batchNsPerOp[BATCH_COUNT - 1]);
+        return median;
+    }
+
+    private void report(long median, long min, long max) {
+        Bundle status = new Bundle();
+        status.putLong(mName + "_median_ns", median);
+        status.putLong(mName + "_min_ns", min);
+        status.putLong(mName + "_max_ns", max);
+        String result = mName + ": median=" + median + "ns min=" + min + "ns max=" + max + "ns";
+        Log.i(TAG, result);
+        Log.i(TAG, "baseline: " + mName + " " + median);
+
+        Long baseline = getBaselines().get(mName);
+        Bundle args = InstrumentationRegistry.getArguments();
+        float factor = DEFAULT_REGRESSION_FACTOR;
+        String factorArg = args.getString(ARG_REGRESSION_FACTOR);
+        if (!TextUtils.isEmpty(factorArg)) {
+            factor = Float.parseFloat(factorArg);
+        }
+        boolean regressed = baseline != null && median > baseline * factor;
+        if (baseline != null) {
+            status.putLong(mName + "_baseline_ns", baseline);
+            status.putBoolean(mName + "_regressed", regressed);
+            if (regressed) {
+                Log.w(TAG, result + " regressed from baseline " + baseline + "ns");
+            }
+        }
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+
+        if (Boolean.parseBoolean(args.getString(ARG_CHECK_BASELINES))) {
+            assertTrue(result + " regressed from baseline " + baseline + "ns", !regressed);
+        }
+    }
+
+    private static synchronized Map<String, Long> getBaselines() {
+        if (sBaselines != null) {
+            return sBaselines;
+        }
+        sBaselines = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                InstrumentationRegistry.getInstrumentation().getContext().getAssets()
+                        .open(BASELINES_ASSET)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length == 2) {
+                    sBaselines.put(parts[0], Long.parseLong(parts[1]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            Log.e(TAG, "Unable to read benchmark baselines", e);
+        }
+        return sBaselines;
+    }
+
+    private static void consume(Object result) {
+        sSink ^= System.identityHashCode(result);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.benchmark;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.util.GridOccupancy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks for the cell occupancy search used when placing and reordering items.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class GridOccupancyBenchmark {
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void findVacantCell_mostlyFullGrid() {
+        GridOccupancy occupancy = new GridOccupancy(6, 7);
+        occupancy.markCells(0, 0, 6, 6, true);
+        occupancy.markCells(0, 6, 4, 1, true);
+        int[] out = new int[2];
+        mBenchmarkRule.measure(() -> occupancy.findVacantCell(out, 2, 1));
+    }
+
+    @Test
+    public void isRegionVacant_widgetSpan() {
+        GridOccupancy occupancy = new GridOccupancy(6, 7);
+        occupancy.markCells(1, 1, 2, 2, true);
+        int[] cell = new int[1];
+        mBenchmarkRule.measure(() -> {
+            int index = cell[0]++ % 20;
+            return occupancy.isRegionVacant(index % 4, index / 4, 3, 2);
+        });
+    }
+
+    @Test
+    public void markCells_fillAndClear() {
+        GridOccupancy occupancy = new GridOccupancy(6, 7);
+        mBenchmarkRule.measure(() -> {
+            occupancy.markCells(0, 0, 6, 7, true);
+            occupancy.markCells(0, 0, 6, 7, false);
+            return occupancy;
+        });
+    }
+}
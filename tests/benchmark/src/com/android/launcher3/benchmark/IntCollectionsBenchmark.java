@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.benchmark;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.IntHashSet;
+import com.android.launcher3.util.IntIntHashMap;
+import com.android.launcher3.util.IntSet;
+import com.android.launcher3.util.ObjectIntHashMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks for the primitive int collections used across the model.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class IntCollectionsBenchmark {
+
+    private static final int SIZE = 500;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void intArray_addAndContains() {
+        mBenchmarkRule.measure(() -> {
+            IntArray array = new IntArray();
+            for (int i = 0; i < SIZE; i++) {
+                array.add(i * 7);
+            }
+            return array.contains(SIZE * 7 - 7);
+        });
+    }
+
+    @Test
+    public void intSet_add() {
+        mBenchmarkRule.measure(() -> {
+            IntSet set = new IntSet();
+            // Descending so that each add inserts at the start of the sorted array
+            for (int i = SIZE; i > 0; i--) {
+                set.add(i);
+            }
+            return set;
+        });
+    }
+
+    @Test
+    public void intSet_contains() {
+        IntSet set = new IntSet();
+        for (int i = 0; i < SIZE; i++) {
+            set.add(i * 3);
+        }
+        int[] next = new int[1];
+        mBenchmarkRule.measure(() -> set.contains(next[0]++ % (SIZE * 3)));
+    }
+
+    @Test
+    public void intHashSet_add() {
+        mBenchmarkRule.measure(() -> {
+            IntHashSet set = new IntHashSet();
+            for (int i = SIZE; i > 0; i--) {
+                set.add(i);
+            }
+            return set;
+        });
+    }
+
+    @Test
+    public void intHashSet_contains() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < SIZE; i++) {
+            set.add(i * 3);
+        }
+        int[] next = new int[1];
+        mBenchmarkRule.measure(() -> set.contains(next[0]++ % (SIZE * 3)));
+    }
+
+    @Test
+    public void intIntHashMap_increment() {
+        mBenchmarkRule.measure(() -> {
+            IntIntHashMap map = new IntIntHashMap();
+            for (int i = 0; i < SIZE * 2; i++) {
+                map.increment(i % SIZE, 1);
+            }
+            return map;
+        });
+    }
+
+    @Test
+    public void objectIntHashMap_increment() {
+        String[] keys = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = "key" + i;
+        }
+        mBenchmarkRule.measure(() -> {
+            ObjectIntHashMap<String> map = new ObjectIntHashMap<>();
+            for (int i = 0; i < SIZE * 2; i++) {
+                map.increment(keys[i % SIZE], 1);
+            }
+            return map;
+        });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.benchmark;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.allapps.search.DefaultAppSearchAlgorithm;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.search.StringMatcherUtility;
+import com.android.launcher3.search.StringMatcherUtility.StringMatcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks for the app title matching used by the all apps search.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class SearchBenchmark {
+
+    private static final String[] WORDS = {"camera", "photos", "Google", "maps", "music",
+            "Player", "settings", "calendar", "clock", "weather", "news", "Mail", "chat",
+            "video", "notes", "files", "Bank", "shop", "fitness", "translate"};
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void stringMatcher_matches() {
+        StringMatcher matcher = StringMatcher.getInstance();
+        List<AppInfo> apps = createApps(1000);
+        int[] index = new int[1];
+        mBenchmarkRule.measure(() -> {
+            AppInfo app = apps.get(index[0]++ % apps.size());
+            return StringMatcherUtility.matches("pla", app.title.toString(), matcher);
+        });
+    }
+
+    @Test
+    public void titleMatch_1kApps() {
+        List<AppInfo> apps = createApps(1000);
+        mBenchmarkRule.measure(() -> DefaultAppSearchAlgorithm.getTitleMatchResult(apps, "ma"));
+    }
+
+    @Test
+    public void titleMatch_5kApps() {
+        List<AppInfo> apps = createApps(5000);
+        mBenchmarkRule.measure(() -> DefaultAppSearchAlgorithm.getTitleMatchResult(apps, "ma"));
+    }
+
+    private static List<AppInfo> createApps(int count) {
+        // Fixed seed so that every run searches the same titles
+        Random random = new Random(count);
+        List<AppInfo> apps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            ComponentName cn = new ComponentName("com.example.app" + i, "Activity");
+            apps.add(new AppInfo(cn, title, Process.myUserHandle(),
+                    new Intent(Intent.ACTION_MAIN).setComponent(cn)));
+        }
+        return apps;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons.pack;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.benchmark.BenchmarkRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmark for parsing the appfilter.xml of an icon pack, using the filter bundled in the
+ * benchmark apk.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class IconPackParserBenchmark {
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void parsePackage_1500Items() throws Exception {
+        Context context = getInstrumentation().getContext();
+        // Sanity check that the bundled filter is found
+        assertEquals(1500, IconPackParser.parsePackage(context.getPackageManager(),
+                context.getResources(), context.getPackageName()).drawables.size());
+
+        mBenchmarkRule.measure(() -> {
+            try {
+                return IconPackParser.parsePackage(context.getPackageManager(),
+                        context.getResources(), context.getPackageName());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
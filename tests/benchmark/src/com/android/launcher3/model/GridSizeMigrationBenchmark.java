@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.LauncherSettings.Favorites.CELLX;
+import static com.android.launcher3.LauncherSettings.Favorites.CELLY;
+import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER;
+import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER_DESKTOP;
+import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER_HOTSEAT;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT;
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE;
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
+import static com.android.launcher3.LauncherSettings.Favorites.SCREEN;
+import static com.android.launcher3.LauncherSettings.Favorites.SPANX;
+import static com.android.launcher3.LauncherSettings.Favorites.SPANY;
+import static com.android.launcher3.LauncherSettings.Favorites.TABLE_NAME;
+import static com.android.launcher3.LauncherSettings.Favorites.TMP_TABLE;
+import static com.android.launcher3.LauncherSettings.Favorites._ID;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.Intent;
+import android.database.sqlite.SQLiteDatabase;
+import android.graphics.Point;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.InvariantDeviceProfile;
+import com.android.launcher3.LauncherSettings.Favorites;
+import com.android.launcher3.benchmark.BenchmarkRule;
+import com.android.launcher3.model.GridSizeMigrationUtil.DbReader;
+import com.android.launcher3.pm.UserCache;
+import com.android.launcher3.provider.LauncherDbUtils;
+import com.android.launcher3.util.LauncherModelHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Benchmark for migrating a workspace to a smaller grid, using the same database setup as
+ * GridSizeMigrationUtilTest. Each migration is rolled back so that every operation starts from
+ * the same workspace.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class GridSizeMigrationBenchmark {
+
+    private static final int SRC_SIZE = 5;
+    private static final int DEST_SIZE = 4;
+    private static final int SCREEN_COUNT = 4;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private LauncherModelHelper mModelHelper;
+    private Context mContext;
+    private DatabaseHelper mDbHelper;
+    private SQLiteDatabase mDb;
+    private final Set<String> mValidPackages = new HashSet<>();
+
+    @Before
+    public void setUp() {
+        mModelHelper = new LauncherModelHelper();
+        mContext = mModelHelper.sandboxContext;
+        mDbHelper = new DatabaseHelper(mContext, null,
+                UserCache.INSTANCE.get(mContext)::getSerialNumberForUser, () -> { });
+        mDb = mDbHelper.getWritableDatabase();
+
+        long userSerial = UserCache.INSTANCE.get(mContext)
+                .getSerialNumberForUser(Process.myUserHandle());
+        LauncherDbUtils.dropTable(mDb, TMP_TABLE);
+        Favorites.addTableToDb(mDb, userSerial, false, TMP_TABLE);
+
+        // Full source hotseat and screens, with one item per package
+        int id = 1;
+        for (int i = 0; i < SRC_SIZE; i++) {
+            addItem(id++, CONTAINER_HOTSEAT, i, 0, 0);
+        }
+        for (int screen = 0; screen < SCREEN_COUNT; screen++) {
+            for (int y = 0; y < SRC_SIZE; y++) {
+                for (int x = 0; x < SRC_SIZE; x++) {
+                    addItem(id++, CONTAINER_DESKTOP, screen, x, y);
+                }
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mModelHelper.destroy();
+    }
+
+    @Test
+    public void migrate_fullWorkspaceToSmallerGrid() {
+        InvariantDeviceProfile idp = InvariantDeviceProfile.INSTANCE.get(mContext);
+        idp.numDatabaseHotseatIcons = DEST_SIZE;
+        idp.numColumns = DEST_SIZE;
+        idp.numRows = DEST_SIZE;
+        DeviceGridState srcState = new DeviceGridState(mContext);
+        DeviceGridState destState = new DeviceGridState(idp);
+        Point targetSize = new Point(DEST_SIZE, DEST_SIZE);
+
+        mBenchmarkRule.measure(() -> {
+            mDb.beginTransaction();
+            try {
+                // Readers cache the entries they load, so they are created for each migration
+                return GridSizeMigrationUtil.migrate(mContext, mDbHelper,
+                        new DbReader(mDb, TMP_TABLE, mContext, mValidPackages),
+                        new DbReader(mDb, TABLE_NAME, mContext, mValidPackages),
+                        DEST_SIZE, targetSize, srcState, destState);
+            } finally {
+                // Not marked successful, so the migration is rolled back
+                mDb.endTransaction();
+            }
+        });
+    }
+
+    private void addItem(int id, int container, int screen, int x, int y) {
+        String packageName = "com.android.launcher3.validpackage" + id;
+        mValidPackages.add(packageName);
+
+        ContentValues values = new ContentValues();
+        values.put(_ID, id);
+        values.put(CONTAINER, container);
+        values.put(SCREEN, screen);
+        values.put(CELLX, x);
+        values.put(CELLY, y);
+        values.put(SPANX, 1);
+        values.put(SPANY, 1);
+        values.put(ITEM_TYPE, ITEM_TYPE_APPLICATION);
+        values.put(INTENT, new Intent(Intent.ACTION_MAIN).setPackage(packageName).toUri(0));
+        mDb.insert(TMP_TABLE, null, values);
+    }
+}
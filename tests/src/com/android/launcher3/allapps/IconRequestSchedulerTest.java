@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.allapps.IconRequestScheduler.MAX_BATCH_SIZE;
+import static com.android.launcher3.allapps.IconRequestScheduler.SPAN_VISIBLE_ICONS_FULL_RES;
+import static com.android.launcher3.logging.LaunchTraceRecorder.NO_LAUNCH;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.BubbleTextView;
+import com.android.launcher3.logging.LaunchTraceRecorder;
+import com.android.launcher3.logging.LaunchTraceRecorder.Span;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.model.data.ItemInfoWithIcon;
+import com.android.launcher3.util.ActivityContextWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Unit tests for {@link IconRequestScheduler}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class IconRequestSchedulerTest {
+
+    private static final int VIEWPORT_SIZE = 100;
+    private static final int ICON_SIZE = 20;
+
+    private Context mContext;
+    private FrameLayout mViewport;
+    private final ArrayList<List<AppInfo>> mBatches = new ArrayList<>();
+    private final ArrayList<Consumer<List<AppInfo>>> mCallbacks = new ArrayList<>();
+    private IconRequestScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = new ActivityContextWrapper(getApplicationContext());
+        mViewport = new FrameLayout(mContext);
+        mViewport.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+        mScheduler = new IconRequestScheduler(mViewport, (infos, callback) -> {
+            mBatches.add(new ArrayList<>(infos));
+            mCallbacks.add(callback);
+        });
+    }
+
+    @Test
+    public void flush_loadsNearestViewsFirst() {
+        AppInfo below = request(addIcon(VIEWPORT_SIZE + 200));
+        AppInfo visible = request(addIcon(0));
+        AppInfo above = request(addIcon(-ICON_SIZE - 50));
+        AppInfo detached = request(new TestIcon(mContext));
+
+        mScheduler.flush();
+
+        assertThat(mBatches).hasSize(1);
+        assertThat(mBatches.get(0)).containsExactly(visible, above, below, detached).inOrder();
+    }
+
+    @Test
+    public void flush_sameDistance_loadsInRequestOrder() {
+        TestIcon first = addIcon(0);
+        TestIcon second = addIcon(VIEWPORT_SIZE - ICON_SIZE);
+        AppInfo secondInfo = request(second);
+        AppInfo firstInfo = request(first);
+
+        mScheduler.flush();
+
+        assertThat(mBatches.get(0)).containsExactly(secondInfo, firstInfo).inOrder();
+    }
+
+    @Test
+    public void flush_manyRequests_loadsOneBatchAtATime() {
+        ArrayList<AppInfo> infos = new ArrayList<>();
+        for (int i = 0; i < MAX_BATCH_SIZE + 4; i++) {
+            infos.add(request(addIcon(0)));
+        }
+
+        mScheduler.flush();
+        mScheduler.flush();
+        assertThat(mBatches).hasSize(1);
+        assertThat(mBatches.get(0)).containsExactlyElementsIn(infos.subList(0, MAX_BATCH_SIZE))
+                .inOrder();
+
+        mCallbacks.get(0).accept(mBatches.get(0));
+        mScheduler.flush();
+        assertThat(mBatches).hasSize(2);
+        assertThat(mBatches.get(1)).containsExactlyElementsIn(
+                infos.subList(MAX_BATCH_SIZE, infos.size())).inOrder();
+    }
+
+    @Test
+    public void cancel_pendingRequest_isNotLoaded() {
+        TestIcon cancelled = addIcon(0);
+        request(cancelled);
+        AppInfo kept = request(addIcon(0));
+
+        mScheduler.cancel(cancelled);
+        mScheduler.flush();
+
+        assertThat(mBatches.get(0)).containsExactly(kept);
+    }
+
+    @Test
+    public void request_rebound_replacesPendingRequest() {
+        TestIcon icon = addIcon(0);
+        request(icon);
+        AppInfo rebound = request(icon);
+
+        mScheduler.flush();
+
+        assertThat(mBatches.get(0)).containsExactly(rebound);
+    }
+
+    @Test
+    public void onBatchLoaded_skipsViewsCancelledOrReboundInFlight() {
+        TestIcon cancelled = addIcon(0);
+        TestIcon rebound = addIcon(0);
+        TestIcon kept = addIcon(0);
+        request(cancelled);
+        request(rebound);
+        AppInfo keptInfo = request(kept);
+        mScheduler.flush();
+
+        mScheduler.cancel(cancelled);
+        AppInfo reboundInfo = request(rebound);
+        mCallbacks.get(0).accept(mBatches.get(0));
+
+        assertThat(cancelled.mApplied).isEmpty();
+        assertThat(rebound.mApplied).isEmpty();
+        assertThat(kept.mApplied).containsExactly(keptInfo);
+
+        // The new request of the rebound view is loaded in the next batch
+        mScheduler.flush();
+        assertThat(mBatches.get(1)).containsExactly(reboundInfo);
+    }
+
+    @Test
+    public void onBatchLoaded_afterClear_appliesNothing() {
+        TestIcon icon = addIcon(0);
+        request(icon);
+        mScheduler.flush();
+
+        mScheduler.clear();
+        mCallbacks.get(0).accept(mBatches.get(0));
+
+        assertThat(icon.mApplied).isEmpty();
+    }
+
+    @Test
+    public void onBatchLoaded_visibleIcons_recordsSpanOutsideLaunch() {
+        request(addIcon(0));
+        mScheduler.flush();
+
+        LaunchTraceRecorder.INSTANCE.beginLaunch();
+        mCallbacks.get(0).accept(mBatches.get(0));
+
+        Span span = null;
+        for (Span s : LaunchTraceRecorder.INSTANCE.getSpans()) {
+            if (SPAN_VISIBLE_ICONS_FULL_RES.equals(s.name)) {
+                span = s;
+            }
+        }
+        assertThat(span).isNotNull();
+        assertThat(span.launchId).isEqualTo(NO_LAUNCH);
+    }
+
+    private TestIcon addIcon(int top) {
+        TestIcon icon = new TestIcon(mContext);
+        mViewport.addView(icon);
+        icon.layout(0, top, ICON_SIZE, top + ICON_SIZE);
+        return icon;
+    }
+
+    private AppInfo request(TestIcon icon) {
+        AppInfo info = new AppInfo();
+        mScheduler.request(icon, info);
+        return info;
+    }
+
+    private static class TestIcon extends BubbleTextView {
+
+        final ArrayList<ItemInfoWithIcon> mApplied = new ArrayList<>();
+
+        TestIcon(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void reapplyItemInfo(ItemInfoWithIcon info) {
+            mApplied.add(info);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+import android.content.Context;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.LauncherAppState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link IncrementalIconCacheUpdater}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class IncrementalIconCacheUpdaterTest {
+
+    private Context mContext;
+    private IncrementalIconCacheUpdater mUpdater;
+
+    @Before
+    public void setup() {
+        mContext = getInstrumentation().getTargetContext();
+        mUpdater = new IncrementalIconCacheUpdater(
+                LauncherAppState.getInstance(mContext), handler -> { });
+    }
+
+    @Test
+    public void getFingerprint_sameItemsQueriedTwice_match() {
+        List<LauncherActivityInfo> first = queryActivities();
+        List<LauncherActivityInfo> second = new ArrayList<>(queryActivities());
+        assertFalse(first.isEmpty());
+        assertNotSame(first.get(0), second.get(0));
+        Collections.reverse(second);
+
+        Long firstFingerprint = mUpdater.getFingerprint(mContext.getPackageName(), first,
+                IncrementalIconCacheUpdater::getActivityVersion);
+        Long secondFingerprint = mUpdater.getFingerprint(mContext.getPackageName(), second,
+                IncrementalIconCacheUpdater::getActivityVersion);
+        assertNotNull(firstFingerprint);
+        assertEquals(firstFingerprint, secondFingerprint);
+    }
+
+    @Test
+    public void getFingerprint_differentItems_differ() {
+        List<LauncherActivityInfo> all = queryActivities();
+        assertFalse(all.isEmpty());
+
+        Long allFingerprint = mUpdater.getFingerprint(mContext.getPackageName(), all,
+                IncrementalIconCacheUpdater::getActivityVersion);
+        Long partialFingerprint = mUpdater.getFingerprint(mContext.getPackageName(),
+                all.subList(1, all.size()), IncrementalIconCacheUpdater::getActivityVersion);
+        assertFalse(allFingerprint.equals(partialFingerprint));
+    }
+
+    private List<LauncherActivityInfo> queryActivities() {
+        return mContext.getSystemService(LauncherApps.class)
+                .getActivityList(mContext.getPackageName(), Process.myUserHandle());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.logging;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.logging.LaunchTraceRecorder.Span;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link LaunchTraceRecorder}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class LaunchTraceRecorderTest {
+
+    @Test
+    public void recordSpan_groupedByLaunch() {
+        LaunchTraceRecorder recorder = new LaunchTraceRecorder();
+        int launchId = recorder.beginLaunch();
+        recorder.recordSpan("span", 100, 250);
+
+        List<Span> spans = recorder.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("span", spans.get(0).name);
+        assertEquals(150, spans.get(0).getDurationNanos());
+        assertEquals(launchId, spans.get(0).launchId);
+    }
+
+    @Test
+    public void fullBuffer_keepsNewestSpans() {
+        LaunchTraceRecorder recorder = new LaunchTraceRecorder();
+        for (int i = 0; i < 300; i++) {
+            recorder.recordSpan("span" + i, i, i + 1);
+        }
+
+        List<Span> spans = recorder.getSpans();
+        assertEquals(256, spans.size());
+        assertEquals("span44", spans.get(0).name);
+        assertEquals("span299", spans.get(spans.size() - 1).name);
+    }
+
+    @Test
+    public void percentile_nearestRank() {
+        long[] values = {10, 20, 30, 40, 50, 60, 70, 80, 90, 100};
+        assertEquals(50, LaunchTraceRecorder.percentile(values, 50));
+        assertEquals(90, LaunchTraceRecorder.percentile(values, 90));
+        assertEquals(100, LaunchTraceRecorder.percentile(values, 99));
+        assertEquals(-1, LaunchTraceRecorder.percentile(new long[0], 50));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ShortcutInfo;
+import android.os.Process;
+import android.os.UserHandle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.util.ComponentKey;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests for the deep shortcut counts of {@link BgDataModel}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class DeepShortcutCountsTest {
+
+    private final Context mContext = getApplicationContext();
+    private final UserHandle mUser = Process.myUserHandle();
+    private final ComponentName mActivity1 =
+            new ComponentName(mContext.getPackageName(), "Activity1");
+    private final ComponentName mActivity2 =
+            new ComponentName(mContext.getPackageName(), "Activity2");
+
+    @Test
+    public void packageUpdate_onlyReportsChangedCounts() {
+        BgDataModel model = new BgDataModel();
+        assertTrue(model.updateDeepShortcutCounts(mContext.getPackageName(), mUser, Arrays.asList(
+                createInfo("a", mActivity1), createInfo("b", mActivity1),
+                createInfo("c", mActivity2))));
+        assertEquals(2, getCount(model, mActivity1));
+        assertEquals(1, getCount(model, mActivity2));
+
+        // Same counts with different shortcuts
+        assertFalse(model.updateDeepShortcutCounts(mContext.getPackageName(), mUser, Arrays.asList(
+                createInfo("d", mActivity1), createInfo("e", mActivity1),
+                createInfo("f", mActivity2))));
+
+        assertTrue(model.updateDeepShortcutCounts(mContext.getPackageName(), mUser,
+                Collections.singletonList(createInfo("a", mActivity2))));
+        assertEquals(0, getCount(model, mActivity1));
+        assertEquals(1, getCount(model, mActivity2));
+    }
+
+    @Test
+    public void clearUser_removesAllCounts() {
+        BgDataModel model = new BgDataModel();
+        model.updateDeepShortcutCounts(null, mUser,
+                Collections.singletonList(createInfo("a", mActivity1)));
+        assertTrue(model.clearDeepShortcutCounts(mUser));
+        assertTrue(model.deepShortcutMap.isEmpty());
+        assertFalse(model.clearDeepShortcutCounts(mUser));
+    }
+
+    private int getCount(BgDataModel model, ComponentName activity) {
+        return model.deepShortcutMap.get(new ComponentKey(activity, mUser), 0);
+    }
+
+    private ShortcutInfo createInfo(String id, ComponentName activity) {
+        ShortcutInfo info = spy(new ShortcutInfo.Builder(mContext, id)
+                .setActivity(activity)
+                .setShortLabel(id)
+                .build());
+        doReturn(true).when(info).isDynamic();
+        return info;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.model.InstallProgressThrottler.MIN_PROGRESS_STEP;
+import static com.android.launcher3.model.InstallProgressThrottler.isVisibleChange;
+import static com.android.launcher3.pm.PackageInstallInfo.STATUS_INSTALLED;
+import static com.android.launcher3.pm.PackageInstallInfo.STATUS_INSTALLED_DOWNLOADING;
+import static com.android.launcher3.pm.PackageInstallInfo.STATUS_INSTALLING;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.LauncherModel;
+import com.android.launcher3.pm.PackageInstallInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link InstallProgressThrottler}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class InstallProgressThrottlerTest {
+
+    private LauncherModel mModel;
+    private InstallProgressThrottler mThrottler;
+
+    @Before
+    public void setUp() {
+        mModel = mock(LauncherModel.class);
+        mThrottler = new InstallProgressThrottler(mModel);
+    }
+
+    @Test
+    public void firstProgress_isVisible() {
+        assertThat(isVisibleChange(null, newInfo(STATUS_INSTALLING, 30))).isTrue();
+    }
+
+    @Test
+    public void smallStep_isNotVisible() {
+        assertThat(isVisibleChange(newInfo(STATUS_INSTALLING, 30),
+                newInfo(STATUS_INSTALLING, 30 + MIN_PROGRESS_STEP - 1))).isFalse();
+        assertThat(isVisibleChange(newInfo(STATUS_INSTALLING, 30),
+                newInfo(STATUS_INSTALLING, 30 + MIN_PROGRESS_STEP))).isTrue();
+    }
+
+    @Test
+    public void completion_alwaysVisible() {
+        assertThat(isVisibleChange(newInfo(STATUS_INSTALLED_DOWNLOADING, 99),
+                newInfo(STATUS_INSTALLED_DOWNLOADING, 100))).isTrue();
+    }
+
+    @Test
+    public void stateChange_alwaysVisible() {
+        assertThat(isVisibleChange(newInfo(STATUS_INSTALLING, 50),
+                newInfo(STATUS_INSTALLED_DOWNLOADING, 50))).isTrue();
+    }
+
+    @Test
+    public void progressBurst_keepsLatestProgressOfEachPackage() {
+        PackageInstallInfo latest = newInfo("app", STATUS_INSTALLING, 30);
+        PackageInstallInfo other = newInfo("other", STATUS_INSTALLING, 10);
+        mThrottler.enqueueInstallState(newInfo("app", STATUS_INSTALLING, 10));
+        mThrottler.enqueueInstallState(newInfo("app", STATUS_INSTALLING, 20));
+        mThrottler.enqueueInstallState(other);
+        mThrottler.enqueueInstallState(latest);
+
+        assertThat(mThrottler.drainPending()).containsExactly(latest, other).inOrder();
+        assertThat(mThrottler.drainPending()).isEmpty();
+    }
+
+    @Test
+    public void smallStepAfterFlush_isDropped() {
+        mThrottler.enqueueInstallState(newInfo(STATUS_INSTALLING, 30));
+        mThrottler.drainPending();
+
+        mThrottler.enqueueInstallState(newInfo(STATUS_INSTALLING, 30 + MIN_PROGRESS_STEP - 1));
+        assertThat(mThrottler.drainPending()).isEmpty();
+
+        PackageInstallInfo step = newInfo(STATUS_INSTALLING, 30 + MIN_PROGRESS_STEP);
+        mThrottler.enqueueInstallState(step);
+        assertThat(mThrottler.drainPending()).containsExactly(step);
+    }
+
+    @Test
+    public void sessionEnd_isDispatchedAndDiscardsProgress() {
+        mThrottler.enqueueInstallState(newInfo(STATUS_INSTALLING, 30));
+        mThrottler.drainPending();
+        mThrottler.enqueueInstallState(newInfo(STATUS_INSTALLING, 60));
+
+        mThrottler.enqueueInstallState(newInfo(STATUS_INSTALLED, 0));
+
+        verify(mModel).enqueueModelUpdateTask(any(PackageInstallStateChangedTask.class));
+        assertThat(mThrottler.drainPending()).isEmpty();
+        assertThat(mThrottler.getTrackedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void completeDownload_isNotTracked() {
+        mThrottler.enqueueInstallState(newInfo(STATUS_INSTALLED_DOWNLOADING, 50));
+        mThrottler.drainPending();
+        assertThat(mThrottler.getTrackedCount()).isEqualTo(1);
+
+        PackageInstallInfo complete = newInfo(STATUS_INSTALLED_DOWNLOADING, 100);
+        mThrottler.enqueueInstallState(complete);
+        assertThat(mThrottler.drainPending()).containsExactly(complete);
+        assertThat(mThrottler.getTrackedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void packagesRemoved_forgetsTheirProgress() {
+        mThrottler.enqueueInstallState(newInfo("app", STATUS_INSTALLED_DOWNLOADING, 50));
+        mThrottler.drainPending();
+        mThrottler.enqueueInstallState(newInfo("other", STATUS_INSTALLED_DOWNLOADING, 20));
+
+        mThrottler.onPackagesRemoved(Process.myUserHandle(), "app", "other");
+
+        assertThat(mThrottler.drainPending()).isEmpty();
+        assertThat(mThrottler.getTrackedCount()).isEqualTo(0);
+    }
+
+    private static PackageInstallInfo newInfo(int state, int progress) {
+        return newInfo("app", state, progress);
+    }
+
+    private static PackageInstallInfo newInfo(String packageName, int state, int progress) {
+        return new PackageInstallInfo(packageName, state, progress, Process.myUserHandle());
+    }
+}
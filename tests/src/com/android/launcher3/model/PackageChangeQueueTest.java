@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.model.PackageUpdatedTask.OP_ADD;
+import static com.android.launcher3.model.PackageUpdatedTask.OP_REMOVE;
+import static com.android.launcher3.model.PackageUpdatedTask.OP_UPDATE;
+import static com.android.launcher3.model.PackageUpdatedTask.OP_USER_AVAILABILITY_CHANGE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.Process;
+import android.os.UserHandle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.model.PackageChangeQueue.PendingOp;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link PackageChangeQueue}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PackageChangeQueueTest {
+
+    private final UserHandle mUser = Process.myUserHandle();
+
+    @Test
+    public void sameOpDifferentPackages_mergedIntoOneBatch() {
+        List<PendingOp> batches = PackageChangeQueue.mergeOps(Arrays.asList(
+                new PendingOp(OP_UPDATE, mUser, "a"),
+                new PendingOp(OP_UPDATE, mUser, "b"),
+                new PendingOp(OP_UPDATE, mUser, "a")));
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0).packages).containsExactly("a", "b").inOrder();
+        assertThat(batches.get(0).mergedOpCount).isEqualTo(3);
+    }
+
+    @Test
+    public void unrelatedOpInBetween_stillMerged() {
+        List<PendingOp> batches = PackageChangeQueue.mergeOps(Arrays.asList(
+                new PendingOp(OP_UPDATE, mUser, "a"),
+                new PendingOp(OP_ADD, mUser, "b"),
+                new PendingOp(OP_UPDATE, mUser, "c")));
+
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0).op).isEqualTo(OP_UPDATE);
+        assertThat(batches.get(0).packages).containsExactly("a", "c");
+        assertThat(batches.get(1).op).isEqualTo(OP_ADD);
+    }
+
+    @Test
+    public void samePackageOpInBetween_orderPreserved() {
+        List<PendingOp> batches = PackageChangeQueue.mergeOps(Arrays.asList(
+                new PendingOp(OP_ADD, mUser, "a"),
+                new PendingOp(OP_REMOVE, mUser, "a"),
+                new PendingOp(OP_ADD, mUser, "a")));
+
+        assertThat(batches).hasSize(3);
+        assertThat(batches.get(0).op).isEqualTo(OP_ADD);
+        assertThat(batches.get(1).op).isEqualTo(OP_REMOVE);
+        assertThat(batches.get(2).op).isEqualTo(OP_ADD);
+    }
+
+    @Test
+    public void userAvailabilityChange_actsAsBarrier() {
+        List<PendingOp> batches = PackageChangeQueue.mergeOps(Arrays.asList(
+                new PendingOp(OP_UPDATE, mUser, "a"),
+                new PendingOp(OP_USER_AVAILABILITY_CHANGE, mUser),
+                new PendingOp(OP_UPDATE, mUser, "b")));
+
+        assertThat(batches).hasSize(3);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Unit tests for {@link IntHashSet}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class IntHashSetTest {
+
+    @Test
+    public void shouldBeEmptyInitially() {
+        IntHashSet set = new IntHashSet();
+        assertThat(set.size()).isEqualTo(0);
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    public void duplicateEntries() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(2));
+        assertFalse(set.add(2));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void zeroAndNegativeValues() {
+        IntHashSet set = IntHashSet.wrap(0, -1, 5);
+        assertThat(set.size()).isEqualTo(3);
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertEquals("-1, 0, 5", set.toSortedArray().toConcatString());
+
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertThat(set.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void growAndRemove_keepsRemainingValues() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 1; i <= 1000; i++) {
+            set.add(i * 31);
+        }
+        for (int i = 1; i <= 1000; i += 2) {
+            assertTrue(set.remove(i * 31));
+        }
+        assertThat(set.size()).isEqualTo(500);
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(i % 2 == 0, set.contains(i * 31));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Unit tests for {@link IntIntHashMap}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class IntIntHashMapTest {
+
+    @Test
+    public void missingKey_returnsDefault() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertEquals(-1, map.get(3, -1));
+        assertEquals(-1, map.get(0, -1));
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void putAndIncrement() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(3, 10);
+        map.put(3, 20);
+        assertEquals(20, map.get(3, -1));
+        assertEquals(1, map.increment(0, 1));
+        assertEquals(2, map.increment(0, 1));
+        assertEquals(25, map.increment(3, 5));
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void growAndRemove_keepsRemainingMappings() {
+        IntIntHashMap map = new IntIntHashMap();
+        for (int i = 1; i <= 1000; i++) {
+            map.put(i * 17, i);
+        }
+        for (int i = 1; i <= 1000; i += 3) {
+            assertTrue(map.remove(i * 17));
+        }
+        assertFalse(map.remove(17));
+        int[] count = new int[1];
+        map.forEach((key, value) -> {
+            assertEquals(key, value * 17);
+            count[0]++;
+        });
+        assertEquals(map.size(), count[0]);
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(i % 3 == 1 ? -1 : i, map.get(i * 17, -1));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Unit tests for {@link LabelComparator}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class LabelComparatorTest {
+
+    private static final String[] LABELS = {
+            "", "a", "A", "apple", "Apple", "b", "Banana", "1 App", "10 Apps", "2 Apps",
+            "#hash", "_under", " space", "éclair", "Eclair", "zebra", "Zoo"};
+
+    @Test
+    public void compareSortKeys_matchesCompare() {
+        LabelComparator comparator = new LabelComparator();
+        for (String a : LABELS) {
+            for (String b : LABELS) {
+                int expected = Integer.signum(comparator.compare(a, b));
+                int actual = Integer.signum(LabelComparator.compareSortKeys(
+                        comparator.getSortKey(a), comparator.getSortKey(b)));
+                assertEquals("Comparing \"" + a + "\" and \"" + b + "\"", expected, actual);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Unit tests for {@link ObjectIntHashMap}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ObjectIntHashMapTest {
+
+    @Test
+    public void incrementAndGet() {
+        ObjectIntHashMap<String> map = new ObjectIntHashMap<>();
+        assertEquals(0, map.get("a", 0));
+        map.increment("a", 1);
+        map.increment("a", 1);
+        map.put("b", 7);
+        assertEquals(2, map.get("a", 0));
+        assertEquals(7, map.get("b", 0));
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void removeIf_keepsNonMatchingKeys() {
+        ObjectIntHashMap<String> map = new ObjectIntHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            map.put("key" + i, i);
+        }
+        assertTrue(map.removeIf(key -> key.endsWith("0")));
+        assertFalse(map.removeIf(key -> key.endsWith("0")));
+        assertThat(map.size()).isEqualTo(180);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 10 == 0 ? -1 : i, map.get("key" + i, -1));
+        }
+    }
+
+    @Test
+    public void removeIf_collidingKeys_testsEachKeyOnce() {
+        ObjectIntHashMap<Integer> map = new ObjectIntHashMap<>();
+        // Fills half of the table, so that removals shift back keys of shared probe sequences
+        for (int i = 0; i < 8; i++) {
+            map.put(i * 1024, i);
+            map.put(i * 1024 + 1, i);
+        }
+        int[] tested = new int[1];
+        assertTrue(map.removeIf(key -> {
+            tested[0]++;
+            return (key & 1) == 0;
+        }));
+        assertThat(tested[0]).isEqualTo(16);
+        assertThat(map.size()).isEqualTo(8);
+        for (int i = 0; i < 8; i++) {
+            assertFalse(map.containsKey(i * 1024));
+            assertEquals(i, map.get(i * 1024 + 1, -1));
+        }
+    }
+
+    @Test
+    public void copy_isIndependent() {
+        ObjectIntHashMap<String> map = new ObjectIntHashMap<>();
+        map.put("a", 1);
+        ObjectIntHashMap<String> copy = new ObjectIntHashMap<>(map);
+        map.remove("a");
+        assertFalse(map.containsKey("a"));
+        assertEquals(1, copy.get("a", 0));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link PersistedItemArray}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PersistedItemArrayTest {
+
+    private static final String FILE_NAME = "persisted_item_array_test";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = getApplicationContext();
+        new PersistedItemArray<WorkspaceItemInfo>(FILE_NAME).delete(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        new PersistedItemArray<WorkspaceItemInfo>(FILE_NAME).delete(mContext);
+    }
+
+    @Test
+    public void changedSlot_isAppendedAndReadBack() {
+        PersistedItemArray<WorkspaceItemInfo> array = new PersistedItemArray<>(FILE_NAME);
+        array.write(mContext, createItems("a", "b", "c"));
+        long snapshotLength = array.getFile(mContext).getBaseFile().length();
+
+        array.write(mContext, createItems("a", "d", "c"));
+        long appendedLength = array.getFile(mContext).getBaseFile().length();
+        assertTrue(appendedLength > snapshotLength);
+
+        assertEquals(Arrays.asList("a", "d", "c"), readClasses(FILE_NAME));
+    }
+
+    @Test
+    public void unchangedItems_notWritten() {
+        PersistedItemArray<WorkspaceItemInfo> array = new PersistedItemArray<>(FILE_NAME);
+        array.write(mContext, createItems("a", "b"));
+        long length = array.getFile(mContext).getBaseFile().length();
+
+        array.write(mContext, createItems("a", "b"));
+        assertEquals(length, array.getFile(mContext).getBaseFile().length());
+    }
+
+    @Test
+    public void shorterList_truncatesItems() {
+        PersistedItemArray<WorkspaceItemInfo> array = new PersistedItemArray<>(FILE_NAME);
+        array.write(mContext, createItems("a", "b", "c"));
+        array.write(mContext, createItems("a"));
+
+        assertEquals(Arrays.asList("a"), readClasses(FILE_NAME));
+    }
+
+    @Test
+    public void tornRecord_previousRecordsKept() throws IOException {
+        PersistedItemArray<WorkspaceItemInfo> array = new PersistedItemArray<>(FILE_NAME);
+        array.write(mContext, createItems("a", "b", "c"));
+        array.write(mContext, createItems("a", "d", "c"));
+        File file = array.getFile(mContext).getBaseFile();
+        truncate(file, file.length() - 2);
+
+        assertEquals(Arrays.asList("a", "b", "c"), readClasses(FILE_NAME));
+    }
+
+    @Test
+    public void tornLengthPrefix_previousRecordsKept() throws IOException {
+        PersistedItemArray<WorkspaceItemInfo> array = new PersistedItemArray<>(FILE_NAME);
+        array.write(mContext, createItems("a", "b", "c"));
+        File file = array.getFile(mContext).getBaseFile();
+        long snapshotLength = file.length();
+        array.write(mContext, createItems("a", "d", "c"));
+        // Keep only 2 bytes of the length of the appended record
+        truncate(file, snapshotLength + 2);
+
+        assertEquals(Arrays.asList("a", "b", "c"), readClasses(FILE_NAME));
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private List<String> readClasses(String fileName) {
+        return new PersistedItemArray<WorkspaceItemInfo>(fileName)
+                .read(mContext, (itemType, user, intent) -> createItem(
+                        intent.getComponent().getClassName()))
+                .stream()
+                .map(item -> item.getTargetComponent().getClassName())
+                .collect(Collectors.toList());
+    }
+
+    private static List<WorkspaceItemInfo> createItems(String... classNames) {
+        List<WorkspaceItemInfo> items = new ArrayList<>();
+        for (String className : classNames) {
+            items.add(createItem(className));
+        }
+        return items;
+    }
+
+    private static WorkspaceItemInfo createItem(String className) {
+        WorkspaceItemInfo item = new WorkspaceItemInfo();
+        item.itemType = ITEM_TYPE_APPLICATION;
+        item.user = Process.myUserHandle();
+        item.intent = new Intent(Intent.ACTION_MAIN)
+                .setComponent(new ComponentName("com.example", className));
+        return item;
+    }
+}